@@ -22,6 +22,9 @@ public class AppSettings {
     private String gitLabUsername;
     private String gitLabPassword;
 
+    // 上次打开的根目录，启动时恢复
+    private String lastRootDirectory;
+
     // 默认字体
     private static final Font DEFAULT_LEFT_FONT = new Font("Arial", Font.PLAIN, 12);
     private static final Font DEFAULT_RIGHT_FONT = new Font("Segoe UI", Font.PLAIN, 12);
@@ -90,6 +93,8 @@ public class AppSettings {
                 gitLabUsername = props.getProperty("gitlab.username", "");
                 gitLabPassword = props.getProperty("gitlab.password", "");
 
+                lastRootDirectory = props.getProperty("root.directory", "");
+
             } catch (IOException e) {
                 System.err.println("Error loading settings: " + e.getMessage());
                 setDefaultFonts();
@@ -128,6 +133,10 @@ public class AppSettings {
                 props.setProperty("gitlab.password", gitLabPassword);
             }
 
+            if (lastRootDirectory != null && !lastRootDirectory.isEmpty()) {
+                props.setProperty("root.directory", lastRootDirectory);
+            }
+
             props.store(fos, "Git Info Viewer Settings");
 
         } catch (IOException e) {
@@ -180,4 +189,12 @@ public class AppSettings {
     public void setGitLabPassword(String password) {
         this.gitLabPassword = password;
     }
+
+    public String getLastRootDirectory() {
+        return lastRootDirectory != null ? lastRootDirectory : "";
+    }
+
+    public void setLastRootDirectory(String directory) {
+        this.lastRootDirectory = directory;
+    }
 }
@@ -1,5 +1,12 @@
 package com.gitviewer;
 
+import org.eclipse.jgit.errors.RevisionSyntaxException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
 import javax.swing.table.DefaultTableModel;
@@ -34,6 +41,9 @@ public class BatchCherryPickDialog extends JDialog {
     private static final Color FAIL_COLOR = new Color(220, 53, 69);
     private static final Color PENDING_COLOR = new Color(255, 193, 7);
 
+    // 批量 cherry-pick 的预写日志类型（见 BatchJournal）
+    private static final String CHERRY_PICK_JOURNAL = "cherry-pick";
+
     // 结果列表
     private List<CherryPickResultItem> resultList;
     private JButton resultButton;
@@ -161,6 +171,20 @@ public class BatchCherryPickDialog extends JDialog {
         cherryPickButton.addActionListener(e -> executeCherryPick());
         panel.add(cherryPickButton);
 
+        JButton dryRunButton = new JButton("Dry Run");
+        dryRunButton.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        dryRunButton.setToolTipText("Predict conflicts in memory without changing any repository");
+        dryRunButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        dryRunButton.addActionListener(e -> dryRunCherryPick());
+        panel.add(dryRunButton);
+
+        JButton resumeButton = new JButton("Resume");
+        resumeButton.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        resumeButton.setToolTipText("Resume an interrupted batch cherry-pick, skipping commits already applied");
+        resumeButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        resumeButton.addActionListener(e -> resumeCherryPick());
+        panel.add(resumeButton);
+
         resultButton = new JButton("Show Results");
         resultButton.setFont(new Font("Segoe UI", Font.BOLD, 12));
         resultButton.setBackground(SUCCESS_COLOR);
@@ -222,8 +246,67 @@ public class BatchCherryPickDialog extends JDialog {
      * 执行批量 cherry-pick
      */
     private void executeCherryPick() {
-        String urlsText = commitUrlsTextArea.getText().trim();
+        executeCherryPick(commitUrlsTextArea.getText().trim());
+    }
+
+    /**
+     * 继续执行上次中断的批量 cherry-pick：跳过预写日志中已经成功完成的提交
+     */
+    private void resumeCherryPick() {
+        String scope = currentDirectory != null ? currentDirectory.getAbsolutePath() : "";
+        BatchJournal journal = BatchJournal.findUnfinished(CHERRY_PICK_JOURNAL, scope);
+        if (journal == null) {
+            JOptionPane.showMessageDialog(this,
+                    "No interrupted batch cherry-pick found for this directory.",
+                    "Nothing to Resume",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        List<String> urls = new ArrayList<>();
+        for (BatchJournal.Step step : journal.getSteps()) {
+            urls.add(step.getDetail());
+        }
+        int completed = journal.getCompletedCount();
+        int interrupted = 0;
+        for (BatchJournal.Step step : journal.getSteps()) {
+            if (step.getState() == BatchJournal.StepState.STARTED
+                    || step.getState() == BatchJournal.StepState.INTERRUPTED) {
+                interrupted++;
+            }
+        }
+        int choice = JOptionPane.showConfirmDialog(this,
+                "Batch cherry-pick to '" + journal.getParameter() + "' started at "
+                        + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(journal.getCreatedTime()))
+                        + " did not finish.\n"
+                        + completed + " of " + urls.size() + " commits were applied"
+                        + (interrupted > 0 ? ", " + interrupted + " were interrupted and will not be retried"
+                                + " (check them manually)" : "") + ".\n\n"
+                        + "Resume and process the remaining " + (urls.size() - completed - interrupted) + " commits?",
+                "Resume Batch Cherry-Pick",
+                JOptionPane.YES_NO_OPTION);
+        if (choice != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        commitUrlsTextArea.setText(String.join("\n", urls));
+        branchNameTextField.setText(journal.getParameter());
+        executeCherryPick(String.join("\n", urls), journal);
+    }
+
+    /**
+     * 对给定的 URL 列表（每行一个）执行批量 cherry-pick
+     */
+    private void executeCherryPick(String urlsText) {
+        executeCherryPick(urlsText, null);
+    }
+
+    /**
+     * 对给定的 URL 列表执行批量 cherry-pick，每个提交开始前和完成后写入预写日志
+     * @param resumeJournal 继续执行的批次（URL 与该批次的步骤一一对应），null 表示开始新批次
+     */
+    private void executeCherryPick(String urlsText, BatchJournal resumeJournal) {
         String targetBranch = branchNameTextField.getText().trim();
+        String scope = currentDirectory != null ? currentDirectory.getAbsolutePath() : "";
 
         if (urlsText.isEmpty()) {
             JOptionPane.showMessageDialog(this,
@@ -258,8 +341,33 @@ public class BatchCherryPickDialog extends JDialog {
             protected Void doInBackground() throws Exception {
                 String[] urls = urlsText.split("\n");
                 List<String> crossProjectCommands = new ArrayList<>();
-                int sameProjectCount = 0;
-                int crossProjectCount = 0;
+                int[] counts = new int[2]; // 同项目, 跨项目
+
+                // 预写日志：新批次以行号为步骤键，继续执行时沿用原批次的步骤
+                String[] stepKeys = new String[urls.length];
+                BatchJournal journal;
+                if (resumeJournal != null) {
+                    journal = resumeJournal;
+                    List<BatchJournal.Step> steps = journal.getSteps();
+                    for (int i = 0; i < urls.length && i < steps.size(); i++) {
+                        stepKeys[i] = steps.get(i).getKey();
+                    }
+                    publish("Resuming interrupted batch, " + journal.getCompletedCount() + " of " + steps.size()
+                            + " commits already applied");
+                } else {
+                    Map<String, String> plannedSteps = new LinkedHashMap<>();
+                    for (int i = 0; i < urls.length; i++) {
+                        if (!urls[i].trim().isEmpty()) {
+                            stepKeys[i] = String.valueOf(i);
+                            plannedSteps.put(stepKeys[i], urls[i].trim());
+                        }
+                    }
+                    BatchJournal previous = BatchJournal.findUnfinished(CHERRY_PICK_JOURNAL, scope);
+                    if (previous != null) {
+                        previous.close();
+                    }
+                    journal = BatchJournal.begin(CHERRY_PICK_JOURNAL, scope, targetBranch, plannedSteps);
+                }
 
                 // 初始化日志
                 logBuilder.append("=== Batch Cherry-Pick Started ===\n");
@@ -269,265 +377,74 @@ public class BatchCherryPickDialog extends JDialog {
                 logBuilder.append("Current Working Directory: ").append(currentDirectory != null ? currentDirectory.getAbsolutePath() : "N/A").append("\n");
                 logBuilder.append("========================================\n\n");
 
+                // 执行计划：按目标项目分区，同一项目的 URL 按顺序执行（第一次切换分支，之后只做 cherry-pick），
+                // 不同项目并行执行；输出和结果仍按 URL 顺序
+                List<Integer> lines = new ArrayList<>();
+                Map<Integer, String> partitions = new HashMap<>();
+                Map<String, Integer> partitionSizes = new LinkedHashMap<>();
+                UpstreamFetches upstreamFetches = new UpstreamFetches();
                 for (int i = 0; i < urls.length; i++) {
-                    String url = urls[i].trim();
-                    if (url.isEmpty()) {
-                        publish("Skipping empty line " + (i + 1));
-                        logBuilder.append("Skipping empty line ").append(i + 1).append("\n");
-                        continue;
+                    lines.add(i);
+                    String partition = partitionOf(urls[i].trim());
+                    if (partition != null) {
+                        partitions.put(i, partition);
+                        partitionSizes.merge(partition, 1, Integer::sum);
+                        planUpstreamFetch(urls[i].trim(), upstreamFetches);
                     }
+                }
+                publish("Execution plan: " + partitionSizes.size() + " project(s), up to "
+                        + MultiRepoExecutor.DEFAULT_PARALLELISM + " in parallel");
+                logBuilder.append("Execution plan: ").append(partitionSizes.size()).append(" project(s)\n");
+                for (Map.Entry<String, Integer> partition : partitionSizes.entrySet()) {
+                    publish("  - " + new File(partition.getKey()).getName() + ": " + partition.getValue() + " commit(s)");
+                    logBuilder.append("  - ").append(new File(partition.getKey()).getName()).append(": ")
+                            .append(partition.getValue()).append(" commit(s)\n");
+                }
 
-                    publish("\n" + "=".repeat(60));
-                    publish("Processing URL " + (i + 1) + " of " + urls.length);
-                    publish("Original URL: " + url);
-                    publish("=".repeat(60));
-
-                    logBuilder.append("\n").append("=".repeat(60)).append("\n");
-                    logBuilder.append("Processing URL ").append(i + 1).append(" of ").append(urls.length).append("\n");
-                    logBuilder.append("Original URL: ").append(url).append("\n");
-                    logBuilder.append("=".repeat(60)).append("\n");
-
-                    // 创建结果项并初始化日志列表
-                    CherryPickResultItem resultItem = new CherryPickResultItem();
-                    resultItem.index = i + 1;
-                    resultItem.url = url;
-                    resultItem.targetBranch = targetBranch;
-                    resultItem.logs = new ArrayList<>();
-
-                    try {
-                        // 1. 解析 commit URL
-                        publish("\n[Step 1] Parsing commit URL...");
-                        logBuilder.append("\n[Step 1] Parsing commit URL...\n");
-                        resultItem.logs.add("[Step 1] Parsing commit URL...");
-
-                        CommitInfo commitInfo = parseCommitUrl(url);
-                        if (commitInfo == null) {
-                            publish("  ✗ Failed: Invalid URL format");
-                            publish("  Expected format: https://gitlab.insuremo.com/project/path/-/commit/abc123");
-                            logBuilder.append("  ✗ Failed: Invalid URL format\n");
-                            resultItem.logs.add("  ✗ Failed: Invalid URL format");
-                            resultItem.logs.add("  Expected formats:");
-                            resultItem.logs.add("    - GitLab: https://gitlab.insuremo.com/project/path/-/commit/abc123");
-                            resultItem.logs.add("    - GitHub: https://github.com/user/project/commit/abc123");
-
-                            resultItem.status = CherryPickStatus.FAIL;
-                            resultItem.errorMessage = "Invalid URL format";
-                            resultList.add(resultItem);
-                            continue;
-                        }
-
-                        publish("  ✓ URL parsing successful");
-                        publish("  - Extracted Project Code: " + commitInfo.projectCode);
-                        publish("  - Extracted Commit ID: " + commitInfo.commitId);
-                        publish("  - Extracted Base URL: " + commitInfo.baseUrl);
-                        publish("  - Full URL: " + commitInfo.fullUrl);
-                        logBuilder.append("  ✓ URL parsing successful\n");
-                        logBuilder.append("  - Project Code: ").append(commitInfo.projectCode).append("\n");
-                        logBuilder.append("  - Commit ID: ").append(commitInfo.commitId).append("\n");
-                        resultItem.logs.add("  ✓ URL parsing successful");
-                        resultItem.logs.add("  - Project Code: " + commitInfo.projectCode);
-                        resultItem.logs.add("  - Commit ID: " + commitInfo.commitId);
-                        resultItem.logs.add("  - Base URL: " + commitInfo.baseUrl);
-
-                        resultItem.projectCode = commitInfo.projectCode;
-                        resultItem.commitId = commitInfo.commitId;
-
-                        // 2. 查找匹配的项目目录
-                        publish("\n[Step 2] Searching for project directory...");
-                        publish("  Looking for directory: " + commitInfo.projectCode);
-                        publish("  In parent directory: " + currentDirectory.getAbsolutePath());
-                        logBuilder.append("\n[Step 2] Searching for project directory...\n");
-                        logBuilder.append("  Looking for: ").append(commitInfo.projectCode).append("\n");
-                        resultItem.logs.add("[Step 2] Searching for project directory...");
-                        resultItem.logs.add("  Looking for: " + commitInfo.projectCode);
-
-                        File projectDir = findProjectDirectory(commitInfo.projectCode);
-                        if (projectDir == null) {
-                            publish("  ✗ Project directory NOT found");
-                            publish("  Available directories in current path:");
-                            logBuilder.append("  ✗ Project directory NOT found\n");
-                            resultItem.logs.add("  ✗ Project directory NOT found");
-
-                            File[] children = currentDirectory.listFiles();
-                            if (children != null) {
-                                for (File child : children) {
-                                    if (child.isDirectory()) {
-                                        publish("    - " + child.getName());
-                                        logBuilder.append("    - ").append(child.getName()).append("\n");
-                                        resultItem.logs.add("    - " + child.getName());
-                                    }
-                                }
-                            }
-
-                            resultItem.status = CherryPickStatus.FAIL;
-                            resultItem.errorMessage = "Project directory not found";
-                            resultList.add(resultItem);
-                            continue;
-                        }
-
-                        publish("  ✓ Project directory found");
-                        publish("  - Absolute Path: " + projectDir.getAbsolutePath());
-                        publish("  - Is Git Repository: " + GitInfoExtractor.isGitRepository(projectDir));
-                        logBuilder.append("  ✓ Project directory found\n");
-                        logBuilder.append("  - Path: ").append(projectDir.getAbsolutePath()).append("\n");
-                        resultItem.logs.add("  ✓ Project directory found");
-                        resultItem.logs.add("  - Path: " + projectDir.getAbsolutePath());
-
-                        resultItem.projectPath = projectDir.getAbsolutePath();
-
-                        // 3. 获取当前项目的 git remote URL
-                        publish("\n[Step 3] Retrieving current project Git configuration...");
-                        logBuilder.append("\n[Step 3] Retrieving current project Git configuration...\n");
-                        resultItem.logs.add("[Step 3] Retrieving current project Git configuration...");
-
-                        String currentRemoteUrl = getRemoteUrl(projectDir);
-                        publish("  Current project remote URL: " + currentRemoteUrl);
-                        logBuilder.append("  Current remote URL: ").append(currentRemoteUrl).append("\n");
-                        resultItem.logs.add("  Current remote URL: " + currentRemoteUrl);
-
-                        // 4. 判断是否是同一项目
-                        publish("\n[Step 4] Comparing projects...");
-                        publish("  Commit URL Base: " + commitInfo.baseUrl);
-                        publish("  Local Project URL: " + currentRemoteUrl);
-                        logBuilder.append("\n[Step 4] Comparing projects...\n");
-                        logBuilder.append("  Commit URL Base: ").append(commitInfo.baseUrl).append("\n");
-                        logBuilder.append("  Local Project URL: ").append(currentRemoteUrl).append("\n");
-                        resultItem.logs.add("[Step 4] Comparing projects...");
-                        resultItem.logs.add("  Commit URL Base: " + commitInfo.baseUrl);
-                        resultItem.logs.add("  Local Project URL: " + currentRemoteUrl);
-
-                        boolean isSameProject = isSameProject(commitInfo.baseUrl, currentRemoteUrl);
-                        publish("  Comparison result: " + (isSameProject ? "SAME PROJECT" : "DIFFERENT PROJECT"));
-                        logBuilder.append("  Result: ").append(isSameProject ? "SAME PROJECT" : "DIFFERENT PROJECT").append("\n");
-                        resultItem.logs.add("  Result: " + (isSameProject ? "SAME PROJECT" : "DIFFERENT PROJECT"));
-
-                        resultItem.isSameProject = isSameProject;
-
-                        if (isSameProject) {
-                            // 同项目 cherry-pick
-                            publish("\n[Step 5] Executing SAME-PROJECT cherry-pick...");
-                            publish("  Strategy: Direct cherry-pick within same repository");
-                            logBuilder.append("\n[Step 5] Executing SAME-PROJECT cherry-pick...\n");
-                            resultItem.logs.add("[Step 5] Executing SAME-PROJECT cherry-pick...");
-                            resultItem.logs.add("  Strategy: Direct cherry-pick within same repository");
-                            sameProjectCount++;
-
-                            CherryPickResult cpResult = executeSameProjectCherryPick(projectDir, commitInfo.commitId, targetBranch);
-
-                            // 输出详细日志
-                            publish("\n  Cherry-Pick Execution Log:");
-                            logBuilder.append("  Cherry-Pick Execution Log:\n");
-                            resultItem.logs.add("  Cherry-Pick Execution Log:");
-                            for (String log : cpResult.logs) {
-                                publish("  " + log);
-                                logBuilder.append("  ").append(log).append("\n");
-                                resultItem.logs.add("  " + log);
-                            }
-
-                            if (cpResult.success) {
-                                if (cpResult.hasConflicts) {
-                                    publish("\n  [SUCCESS] Cherry-pick completed with conflicts");
-                                    logBuilder.append("\n  [SUCCESS] Cherry-pick completed with conflicts\n");
-                                    resultItem.logs.add("  [SUCCESS] Cherry-pick completed with conflicts");
-
-                                    resultItem.status = CherryPickStatus.SUCCESS;
-                                    resultItem.errorMessage = "Warning: conflicted files exist";
-                                } else {
-                                    publish("\n  [SUCCESS] Cherry-pick completed successfully");
-                                    logBuilder.append("\n  [SUCCESS] Cherry-pick completed successfully\n");
-                                    resultItem.logs.add("  [SUCCESS] Cherry-pick completed successfully");
-
-                                    resultItem.status = CherryPickStatus.SUCCESS;
-                                }
-                            } else {
-                                publish("\n  [FAILED] Cherry-pick execution failed");
-                                logBuilder.append("\n  [FAILED] Cherry-pick execution failed\n");
-                                resultItem.logs.add("  [FAILED] Cherry-pick execution failed");
-
-                                resultItem.status = CherryPickStatus.FAIL;
-                                resultItem.errorMessage = "Cherry-pick execution failed";
-                            }
-                        } else {
-                            // 跨项目 cherry-pick
-                            publish("\n[Step 5] Executing CROSS-PROJECT cherry-pick...");
-                            publish("  Strategy: Generate CMD commands for cross-repository cherry-pick");
-                            publish("  This requires adding the source repository as 'upstream' remote");
-                            logBuilder.append("\n[Step 5] Executing CROSS-PROJECT cherry-pick...\n");
-                            logBuilder.append("  Strategy: Generate CMD commands\n");
-                            resultItem.logs.add("[Step 5] Executing CROSS-PROJECT cherry-pick...");
-                            resultItem.logs.add("  Strategy: Generate CMD commands");
-                            crossProjectCount++;
-
-                            List<String> commands = generateCrossProjectCommands(
-                                    projectDir.getAbsolutePath(),
-                                    commitInfo.baseUrl,
-                                    commitInfo.commitId,
-                                    targetBranch
-                            );
-
-                            publish("\n  Generated " + commands.size() + " CMD commands:");
-                            logBuilder.append("  Generated ").append(commands.size()).append(" CMD commands:\n");
-                            resultItem.logs.add("  Generated " + commands.size() + " CMD commands:");
-                            for (int cmdIdx = 0; cmdIdx < commands.size(); cmdIdx++) {
-                                String cmd = commands.get(cmdIdx);
-                                if (cmd.isEmpty()) {
-                                    publish("    [empty line]");
-                                    logBuilder.append("    [empty line]\n");
-                                    resultItem.logs.add("    [empty line]");
-                                } else {
-                                    publish("    " + (cmdIdx + 1) + ". " + cmd);
-                                    logBuilder.append("    ").append(cmdIdx + 1).append(". ").append(cmd).append("\n");
-                                    resultItem.logs.add("    " + (cmdIdx + 1) + ". " + cmd);
-                                }
-                            }
-
-                            crossProjectCommands.addAll(commands);
-                            publish("\n  [OK] Commands generated and added to batch execution list");
-                            logBuilder.append("\n  [OK] Commands generated and added to batch execution list\n");
-                            resultItem.logs.add("  [OK] Commands generated and added to batch execution list");
+                MultiRepoExecutor.run(lines, MultiRepoExecutor.DEFAULT_PARALLELISM, partitions::get, 1,
+                        MultiRepoExecutor.Delivery.INPUT_ORDER, null,
+                        (i, token) -> processJournaledUrl(i, urls.length, urls[i].trim(), targetBranch,
+                                upstreamFetches, journal, stepKeys[i], resumeJournal != null), result -> {
+                    UrlOutcome outcome = result.getValue();
+                    if (outcome == null) {
+                        return;
+                    }
+                    for (String message : outcome.published) {
+                        publish(message);
+                    }
+                    logBuilder.append(outcome.log);
+                    if (outcome.item != null) {
+                        resultList.add(outcome.item);
+                    }
+                    crossProjectCommands.addAll(outcome.commands);
+                    if (outcome.sameProject) {
+                        counts[0]++;
+                    }
+                    if (outcome.crossProject) {
+                        counts[1]++;
+                    }
+                });
+                int sameProjectCount = counts[0];
+                int crossProjectCount = counts[1];
 
-                            resultItem.status = CherryPickStatus.TO_RUN_CMD;
-                            resultItem.generatedCommands = new ArrayList<>(commands);
-                        }
+                // 删除拉取上游提交时创建的临时引用
+                upstreamFetches.cleanUp();
 
-                        publish("\n" + "-".repeat(60));
-                        logBuilder.append("\n").append("-".repeat(60)).append("\n");
-
-                        resultList.add(resultItem);
-
-                    } catch (Exception e) {
-                        publish("\n  ✗✗✗ ERROR processing URL ✗✗✗");
-                        publish("  Error message: " + e.getMessage());
-                        publish("  Error type: " + e.getClass().getSimpleName());
-                        logBuilder.append("\n  ✗✗✗ ERROR processing URL ✗✗✗\n");
-                        logBuilder.append("  Error: ").append(e.getMessage()).append("\n");
-                        logBuilder.append("  Type: ").append(e.getClass().getSimpleName()).append("\n");
-                        resultItem.logs.add("  ✗✗✗ ERROR processing URL ✗✗✗");
-                        resultItem.logs.add("  Error: " + e.getMessage());
-                        resultItem.logs.add("  Type: " + e.getClass().getSimpleName());
-
-                        java.io.StringWriter sw = new java.io.StringWriter();
-                        java.io.PrintWriter pw = new java.io.PrintWriter(sw);
-                        e.printStackTrace(pw);
-                        publish("  Stack trace: " + sw.toString());
-                        logBuilder.append("  Stack trace: ").append(sw.toString()).append("\n");
-                        resultItem.logs.add("  Stack trace: " + sw.toString());
-
-                        resultItem.status = CherryPickStatus.FAIL;
-                        resultItem.errorMessage = e.getMessage();
-                        resultList.add(resultItem);
-                    }
+                // 全部提交都成功（或中断的提交已报告给用户）时批次结束，否则保留为未完成，可以用 Resume 重试失败的提交
+                boolean allDone = journal.getResolvedCount() == journal.getSteps().size();
+                if (allDone) {
+                    journal.close();
                 }
 
                 // 输出跨项目命令汇总
                 if (!crossProjectCommands.isEmpty()) {
                     publish("\n\n" + "=".repeat(60));
-                    publish("CROSS-PROJECT COMMANDS SUMMARY");
+                    publish("CROSS-PROJECT COMMANDS SUMMARY (upstream fetch failed, run manually)");
                     publish("=".repeat(60));
                     publish("Total cross-project commands: " + crossProjectCommands.size());
                     publish("\nFull command list:");
                     logBuilder.append("\n\n").append("=".repeat(60)).append("\n");
-                    logBuilder.append("CROSS-PROJECT COMMANDS SUMMARY\n");
+                    logBuilder.append("CROSS-PROJECT COMMANDS SUMMARY (upstream fetch failed, run manually)\n");
                     logBuilder.append("=".repeat(60)).append("\n");
                     logBuilder.append("Total cross-project commands: ").append(crossProjectCommands.size()).append("\n");
                     logBuilder.append("\nFull command list:\n");
@@ -553,8 +470,11 @@ public class BatchCherryPickDialog extends JDialog {
                 publish("=".repeat(60));
                 publish("Total URLs provided: " + urls.length);
                 publish("Same-project cherry-picks executed: " + sameProjectCount);
-                publish("Cross-project commands generated: " + crossProjectCount);
+                publish("Cross-project cherry-picks processed: " + crossProjectCount);
                 publish("Total operations: " + (sameProjectCount + crossProjectCount));
+                if (!allDone) {
+                    publish("Use Resume to retry the commits that did not complete.");
+                }
                 publish("=".repeat(60));
                 publish("\nProcess completed at: " + new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new java.util.Date()));
 
@@ -563,7 +483,7 @@ public class BatchCherryPickDialog extends JDialog {
                 logBuilder.append("=".repeat(60)).append("\n");
                 logBuilder.append("Total URLs provided: ").append(urls.length).append("\n");
                 logBuilder.append("Same-project cherry-picks executed: ").append(sameProjectCount).append("\n");
-                logBuilder.append("Cross-project commands generated: ").append(crossProjectCount).append("\n");
+                logBuilder.append("Cross-project cherry-picks processed: ").append(crossProjectCount).append("\n");
                 logBuilder.append("Total operations: ").append(sameProjectCount + crossProjectCount).append("\n");
                 logBuilder.append("=".repeat(60)).append("\n");
                 logBuilder.append("\nProcess completed at: ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date())).append("\n");
@@ -600,6 +520,501 @@ public class BatchCherryPickDialog extends JDialog {
         worker.execute();
     }
 
+    /**
+     * Cherry-pick 预演：各项目并行在内存中合并，预测每个提交是否冲突，不修改任何仓库
+     * 完成后可以选择只 cherry-pick 能干净应用的提交
+     */
+    private void dryRunCherryPick() {
+        String urlsText = commitUrlsTextArea.getText().trim();
+        String targetBranch = branchNameTextField.getText().trim();
+        if (urlsText.isEmpty() || targetBranch.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                    "Please enter commit URLs and the target branch name.",
+                    "Input Required",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        outputTextArea.setText("");
+        appendLog("=== Cherry-Pick Dry Run ===\n");
+        appendLog("Target Branch: " + targetBranch + "\n");
+        appendLog("No repository, index or working tree will be modified.\n\n");
+
+        SwingWorker<Void, String> worker = new SwingWorker<Void, String>() {
+            private final Map<Integer, String> cleanUrls = new TreeMap<>(); // 行号 -> URL，按输入顺序
+            private int skippedCount = 0;
+
+            @Override
+            protected Void doInBackground() throws Exception {
+                String[] urls = urlsText.split("\n");
+
+                // 按项目分组，保持 URL 的顺序（同一项目内按顺序叠加预演）
+                Map<String, List<String[]>> byProject = new LinkedHashMap<>(); // 项目目录 -> [url, commitId, 行号]
+                for (int i = 0; i < urls.length; i++) {
+                    String url = urls[i].trim();
+                    if (url.isEmpty()) {
+                        continue;
+                    }
+                    CommitInfo commitInfo = parseCommitUrl(url);
+                    File projectDir = commitInfo != null ? findProjectDirectory(commitInfo.projectCode) : null;
+                    if (projectDir == null) {
+                        publish("✗ Line " + (i + 1) + ": " + (commitInfo == null
+                                ? "invalid URL format" : "project directory not found") + " - " + url);
+                        skippedCount++;
+                        continue;
+                    }
+                    byProject.computeIfAbsent(projectDir.getAbsolutePath(), k -> new ArrayList<>())
+                            .add(new String[] {url, commitInfo.commitId, String.valueOf(i)});
+                }
+
+                long startTime = System.currentTimeMillis();
+                int[] counts = new int[4]; // 无冲突, 冲突, 无变化, 失败
+                MultiRepoExecutor.run(new ArrayList<>(byProject.keySet()), null, (projectPath, token) -> {
+                    List<String> commitIds = new ArrayList<>();
+                    for (String[] entry : byProject.get(projectPath)) {
+                        commitIds.add(entry[1]);
+                    }
+                    return CherryPickDryRun.simulate(new File(projectPath), targetBranch, commitIds);
+                }, result -> {
+                    List<String[]> entries = byProject.get(result.getItem());
+                    publish("\nProject " + new File(result.getItem()).getName() + " (" + entries.size() + " commit(s))");
+                    if (!result.isSuccess()) {
+                        publish("  ✗ Dry run failed: " + result.getError().getMessage());
+                        counts[3] += entries.size();
+                        skippedCount += entries.size();
+                        return;
+                    }
+                    List<CherryPickDryRun.Outcome> outcomes = result.getValue();
+                    for (int i = 0; i < outcomes.size(); i++) {
+                        CherryPickDryRun.Outcome outcome = outcomes.get(i);
+                        String shortId = outcome.getCommitId().length() > 8
+                                ? outcome.getCommitId().substring(0, 8) : outcome.getCommitId();
+                        switch (outcome.getPrediction()) {
+                            case CLEAN:
+                                publish("  ✓ " + shortId + " applies cleanly");
+                                cleanUrls.put(Integer.valueOf(entries.get(i)[2]), entries.get(i)[0]);
+                                counts[0]++;
+                                break;
+                            case CONFLICTS:
+                                publish("  ✗ " + shortId + " would conflict:");
+                                for (String file : outcome.getConflictingFiles()) {
+                                    publish("      - " + file);
+                                }
+                                counts[1]++;
+                                skippedCount++;
+                                break;
+                            case EMPTY:
+                                publish("  - " + shortId + " already applied (no changes)");
+                                counts[2]++;
+                                skippedCount++;
+                                break;
+                            default:
+                                publish("  ✗ " + shortId + ": " + outcome.getMessage());
+                                counts[3]++;
+                                skippedCount++;
+                                break;
+                        }
+                    }
+                });
+
+                publish("\n" + "=".repeat(50));
+                publish("DRY RUN SUMMARY");
+                publish("=".repeat(50));
+                publish("Clean: " + counts[0] + ", Conflicts: " + counts[1] + ", Already applied: " + counts[2]
+                        + ", Failed: " + counts[3]);
+                publish("Completed in " + (System.currentTimeMillis() - startTime) + " ms");
+                return null;
+            }
+
+            @Override
+            protected void process(List<String> chunks) {
+                for (String message : chunks) {
+                    appendLog(message + "\n");
+                }
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    System.err.println("Error running cherry-pick dry run: " + cause.getMessage());
+                    appendLog("\nERROR: Dry run failed: " + cause.getMessage() + "\n");
+                    return;
+                }
+                appendLog("\n=== Dry Run Completed ===\n");
+                if (cleanUrls.isEmpty()) {
+                    return;
+                }
+                String message = skippedCount == 0
+                        ? "All " + cleanUrls.size() + " commits apply cleanly.\nCherry-pick them now?"
+                        : cleanUrls.size() + " commit(s) apply cleanly, " + skippedCount + " would be skipped.\n"
+                                + "Cherry-pick only the clean commits now?";
+                int choice = JOptionPane.showConfirmDialog(BatchCherryPickDialog.this, message,
+                        "Dry Run Result", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+                if (choice == JOptionPane.YES_OPTION) {
+                    executeCherryPick(String.join("\n", cleanUrls.values()));
+                }
+            }
+        };
+
+        worker.execute();
+    }
+
+    /**
+     * 处理一行 URL 并写入预写日志
+     * 继续执行时跳过已经成功的提交；上次开始后没有完成记录的提交可能已经应用，标记为中断，
+     * 之后的每次继续执行都不会重试，只提示用户检查
+     */
+    private UrlOutcome processJournaledUrl(int i, int total, String url, String targetBranch,
+                                           UpstreamFetches upstreamFetches, BatchJournal journal,
+                                           String stepKey, boolean resuming) {
+        BatchJournal.Step step = stepKey != null ? journal.getStep(stepKey) : null;
+        if (step == null) {
+            return processCherryPickUrl(i, total, url, targetBranch, upstreamFetches);
+        }
+        if (resuming && step.getState() == BatchJournal.StepState.DONE) {
+            UrlOutcome out = new UrlOutcome();
+            String message = "Skipping URL " + (i + 1) + " of " + total + ", already applied in a previous run"
+                    + (step.getCommitId() != null ? " (" + step.getCommitId() + ")" : "") + ": " + url;
+            out.publish(message);
+            out.log.append(message).append("\n");
+            return out;
+        }
+        if (resuming && (step.getState() == BatchJournal.StepState.STARTED
+                || step.getState() == BatchJournal.StepState.INTERRUPTED)) {
+            UrlOutcome out = new UrlOutcome();
+            String message = "⚠ URL " + (i + 1) + " of " + total + " was interrupted in a previous run and is not"
+                    + " retried automatically, check the repository state: " + url;
+            out.publish(message);
+            out.log.append(message).append("\n");
+            if (step.getState() == BatchJournal.StepState.STARTED) {
+                journal.interrupted(stepKey);
+            }
+            return out;
+        }
+
+        journal.started(stepKey);
+        UrlOutcome out = processCherryPickUrl(i, total, url, targetBranch, upstreamFetches);
+        CherryPickResultItem item = out.item;
+        boolean success = item != null && item.status == CherryPickStatus.SUCCESS;
+        String commitId = success && item.errorMessage == null && item.projectPath != null
+                ? GitOperations.getHeadCommitId(new File(item.projectPath)) : null;
+        journal.finished(stepKey, success, commitId, item != null ? item.errorMessage : null);
+        return out;
+    }
+
+    /**
+     * 输出 cherry-pick 的执行日志并设置结果状态
+     */
+    private void reportCherryPickResult(UrlOutcome out, CherryPickResultItem resultItem, CherryPickResult cpResult) {
+        // 输出详细日志
+        out.publish("\n  Cherry-Pick Execution Log:");
+        out.log.append("  Cherry-Pick Execution Log:\n");
+        resultItem.logs.add("  Cherry-Pick Execution Log:");
+        for (String log : cpResult.logs) {
+            out.publish("  " + log);
+            out.log.append("  ").append(log).append("\n");
+            resultItem.logs.add("  " + log);
+        }
+
+        if (cpResult.success) {
+            if (cpResult.hasConflicts) {
+                out.publish("\n  [SUCCESS] Cherry-pick completed with conflicts");
+                out.log.append("\n  [SUCCESS] Cherry-pick completed with conflicts\n");
+                resultItem.logs.add("  [SUCCESS] Cherry-pick completed with conflicts");
+
+                resultItem.status = CherryPickStatus.SUCCESS;
+                resultItem.errorMessage = "Warning: conflicted files exist";
+            } else {
+                out.publish("\n  [SUCCESS] Cherry-pick completed successfully");
+                out.log.append("\n  [SUCCESS] Cherry-pick completed successfully\n");
+                resultItem.logs.add("  [SUCCESS] Cherry-pick completed successfully");
+
+                resultItem.status = CherryPickStatus.SUCCESS;
+            }
+        } else {
+            out.publish("\n  [FAILED] Cherry-pick execution failed");
+            out.log.append("\n  [FAILED] Cherry-pick execution failed\n");
+            resultItem.logs.add("  [FAILED] Cherry-pick execution failed");
+
+            resultItem.status = CherryPickStatus.FAIL;
+            resultItem.errorMessage = "Cherry-pick execution failed";
+        }
+    }
+
+    /**
+     * 上游仓库的 URL（commit URL 中的项目地址加 .git）
+     */
+    private String toUpstreamUrl(String baseUrl) {
+        return baseUrl + ".git";
+    }
+
+    /**
+     * 跨项目的 URL 登记到上游拉取计划中（同一项目、同一上游的提交之后一次拉取）
+     */
+    private void planUpstreamFetch(String url, UpstreamFetches upstreamFetches) {
+        CommitInfo commitInfo = parseCommitUrl(url);
+        File projectDir = commitInfo != null ? findProjectDirectory(commitInfo.projectCode) : null;
+        if (projectDir != null && !isSameProject(commitInfo.baseUrl, getRemoteUrl(projectDir))) {
+            upstreamFetches.plan(projectDir, toUpstreamUrl(commitInfo.baseUrl), commitInfo.commitId);
+        }
+    }
+
+    /**
+     * URL 所属的执行分区（目标项目目录），URL 无效或找不到项目时返回 null
+     */
+    private String partitionOf(String url) {
+        if (url.isEmpty()) {
+            return null;
+        }
+        CommitInfo commitInfo = parseCommitUrl(url);
+        File projectDir = commitInfo != null ? findProjectDirectory(commitInfo.projectCode) : null;
+        return projectDir != null ? projectDir.getAbsolutePath() : null;
+    }
+
+    /**
+     * 处理一行 commit URL（解析、查找项目、同项目 cherry-pick 或生成跨项目命令）
+     * 在线程池中执行，输出先缓存在返回值中，由调用线程按输入顺序输出
+     */
+    private UrlOutcome processCherryPickUrl(int i, int total, String url, String targetBranch,
+                                            UpstreamFetches upstreamFetches) {
+        UrlOutcome out = new UrlOutcome();
+        if (url.isEmpty()) {
+            out.publish("Skipping empty line " + (i + 1));
+            out.log.append("Skipping empty line ").append(i + 1).append("\n");
+            return out;
+        }
+
+        out.publish("\n" + "=".repeat(60));
+        out.publish("Processing URL " + (i + 1) + " of " + total);
+        out.publish("Original URL: " + url);
+        out.publish("=".repeat(60));
+
+        out.log.append("\n").append("=".repeat(60)).append("\n");
+        out.log.append("Processing URL ").append(i + 1).append(" of ").append(total).append("\n");
+        out.log.append("Original URL: ").append(url).append("\n");
+        out.log.append("=".repeat(60)).append("\n");
+
+        // 创建结果项并初始化日志列表
+        CherryPickResultItem resultItem = new CherryPickResultItem();
+        resultItem.index = i + 1;
+        resultItem.url = url;
+        resultItem.targetBranch = targetBranch;
+        resultItem.logs = new ArrayList<>();
+
+        try {
+            // 1. 解析 commit URL
+            out.publish("\n[Step 1] Parsing commit URL...");
+            out.log.append("\n[Step 1] Parsing commit URL...\n");
+            resultItem.logs.add("[Step 1] Parsing commit URL...");
+
+            CommitInfo commitInfo = parseCommitUrl(url);
+            if (commitInfo == null) {
+                out.publish("  ✗ Failed: Invalid URL format");
+                out.publish("  Expected format: https://gitlab.insuremo.com/project/path/-/commit/abc123");
+                out.log.append("  ✗ Failed: Invalid URL format\n");
+                resultItem.logs.add("  ✗ Failed: Invalid URL format");
+                resultItem.logs.add("  Expected formats:");
+                resultItem.logs.add("    - GitLab: https://gitlab.insuremo.com/project/path/-/commit/abc123");
+                resultItem.logs.add("    - GitHub: https://github.com/user/project/commit/abc123");
+
+                resultItem.status = CherryPickStatus.FAIL;
+                resultItem.errorMessage = "Invalid URL format";
+                out.item = resultItem;
+                return out;
+            }
+
+            out.publish("  ✓ URL parsing successful");
+            out.publish("  - Extracted Project Code: " + commitInfo.projectCode);
+            out.publish("  - Extracted Commit ID: " + commitInfo.commitId);
+            out.publish("  - Extracted Base URL: " + commitInfo.baseUrl);
+            out.publish("  - Full URL: " + commitInfo.fullUrl);
+            out.log.append("  ✓ URL parsing successful\n");
+            out.log.append("  - Project Code: ").append(commitInfo.projectCode).append("\n");
+            out.log.append("  - Commit ID: ").append(commitInfo.commitId).append("\n");
+            resultItem.logs.add("  ✓ URL parsing successful");
+            resultItem.logs.add("  - Project Code: " + commitInfo.projectCode);
+            resultItem.logs.add("  - Commit ID: " + commitInfo.commitId);
+            resultItem.logs.add("  - Base URL: " + commitInfo.baseUrl);
+
+            resultItem.projectCode = commitInfo.projectCode;
+            resultItem.commitId = commitInfo.commitId;
+
+            // 2. 查找匹配的项目目录
+            out.publish("\n[Step 2] Searching for project directory...");
+            out.publish("  Looking for directory: " + commitInfo.projectCode);
+            out.publish("  In parent directory: " + currentDirectory.getAbsolutePath());
+            out.log.append("\n[Step 2] Searching for project directory...\n");
+            out.log.append("  Looking for: ").append(commitInfo.projectCode).append("\n");
+            resultItem.logs.add("[Step 2] Searching for project directory...");
+            resultItem.logs.add("  Looking for: " + commitInfo.projectCode);
+
+            File projectDir = findProjectDirectory(commitInfo.projectCode);
+            if (projectDir == null) {
+                out.publish("  ✗ Project directory NOT found");
+                out.publish("  Available directories in current path:");
+                out.log.append("  ✗ Project directory NOT found\n");
+                resultItem.logs.add("  ✗ Project directory NOT found");
+
+                File[] children = currentDirectory.listFiles();
+                if (children != null) {
+                    for (File child : children) {
+                        if (child.isDirectory()) {
+                            out.publish("    - " + child.getName());
+                            out.log.append("    - ").append(child.getName()).append("\n");
+                            resultItem.logs.add("    - " + child.getName());
+                        }
+                    }
+                }
+
+                resultItem.status = CherryPickStatus.FAIL;
+                resultItem.errorMessage = "Project directory not found";
+                out.item = resultItem;
+                return out;
+            }
+
+            out.publish("  ✓ Project directory found");
+            out.publish("  - Absolute Path: " + projectDir.getAbsolutePath());
+            out.publish("  - Is Git Repository: " + GitInfoExtractor.isGitRepository(projectDir));
+            out.log.append("  ✓ Project directory found\n");
+            out.log.append("  - Path: ").append(projectDir.getAbsolutePath()).append("\n");
+            resultItem.logs.add("  ✓ Project directory found");
+            resultItem.logs.add("  - Path: " + projectDir.getAbsolutePath());
+
+            resultItem.projectPath = projectDir.getAbsolutePath();
+
+            // 3. 获取当前项目的 git remote URL
+            out.publish("\n[Step 3] Retrieving current project Git configuration...");
+            out.log.append("\n[Step 3] Retrieving current project Git configuration...\n");
+            resultItem.logs.add("[Step 3] Retrieving current project Git configuration...");
+
+            String currentRemoteUrl = getRemoteUrl(projectDir);
+            out.publish("  Current project remote URL: " + currentRemoteUrl);
+            out.log.append("  Current remote URL: ").append(currentRemoteUrl).append("\n");
+            resultItem.logs.add("  Current remote URL: " + currentRemoteUrl);
+
+            // 4. 判断是否是同一项目
+            out.publish("\n[Step 4] Comparing projects...");
+            out.publish("  Commit URL Base: " + commitInfo.baseUrl);
+            out.publish("  Local Project URL: " + currentRemoteUrl);
+            out.log.append("\n[Step 4] Comparing projects...\n");
+            out.log.append("  Commit URL Base: ").append(commitInfo.baseUrl).append("\n");
+            out.log.append("  Local Project URL: ").append(currentRemoteUrl).append("\n");
+            resultItem.logs.add("[Step 4] Comparing projects...");
+            resultItem.logs.add("  Commit URL Base: " + commitInfo.baseUrl);
+            resultItem.logs.add("  Local Project URL: " + currentRemoteUrl);
+
+            boolean isSameProject = isSameProject(commitInfo.baseUrl, currentRemoteUrl);
+            out.publish("  Comparison result: " + (isSameProject ? "SAME PROJECT" : "DIFFERENT PROJECT"));
+            out.log.append("  Result: ").append(isSameProject ? "SAME PROJECT" : "DIFFERENT PROJECT").append("\n");
+            resultItem.logs.add("  Result: " + (isSameProject ? "SAME PROJECT" : "DIFFERENT PROJECT"));
+
+            resultItem.isSameProject = isSameProject;
+
+            if (isSameProject) {
+                // 同项目 cherry-pick
+                out.publish("\n[Step 5] Executing SAME-PROJECT cherry-pick...");
+                out.publish("  Strategy: Direct cherry-pick within same repository");
+                out.log.append("\n[Step 5] Executing SAME-PROJECT cherry-pick...\n");
+                resultItem.logs.add("[Step 5] Executing SAME-PROJECT cherry-pick...");
+                resultItem.logs.add("  Strategy: Direct cherry-pick within same repository");
+                out.sameProject = true;
+
+                CherryPickResult cpResult = executeSameProjectCherryPick(projectDir, commitInfo.commitId, targetBranch);
+                reportCherryPickResult(out, resultItem, cpResult);
+            } else {
+                // 跨项目 cherry-pick：从上游只拉取需要的提交到临时引用，再在本地 cherry-pick
+                String upstreamUrl = toUpstreamUrl(commitInfo.baseUrl);
+                out.publish("\n[Step 5] Executing CROSS-PROJECT cherry-pick...");
+                out.publish("  Strategy: Fetch the commit from upstream into a temporary ref, then cherry-pick");
+                out.publish("  Upstream: " + upstreamUrl);
+                out.log.append("\n[Step 5] Executing CROSS-PROJECT cherry-pick...\n");
+                out.log.append("  Strategy: Fetch commit from upstream, then cherry-pick\n");
+                out.log.append("  Upstream: ").append(upstreamUrl).append("\n");
+                resultItem.logs.add("[Step 5] Executing CROSS-PROJECT cherry-pick...");
+                resultItem.logs.add("  Strategy: Fetch commit from upstream, then cherry-pick");
+                resultItem.logs.add("  Upstream: " + upstreamUrl);
+                out.crossProject = true;
+
+                if (upstreamFetches.ensureFetched(projectDir, upstreamUrl)) {
+                    out.publish("  [OK] Commit fetched from upstream");
+                    out.log.append("  [OK] Commit fetched from upstream\n");
+                    resultItem.logs.add("  [OK] Commit fetched from upstream");
+
+                    CherryPickResult cpResult = executeSameProjectCherryPick(projectDir, commitInfo.commitId, targetBranch);
+                    reportCherryPickResult(out, resultItem, cpResult);
+                } else {
+                    // 拉取失败时生成命令，由用户手动执行
+                    out.publish("  [FAILED] Could not fetch the commit from upstream, generating CMD commands instead");
+                    out.log.append("  [FAILED] Could not fetch the commit from upstream, generating CMD commands instead\n");
+                    resultItem.logs.add("  [FAILED] Could not fetch the commit from upstream, generating CMD commands instead");
+
+                    List<String> commands = generateCrossProjectCommands(
+                            projectDir.getAbsolutePath(),
+                            commitInfo.baseUrl,
+                            commitInfo.commitId,
+                            targetBranch
+                    );
+
+                    out.publish("\n  Generated " + commands.size() + " CMD commands:");
+                    out.log.append("  Generated ").append(commands.size()).append(" CMD commands:\n");
+                    resultItem.logs.add("  Generated " + commands.size() + " CMD commands:");
+                    for (int cmdIdx = 0; cmdIdx < commands.size(); cmdIdx++) {
+                        String cmd = commands.get(cmdIdx);
+                        if (cmd.isEmpty()) {
+                            out.publish("    [empty line]");
+                            out.log.append("    [empty line]\n");
+                            resultItem.logs.add("    [empty line]");
+                        } else {
+                            out.publish("    " + (cmdIdx + 1) + ". " + cmd);
+                            out.log.append("    ").append(cmdIdx + 1).append(". ").append(cmd).append("\n");
+                            resultItem.logs.add("    " + (cmdIdx + 1) + ". " + cmd);
+                        }
+                    }
+
+                    out.commands.addAll(commands);
+                    out.publish("\n  [OK] Commands generated and added to batch execution list");
+                    out.log.append("\n  [OK] Commands generated and added to batch execution list\n");
+                    resultItem.logs.add("  [OK] Commands generated and added to batch execution list");
+
+                    resultItem.status = CherryPickStatus.TO_RUN_CMD;
+                    resultItem.generatedCommands = new ArrayList<>(commands);
+                    resultItem.errorMessage = "Fetch from upstream failed";
+                }
+            }
+
+            out.publish("\n" + "-".repeat(60));
+            out.log.append("\n").append("-".repeat(60)).append("\n");
+
+            out.item = resultItem;
+
+        } catch (Exception e) {
+            out.publish("\n  ✗✗✗ ERROR processing URL ✗✗✗");
+            out.publish("  Error message: " + e.getMessage());
+            out.publish("  Error type: " + e.getClass().getSimpleName());
+            out.log.append("\n  ✗✗✗ ERROR processing URL ✗✗✗\n");
+            out.log.append("  Error: ").append(e.getMessage()).append("\n");
+            out.log.append("  Type: ").append(e.getClass().getSimpleName()).append("\n");
+            resultItem.logs.add("  ✗✗✗ ERROR processing URL ✗✗✗");
+            resultItem.logs.add("  Error: " + e.getMessage());
+            resultItem.logs.add("  Type: " + e.getClass().getSimpleName());
+
+            java.io.StringWriter sw = new java.io.StringWriter();
+            java.io.PrintWriter pw = new java.io.PrintWriter(sw);
+            e.printStackTrace(pw);
+            out.publish("  Stack trace: " + sw.toString());
+            out.log.append("  Stack trace: ").append(sw.toString()).append("\n");
+            resultItem.logs.add("  Stack trace: " + sw.toString());
+
+            resultItem.status = CherryPickStatus.FAIL;
+            resultItem.errorMessage = e.getMessage();
+            out.item = resultItem;
+        }
+        return out;
+    }
+
     /**
      * 按时间排序 commit URLs
      */
@@ -628,56 +1043,53 @@ public class BatchCherryPickDialog extends JDialog {
                 publish("Found " + urls.length + " URLs to process");
                 publish("=".repeat(50));
 
+                // 先解析全部 URL 并按项目分组，每个项目只打开一次仓库
+                Map<String, ProjectCommits> projects = new LinkedHashMap<>();
                 for (int i = 0; i < urls.length; i++) {
                     String url = urls[i].trim();
                     if (url.isEmpty()) {
                         publish("Skipping empty line " + (i + 1));
                         continue;
                     }
-
-                    publish("\nProcessing URL " + (i + 1) + ": " + url);
-
-                    try {
-                        // 解析 commit URL
-                        CommitInfo commitInfo = parseCommitUrl(url);
-                        if (commitInfo == null) {
-                            publish("  ✗ Invalid URL format, skipping");
-                            continue;
-                        }
-
-                        publish("  ✓ Parsed - Project: " + commitInfo.projectCode + ", Commit: " + commitInfo.commitId);
-
-                        // 查找项目目录
-                        File projectDir = findProjectDirectory(commitInfo.projectCode);
-                        if (projectDir == null) {
-                            publish("  ✗ Project directory not found, skipping");
-                            continue;
-                        }
-
-                        publish("  ✓ Found project directory: " + projectDir.getName());
-
-                        // 获取 commit 信息
-                        CommitTimeInfo timeInfo = getCommitTimeInfo(projectDir, commitInfo.commitId, url);
-                        if (timeInfo != null) {
-                            commitTimeInfos.add(timeInfo);
-                            publish("  ✓ Commit time: " + timeInfo.timeString + ", Author: " + timeInfo.author);
-                        } else {
-                            publish("  ✗ Failed to get commit information");
-                        }
-
-                    } catch (Exception e) {
-                        publish("  ✗ Error processing URL: " + e.getMessage());
+                    CommitInfo commitInfo = parseCommitUrl(url);
+                    if (commitInfo == null) {
+                        publish("\nProcessing URL " + (i + 1) + ": " + url);
+                        publish("  ✗ Invalid URL format, skipping");
+                        continue;
                     }
+                    CommitTimeInfo info = new CommitTimeInfo();
+                    info.line = i;
+                    info.url = url;
+                    info.commitId = commitInfo.commitId;
+                    projects.computeIfAbsent(commitInfo.projectCode, ProjectCommits::new).commits.add(info);
                 }
+                publish("Grouped into " + projects.size() + " projects");
+
+                // 各项目并行读取（每个项目一个 RevWalk），项目内按拓扑顺序排列，日志按项目出现的顺序输出
+                List<List<CommitTimeInfo>> orderedByProject = new ArrayList<>();
+                MultiRepoExecutor.run(new ArrayList<>(projects.values()), null, (project, token) -> {
+                    resolveProjectCommits(project);
+                    return project;
+                }, result -> {
+                    ProjectCommits project = result.getItem();
+                    for (String message : project.logs) {
+                        publish(message);
+                    }
+                    if (result.isSuccess()) {
+                        orderedByProject.add(project.ordered);
+                    } else {
+                        publish("  ✗ Error processing project: " + result.getError().getMessage());
+                    }
+                });
 
-                // 按时间排序 (正序 - 从早到晚)
-                commitTimeInfos.sort(Comparator.comparing(info -> info.timestamp));
+                // 跨项目按时间排序 (正序 - 从早到晚)，同一项目内保持拓扑顺序
+                commitTimeInfos = mergeByTime(orderedByProject);
 
                 publish("\n" + "=".repeat(50));
                 publish("SORTING RESULTS");
                 publish("=".repeat(50));
                 publish("Successfully processed " + commitTimeInfos.size() + " commits");
-                publish("Sorted by commit time (ascending order):");
+                publish("Sorted by commit time (ascending order, parents before children within a project):");
                 publish("");
 
                 StringBuilder sortedUrls = new StringBuilder();
@@ -721,48 +1133,126 @@ public class BatchCherryPickDialog extends JDialog {
     }
 
     /**
-     * 获取 commit 的时间信息
+     * 读取一个项目中所有 URL 的提交：只打开一次仓库，用同一个 RevWalk 解析全部提交，
+     * 结果按拓扑顺序（父提交在前）放入 project.ordered，日志放入 project.logs
      */
-    private CommitTimeInfo getCommitTimeInfo(File projectDir, String commitId, String url) {
-        try {
-            if (!GitInfoExtractor.isGitRepository(projectDir)) {
-                return null;
-            }
+    private void resolveProjectCommits(ProjectCommits project) {
+        List<String> logs = project.logs;
+        logs.add("\nProject " + project.projectCode + ": " + project.commits.size() + " commit(s)");
 
-            org.eclipse.jgit.storage.file.FileRepositoryBuilder builder =
-                new org.eclipse.jgit.storage.file.FileRepositoryBuilder();
-            org.eclipse.jgit.lib.Repository repository = builder
-                    .setGitDir(new java.io.File(projectDir, ".git"))
-                    .readEnvironment()
-                    .findGitDir()
-                    .build();
-
-            try (org.eclipse.jgit.revwalk.RevWalk revWalk = new org.eclipse.jgit.revwalk.RevWalk(repository)) {
-                org.eclipse.jgit.lib.ObjectId objectId = repository.resolve(commitId);
-                if (objectId == null) {
-                    repository.close();
-                    return null;
+        File projectDir = findProjectDirectory(project.projectCode);
+        if (projectDir == null || !GitInfoExtractor.isGitRepository(projectDir)) {
+            logs.add("  ✗ Project directory not found, skipping");
+            return;
+        }
+        logs.add("  ✓ Found project directory: " + projectDir.getName());
+
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(projectDir);
+             RevWalk revWalk = new RevWalk(handle.getRepository())) {
+            revWalk.setRetainBody(false);
+            Map<RevCommit, List<CommitTimeInfo>> byCommit = new LinkedHashMap<>();
+            for (CommitTimeInfo info : project.commits) {
+                RevCommit commit = null;
+                try {
+                    ObjectId objectId = handle.getRepository().resolve(info.commitId);
+                    if (objectId != null) {
+                        commit = revWalk.parseCommit(objectId);
+                    }
+                } catch (IOException | RevisionSyntaxException e) {
+                    // 按找不到提交处理
                 }
+                if (commit == null) {
+                    logs.add("  ✗ Line " + (info.line + 1) + ": failed to get commit information for " + info.commitId);
+                    continue;
+                }
+                info.timestamp = commit.getCommitTime() * 1000L; // Convert to milliseconds
+                info.timeString = format.format(new Date(info.timestamp));
+                info.author = commit.getAuthorIdent().getName();
+                byCommit.computeIfAbsent(commit, c -> new ArrayList<>()).add(info);
+                logs.add("  ✓ Line " + (info.line + 1) + ": " + info.commitId
+                        + ", Commit time: " + info.timeString + ", Author: " + info.author);
+            }
 
-                org.eclipse.jgit.revwalk.RevCommit commit = revWalk.parseCommit(objectId);
-                
-                CommitTimeInfo timeInfo = new CommitTimeInfo();
-                timeInfo.url = url;
-                timeInfo.commitId = commitId;
-                timeInfo.timestamp = commit.getCommitTime() * 1000L; // Convert to milliseconds
-                timeInfo.timeString = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(timeInfo.timestamp));
-                timeInfo.author = commit.getAuthorIdent().getName();
-                
-                repository.close();
-                return timeInfo;
-                
-            } catch (Exception e) {
-                repository.close();
-                return null;
+            for (RevCommit commit : topologicalOrder(revWalk, byCommit.keySet())) {
+                project.ordered.addAll(byCommit.get(commit));
             }
+        } catch (IOException e) {
+            logs.add("  ✗ Error reading repository: " + e.getMessage());
+            project.ordered.clear();
+        }
+    }
 
-        } catch (Exception e) {
-            return null;
+    /**
+     * 按拓扑顺序（祖先在前）排列同一仓库中的提交，没有祖先关系的提交按时间从早到晚
+     * 先逐对求出全部提交的共同祖先，再从这些提交遍历到共同祖先为止，不遍历更早的历史
+     */
+    private List<RevCommit> topologicalOrder(RevWalk revWalk, Collection<RevCommit> commits) throws IOException {
+        if (commits.size() < 2) {
+            return new ArrayList<>(commits);
+        }
+
+        RevCommit base = null;
+        for (RevCommit commit : commits) {
+            if (base == null) {
+                base = commit;
+                continue;
+            }
+            revWalk.reset();
+            revWalk.setRevFilter(RevFilter.MERGE_BASE);
+            revWalk.markStart(base);
+            revWalk.markStart(commit);
+            base = revWalk.next();
+            if (base == null) {
+                break; // 没有共同祖先（不相关的历史），遍历全部历史
+            }
+        }
+
+        revWalk.reset();
+        revWalk.setRevFilter(RevFilter.ALL);
+        revWalk.sort(RevSort.TOPO);
+        revWalk.sort(RevSort.REVERSE, true);
+        for (RevCommit commit : commits) {
+            revWalk.markStart(commit);
+        }
+        if (base != null) {
+            for (RevCommit parent : base.getParents()) {
+                revWalk.markUninteresting(revWalk.parseCommit(parent));
+            }
+        }
+
+        Set<RevCommit> remaining = new HashSet<>(commits);
+        List<RevCommit> ordered = new ArrayList<>(commits.size());
+        for (RevCommit commit : revWalk) {
+            if (remaining.remove(commit)) {
+                ordered.add(commit);
+                if (remaining.isEmpty()) {
+                    break;
+                }
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * 归并各项目已排好的列表：每次取各列表首项中时间最早的一个，项目内的顺序不变
+     */
+    private List<CommitTimeInfo> mergeByTime(List<List<CommitTimeInfo>> lists) {
+        List<CommitTimeInfo> merged = new ArrayList<>();
+        int[] positions = new int[lists.size()];
+        while (true) {
+            int earliest = -1;
+            for (int i = 0; i < lists.size(); i++) {
+                if (positions[i] < lists.get(i).size() && (earliest < 0
+                        || lists.get(i).get(positions[i]).timestamp
+                        < lists.get(earliest).get(positions[earliest]).timestamp)) {
+                    earliest = i;
+                }
+            }
+            if (earliest < 0) {
+                return merged;
+            }
+            merged.add(lists.get(earliest).get(positions[earliest]++));
         }
     }
 
@@ -873,16 +1363,11 @@ public class BatchCherryPickDialog extends JDialog {
                 return "Not a Git repository";
             }
 
-            org.eclipse.jgit.storage.file.FileRepositoryBuilder builder =
-                new org.eclipse.jgit.storage.file.FileRepositoryBuilder();
-            org.eclipse.jgit.lib.Repository repository = builder
-                    .setGitDir(new java.io.File(projectDir, ".git"))
-                    .readEnvironment()
-                    .findGitDir()
-                    .build();
-
-            String url = repository.getConfig().getString("remote", "origin", "url");
-            repository.close();
+            RepositorySummary summary = RepositorySummary.read(projectDir, RepositorySummary.Field.REMOTES);
+            if (summary == null) {
+                return "Error reading remote URL: unable to open repository";
+            }
+            String url = summary.getRemoteUrl("origin");
 
             if (url != null && url.endsWith(".git")) {
                 url = url.substring(0, url.length() - 4);
@@ -1176,10 +1661,84 @@ public class BatchCherryPickDialog extends JDialog {
      * Commit 时间信息封装类
      */
     private static class CommitTimeInfo {
+        int line; // 在输入中的行号（从 0 开始）
         String url;
         String commitId;
         long timestamp;
         String timeString;
         String author;
     }
+
+    /**
+     * 跨项目 cherry-pick 的上游拉取计划
+     * 执行前登记每个项目需要从每个上游拉取的提交，第一次需要时把同一项目、同一上游的全部提交一次拉取到临时引用，
+     * 之后的提交直接使用；全部完成后删除临时引用。同一项目的 URL 按顺序执行，同一个键不会被并发拉取。
+     */
+    private static class UpstreamFetches {
+        private static final String TEMP_REF_PREFIX = "refs/gitviewer/cherry-pick/";
+
+        private final Map<String, Set<String>> planned = new HashMap<>(); // 项目目录 + 上游 URL -> 提交
+        private final Map<String, Boolean> fetched = new java.util.concurrent.ConcurrentHashMap<>();
+        private final Set<File> fetchedProjects = java.util.concurrent.ConcurrentHashMap.newKeySet();
+
+        void plan(File projectDir, String upstreamUrl, String commitId) {
+            planned.computeIfAbsent(keyOf(projectDir, upstreamUrl), k -> new LinkedHashSet<>()).add(commitId);
+        }
+
+        /**
+         * 确保该上游登记的全部提交都已拉取到本地
+         */
+        boolean ensureFetched(File projectDir, String upstreamUrl) {
+            String key = keyOf(projectDir, upstreamUrl);
+            Boolean done = fetched.get(key);
+            if (done != null) {
+                return done;
+            }
+            Set<String> commitIds = planned.getOrDefault(key, Collections.emptySet());
+            fetchedProjects.add(projectDir);
+            boolean success = GitOperations.fetchCommits(projectDir, upstreamUrl, commitIds, TEMP_REF_PREFIX);
+            fetched.put(key, success);
+            return success;
+        }
+
+        void cleanUp() {
+            for (File projectDir : fetchedProjects) {
+                GitOperations.deleteRefs(projectDir, TEMP_REF_PREFIX);
+            }
+        }
+
+        private static String keyOf(File projectDir, String upstreamUrl) {
+            return projectDir.getAbsolutePath() + "\n" + upstreamUrl;
+        }
+    }
+
+    /**
+     * 一行 URL 的处理结果和缓存的输出
+     */
+    private static class UrlOutcome {
+        final List<String> published = new ArrayList<>();
+        final StringBuilder log = new StringBuilder();
+        final List<String> commands = new ArrayList<>();
+        CherryPickResultItem item;
+        boolean sameProject;
+        boolean crossProject;
+
+        void publish(String message) {
+            published.add(message);
+        }
+    }
+
+    /**
+     * 同一项目中的待排序提交，以及读取后的拓扑顺序和日志
+     */
+    private static class ProjectCommits {
+        final String projectCode;
+        final List<CommitTimeInfo> commits = new ArrayList<>();
+        final List<CommitTimeInfo> ordered = new ArrayList<>();
+        final List<String> logs = new ArrayList<>();
+
+        ProjectCommits(String projectCode) {
+            this.projectCode = projectCode;
+        }
+    }
 }
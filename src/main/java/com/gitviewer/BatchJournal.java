@@ -0,0 +1,421 @@
+package com.gitviewer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量操作（批量切换分支、批量 cherry-pick）的预写日志
+ * 保存在 ~/.git-viewer/journals 下，每个批次一个只追加的文本文件：开始前写入全部计划步骤，
+ * 每一步执行前写入开始记录，完成后写入结果和得到的提交ID，批次结束时写入结束记录。每条记录写入后立即刷到磁盘。
+ * 程序退出或崩溃时批次没有结束记录，之后可以继续执行，已成功完成的步骤会被跳过。
+ *
+ * 文件格式（每行一条记录，字段用制表符分隔）：
+ *   头部: GVBJ, VERSION, 类型, 范围（工作目录）, 参数（目标分支）, 创建时间
+ *   P 键 详情 | S 键 | F 键 OK/FAILED/INTERRUPTED 提交ID 消息 | E
+ * 文件末尾不完整的行（例如写入时崩溃）在加载时被截断。
+ */
+public class BatchJournal {
+
+    private static final String MAGIC = "GVBJ";
+    private static final int VERSION = 1;
+    private static final int MAX_CLOSED_JOURNALS = 20; // 每种类型保留的已结束批次数
+
+    private static final File JOURNAL_DIR = new File(System.getProperty("user.home"),
+            ".git-viewer" + File.separator + "journals");
+
+    /**
+     * 步骤的状态
+     */
+    public enum StepState {
+        /** 已计划，尚未开始 */
+        PLANNED,
+        /** 已开始，没有完成记录（执行中或被中断） */
+        STARTED,
+        /** 已成功完成 */
+        DONE,
+        /** 已完成但失败 */
+        FAILED,
+        /** 上次开始后被中断，结果未知，不自动重试，需要用户自行检查 */
+        INTERRUPTED
+    }
+
+    /**
+     * 批次中的一个步骤
+     */
+    public static class Step {
+        private String key;
+        private String detail;
+        private StepState state = StepState.PLANNED;
+        private String commitId;
+        private String message;
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+
+        public void setDetail(String detail) {
+            this.detail = detail;
+        }
+
+        public StepState getState() {
+            return state;
+        }
+
+        public void setState(StepState state) {
+            this.state = state;
+        }
+
+        public String getCommitId() {
+            return commitId;
+        }
+
+        public void setCommitId(String commitId) {
+            this.commitId = commitId;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+
+    private final File file;
+    private final String kind;
+    private final String scope;
+    private final String parameter;
+    private final long createdTime;
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+    private boolean closed;
+
+    private BatchJournal(File file, String kind, String scope, String parameter, long createdTime) {
+        this.file = file;
+        this.kind = kind;
+        this.scope = scope;
+        this.parameter = parameter;
+        this.createdTime = createdTime;
+    }
+
+    /**
+     * 开始一个新批次，写入头部和全部计划步骤
+     * 写入失败时仍返回日志对象（之后的记录也会失败），批量操作本身照常执行
+     * @param kind 批次类型
+     * @param scope 范围（工作目录），继续执行时按类型和范围查找
+     * @param parameter 批次参数（目标分支）
+     * @param plannedSteps 计划步骤，键 -> 详情，按执行顺序
+     */
+    public static BatchJournal begin(String kind, String scope, String parameter, Map<String, String> plannedSteps) {
+        long now = System.currentTimeMillis();
+        String name = kind + "-" + new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date(now)) + ".journal";
+        BatchJournal journal = new BatchJournal(new File(JOURNAL_DIR, name), kind, scope, parameter, now);
+
+        StringBuilder records = new StringBuilder();
+        appendRecord(records, MAGIC, String.valueOf(VERSION), kind, scope, parameter, String.valueOf(now));
+        for (Map.Entry<String, String> entry : plannedSteps.entrySet()) {
+            Step step = new Step();
+            step.key = entry.getKey();
+            step.detail = entry.getValue();
+            journal.steps.put(step.key, step);
+            appendRecord(records, "P", step.key, step.detail);
+        }
+        try {
+            if (!JOURNAL_DIR.isDirectory() && !JOURNAL_DIR.mkdirs()) {
+                throw new IOException("Cannot create journal directory: " + JOURNAL_DIR);
+            }
+            pruneClosedJournals(kind);
+            journal.write(records.toString(), StandardOpenOption.CREATE_NEW);
+        } catch (IOException e) {
+            System.err.println("Error creating batch journal: " + e.getMessage());
+        }
+        return journal;
+    }
+
+    /**
+     * 查找该类型、该范围最近一个没有结束的批次，没有时返回 null
+     */
+    public static BatchJournal findUnfinished(String kind, String scope) {
+        for (File file : listJournals(kind)) {
+            BatchJournal journal = load(file);
+            if (journal != null && !journal.closed && journal.kind.equals(kind) && journal.scope.equals(scope)) {
+                return journal;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 记录步骤开始（在执行之前写入）
+     */
+    public synchronized void started(String key) {
+        Step step = steps.get(key);
+        if (step == null) {
+            return;
+        }
+        step.state = StepState.STARTED;
+        append("S", key);
+    }
+
+    /**
+     * 记录步骤完成
+     * @param commitId 完成后的提交ID（切换后的 HEAD、cherry-pick 产生的提交），没有时为 null
+     */
+    public synchronized void finished(String key, boolean success, String commitId, String message) {
+        Step step = steps.get(key);
+        if (step == null) {
+            return;
+        }
+        step.state = success ? StepState.DONE : StepState.FAILED;
+        step.commitId = commitId;
+        step.message = message;
+        append("F", key, success ? "OK" : "FAILED", commitId != null ? commitId : "-", message != null ? message : "");
+    }
+
+    /**
+     * 把上次开始后没有完成记录的步骤标记为中断（继续执行时已向用户报告），之后不再执行该步骤
+     */
+    public synchronized void interrupted(String key) {
+        Step step = steps.get(key);
+        if (step == null) {
+            return;
+        }
+        step.state = StepState.INTERRUPTED;
+        step.message = "Interrupted";
+        append("F", key, "INTERRUPTED", "-", step.message);
+    }
+
+    /**
+     * 写入结束记录，之后不再作为未完成的批次
+     */
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            append("E");
+        }
+    }
+
+    public String getParameter() {
+        return parameter;
+    }
+
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 全部步骤，按计划顺序
+     */
+    public synchronized List<Step> getSteps() {
+        return new ArrayList<>(steps.values());
+    }
+
+    public synchronized Step getStep(String key) {
+        return steps.get(key);
+    }
+
+    /**
+     * 已成功完成的步骤数
+     */
+    public synchronized int getCompletedCount() {
+        int count = 0;
+        for (Step step : steps.values()) {
+            if (step.state == StepState.DONE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 不会再执行的步骤数（已成功或已标记为中断），等于步骤总数时批次可以结束
+     */
+    public synchronized int getResolvedCount() {
+        int count = 0;
+        for (Step step : steps.values()) {
+            if (step.state == StepState.DONE || step.state == StepState.INTERRUPTED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void append(String... fields) {
+        StringBuilder record = new StringBuilder();
+        appendRecord(record, fields);
+        try {
+            write(record.toString(), StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Error writing batch journal: " + e.getMessage());
+        }
+    }
+
+    private void write(String records, StandardOpenOption mode) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, mode)) {
+            ByteBuffer buffer = ByteBuffer.wrap(records.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    private static BatchJournal load(File file) {
+        try {
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            int end = bytes.length;
+            while (end > 0 && bytes[end - 1] != '\n') {
+                end--;
+            }
+            if (end == 0) {
+                return null;
+            }
+            if (end < bytes.length) {
+                // 截断末尾不完整的记录，之后追加的记录从新的一行开始
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                    channel.truncate(end);
+                }
+            }
+            String[] lines = new String(bytes, 0, end - 1, StandardCharsets.UTF_8).split("\n");
+            String[] header = parseRecord(lines[0]);
+            if (header.length < 6 || !MAGIC.equals(header[0]) || Integer.parseInt(header[1]) != VERSION) {
+                return null;
+            }
+            BatchJournal journal = new BatchJournal(file, header[2], header[3], header[4], Long.parseLong(header[5]));
+            for (int i = 1; i < lines.length; i++) {
+                String[] record = parseRecord(lines[i]);
+                Step step = record.length > 1 ? journal.steps.get(record[1]) : null;
+                switch (record[0]) {
+                    case "P":
+                        if (record.length < 3) {
+                            break;
+                        }
+                        step = new Step();
+                        step.key = record[1];
+                        step.detail = record[2];
+                        journal.steps.put(step.key, step);
+                        break;
+                    case "S":
+                        if (step != null) {
+                            step.state = StepState.STARTED;
+                        }
+                        break;
+                    case "F":
+                        if (step != null && record.length >= 5) {
+                            step.state = "OK".equals(record[2]) ? StepState.DONE
+                                    : "INTERRUPTED".equals(record[2]) ? StepState.INTERRUPTED : StepState.FAILED;
+                            step.commitId = "-".equals(record[3]) ? null : record[3];
+                            step.message = record[4];
+                        }
+                        break;
+                    case "E":
+                        journal.closed = true;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading batch journal " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 该类型的日志文件，最新的在前
+     */
+    private static List<File> listJournals(String kind) {
+        File[] files = JOURNAL_DIR.listFiles((dir, name) -> name.startsWith(kind + "-") && name.endsWith(".journal"));
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        List<File> journals = new ArrayList<>(Arrays.asList(files));
+        journals.sort(Comparator.comparing(File::getName).reversed());
+        return journals;
+    }
+
+    /**
+     * 删除超出保留数量的已结束批次（未结束的批次始终保留）
+     */
+    private static void pruneClosedJournals(String kind) {
+        int closedCount = 0;
+        for (File file : listJournals(kind)) {
+            BatchJournal journal = load(file);
+            if (journal != null && journal.closed && ++closedCount > MAX_CLOSED_JOURNALS && !file.delete()) {
+                System.err.println("Error deleting old batch journal: " + file.getName());
+            }
+        }
+    }
+
+    private static void appendRecord(StringBuilder records, String... fields) {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                records.append('\t');
+            }
+            escape(records, fields[i]);
+        }
+        records.append('\n');
+    }
+
+    private static void escape(StringBuilder out, String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '\\') {
+                out.append("\\\\");
+            } else if (c == '\t') {
+                out.append("\\t");
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else if (c == '\r') {
+                out.append("\\r");
+            } else {
+                out.append(c);
+            }
+        }
+    }
+
+    private static String[] parseRecord(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\t') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                field.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,95 @@
+package com.gitviewer;
+
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+import java.util.Locale;
+
+/**
+ * 分支下拉框的模型：内容来自 {@link BranchIndex}，过滤时只替换一个下标数组并发出一次 contentsChanged，
+ * 不再逐项 removeAllItems/addItem（每项一个事件）。
+ * 过滤不改变选中项，没有匹配的分支时显示全部分支（与原来的行为一致）。
+ */
+public class BranchComboBoxModel extends AbstractListModel<String> implements ComboBoxModel<String> {
+
+    private BranchIndex index = BranchIndex.EMPTY;
+    private int[] visible; // 当前显示的分支下标，null 表示全部
+    private Object selectedItem;
+
+    // 上一次的过滤条件和匹配结果，输入变长时在此基础上继续过滤
+    private String lastQuery;
+    private int[] lastMatches;
+
+    /**
+     * 更换分支列表并显示全部分支（同一个索引时不做任何事）
+     */
+    public void setIndex(BranchIndex index) {
+        if (this.index == index) {
+            return;
+        }
+        int oldSize = getSize();
+        this.index = index;
+        visible = null;
+        lastQuery = null;
+        lastMatches = null;
+        fireContentsChanged(Math.max(oldSize, getSize()));
+    }
+
+    public BranchIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * 只显示名称包含 text 的分支（不区分大小写），text 为空或没有匹配时显示全部
+     * @return 是否有匹配的分支（text 为空时返回 true）
+     */
+    public boolean filter(String text) {
+        String query = text.toLowerCase(Locale.ROOT);
+        int[] matches;
+        if (query.isEmpty()) {
+            matches = null;
+        } else if (lastQuery != null && query.contains(lastQuery)) {
+            matches = index.filter(lastMatches, query);
+        } else {
+            matches = index.match(query);
+        }
+        lastQuery = query.isEmpty() ? null : query;
+        lastMatches = matches;
+
+        boolean hasMatches = matches == null || matches.length > 0;
+        int[] newVisible = hasMatches ? matches : null;
+        if (newVisible == null && visible == null) {
+            return hasMatches;
+        }
+        int oldSize = getSize();
+        visible = newVisible;
+        fireContentsChanged(Math.max(oldSize, getSize()));
+        return hasMatches;
+    }
+
+    @Override
+    public int getSize() {
+        return visible != null ? visible.length : index.size();
+    }
+
+    @Override
+    public String getElementAt(int i) {
+        return index.get(visible != null ? visible[i] : i);
+    }
+
+    @Override
+    public Object getSelectedItem() {
+        return selectedItem;
+    }
+
+    @Override
+    public void setSelectedItem(Object item) {
+        if ((selectedItem != null && !selectedItem.equals(item)) || (selectedItem == null && item != null)) {
+            selectedItem = item;
+            fireContentsChanged(this, -1, -1);
+        }
+    }
+
+    private void fireContentsChanged(int size) {
+        fireContentsChanged(this, 0, Math.max(0, size - 1));
+    }
+}
@@ -0,0 +1,112 @@
+package com.gitviewer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 一个仓库的分支名索引，供分支下拉框按输入过滤
+ * 创建时预先计算每个分支名的小写形式，并为每个三字符片段（trigram）建立倒排表（包含该片段的分支下标，升序）。
+ * 查询不少于 3 个字符时只需检查倒排表最短的那个片段对应的分支，短查询直接扫描小写名称。
+ * 匹配规则与原来相同：不区分大小写的子串匹配。索引创建后不再修改，可以在多个组件间共享。
+ */
+public class BranchIndex {
+
+    public static final BranchIndex EMPTY = new BranchIndex(List.of());
+
+    private final String[] names;
+    private final String[] lowerNames;
+    private final Map<Long, int[]> trigrams = new HashMap<>();
+
+    public BranchIndex(List<String> branches) {
+        names = branches.toArray(new String[0]);
+        lowerNames = new String[names.length];
+
+        // 倒排表第 0 个元素记录已使用的长度，建完后截断
+        Map<Long, int[]> postings = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            String lower = names[i].toLowerCase(Locale.ROOT);
+            lowerNames[i] = lower;
+            for (int j = 0; j + 3 <= lower.length(); j++) {
+                int[] posting = postings.computeIfAbsent(trigram(lower, j), k -> new int[4]);
+                int size = posting[0];
+                if (size > 0 && posting[size] == i) {
+                    continue; // 同一个分支名中重复出现的片段
+                }
+                if (size + 1 == posting.length) {
+                    posting = Arrays.copyOf(posting, posting.length * 2);
+                    postings.put(trigram(lower, j), posting);
+                }
+                posting[size + 1] = i;
+                posting[0] = size + 1;
+            }
+        }
+        for (Map.Entry<Long, int[]> entry : postings.entrySet()) {
+            int[] posting = entry.getValue();
+            trigrams.put(entry.getKey(), Arrays.copyOfRange(posting, 1, posting[0] + 1));
+        }
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String get(int index) {
+        return names[index];
+    }
+
+    /**
+     * 分支名中包含 query 的分支下标（升序，不区分大小写）；query 为空时返回全部分支
+     */
+    public int[] match(String query) {
+        String lower = query.toLowerCase(Locale.ROOT);
+        if (lower.isEmpty()) {
+            return all();
+        }
+        if (lower.length() < 3) {
+            return filter(null, lower);
+        }
+        int[] candidates = null;
+        for (int j = 0; j + 3 <= lower.length(); j++) {
+            int[] posting = trigrams.get(trigram(lower, j));
+            if (posting == null) {
+                return new int[0];
+            }
+            if (candidates == null || posting.length < candidates.length) {
+                candidates = posting;
+            }
+        }
+        return filter(candidates, lower);
+    }
+
+    /**
+     * 在已有的匹配结果中继续过滤（输入变长时，新结果一定是上一次结果的子集）
+     * @param candidates 候选分支下标（升序），null 表示全部分支
+     */
+    public int[] filter(int[] candidates, String lowerQuery) {
+        int count = candidates != null ? candidates.length : names.length;
+        int[] matches = new int[count];
+        int found = 0;
+        for (int k = 0; k < count; k++) {
+            int i = candidates != null ? candidates[k] : k;
+            if (lowerNames[i].contains(lowerQuery)) {
+                matches[found++] = i;
+            }
+        }
+        return found == count ? matches : Arrays.copyOf(matches, found);
+    }
+
+    private int[] all() {
+        int[] all = new int[names.length];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+        return all;
+    }
+
+    private static long trigram(String lower, int start) {
+        return ((long) lower.charAt(start) << 32) | ((long) lower.charAt(start + 1) << 16) | lower.charAt(start + 2);
+    }
+}
@@ -0,0 +1,25 @@
+package com.gitviewer;
+
+/**
+ * 后台任务的取消标记
+ * 由界面在关闭对话框或重新加载时设置，后台遍历在每处理一项后检查
+ */
+public class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 判断可能为 null 的标记是否已经取消
+     */
+    public static boolean isCancelled(CancellationToken token) {
+        return token != null && token.isCancelled();
+    }
+}
@@ -47,7 +47,7 @@ public class CheckoutGitProjectDialog extends JDialog {
     private File targetDirectory;
     private boolean checkoutSuccess = false;
     private CredentialsProvider credentialsProvider = null;
-    private List<String> allBranches = new ArrayList<>(); // 保存所有分支
+    private final BranchComboBoxModel branchModel = new BranchComboBoxModel(); // 所有分支及过滤结果
     private boolean isFilteringBranches = false; // 过滤标志
 
     private static final Color PRIMARY_COLOR = new Color(25, 84, 166);
@@ -130,7 +130,7 @@ public class CheckoutGitProjectDialog extends JDialog {
         // 中间面板：分支下拉框和下载按钮
         JPanel branchCenterPanel = new JPanel(new BorderLayout(10, 0));
         
-        branchComboBox = new JComboBox<>();
+        branchComboBox = new JComboBox<>(branchModel);
         branchComboBox.setFont(new Font("Segoe UI", Font.PLAIN, 12));
         branchComboBox.setEnabled(false);
         branchComboBox.setEditable(true); // 设置为可编辑
@@ -485,7 +485,7 @@ public class CheckoutGitProjectDialog extends JDialog {
      * 过滤分支列表
      */
     private void filterBranches() {
-        if (allBranches == null || allBranches.isEmpty() || isFilteringBranches) {
+        if (branchModel.getIndex().size() == 0 || isFilteringBranches) {
             return;
         }
         
@@ -494,48 +494,27 @@ public class CheckoutGitProjectDialog extends JDialog {
         try {
             JTextField textField = (JTextField) branchComboBox.getEditor().getEditorComponent();
             String filterText = textField.getText();
-            String filterTextLower = filterText.toLowerCase();
             
             // 保存当前光标位置
             int caretPosition = textField.getCaretPosition();
             
-            // 清空并重新填充
-            branchComboBox.removeAllItems();
+            // 按索引过滤（没有匹配项时显示所有分支），模型只发出一次变化事件
+            branchModel.filter(filterText);
             
-            if (filterText.isEmpty()) {
-                // 如果文本为空，显示所有分支
-                for (String branch : allBranches) {
-                    branchComboBox.addItem(branch);
-                }
-            } else {
-                // 根据过滤文本筛选分支
-                boolean hasMatches = false;
-                for (String branch : allBranches) {
-                    if (branch.toLowerCase().contains(filterTextLower)) {
-                        branchComboBox.addItem(branch);
-                        hasMatches = true;
-                    }
-                }
-                
-                // 如果没有匹配项，显示所有分支
-                if (!hasMatches) {
-                    for (String branch : allBranches) {
-                        branchComboBox.addItem(branch);
-                    }
-                }
-                
-                // 显示下拉列表（只在有输入时，且组件可见且可显示时）
-                if (branchComboBox.getItemCount() > 0 && branchComboBox.isShowing() && branchComboBox.isDisplayable()) {
-                    try {
-                        branchComboBox.showPopup();
-                    } catch (IllegalComponentStateException | IllegalArgumentException e) {
-                        // 忽略组件未完全显示时的异常
-                    }
+            // 显示下拉列表（只在有输入时，且组件可见且可显示时）
+            if (!filterText.isEmpty() && branchComboBox.getItemCount() > 0
+                    && branchComboBox.isShowing() && branchComboBox.isDisplayable()) {
+                try {
+                    branchComboBox.showPopup();
+                } catch (IllegalComponentStateException | IllegalArgumentException e) {
+                    // 忽略组件未完全显示时的异常
                 }
             }
             
             // 恢复文本和光标位置（重要：保持用户输入）
-            textField.setText(filterText);
+            if (!filterText.equals(textField.getText())) {
+                textField.setText(filterText);
+            }
             textField.setCaretPosition(Math.min(caretPosition, filterText.length()));
             
         } catch (Exception e) {
@@ -738,14 +717,9 @@ public class CheckoutGitProjectDialog extends JDialog {
                         try {
                             List<String> branches = get();
                             if (branches != null && !branches.isEmpty()) {
-                                allBranches.clear();
-                                allBranches.addAll(branches);
-
                                 isFilteringBranches = true;
-                                branchComboBox.removeAllItems();
-                                for (String branch : branches) {
-                                    branchComboBox.addItem(branch);
-                                }
+                                branchModel.setIndex(new BranchIndex(branches));
+                                branchModel.setSelectedItem(branches.get(0));
                                 isFilteringBranches = false;
 
                                 selectDefaultBranch();
@@ -774,9 +748,8 @@ public class CheckoutGitProjectDialog extends JDialog {
             throw new Exception("No branches found or repository does not exist.");
         }
 
-        // 保存所有分支到成员变量
-        allBranches.clear();
-        allBranches.addAll(branches);
+        // 在后台线程中建立分支名索引
+        BranchIndex branchIndex = new BranchIndex(branches);
 
         // 填充下拉框
         SwingUtilities.invokeLater(() -> {
@@ -784,10 +757,8 @@ public class CheckoutGitProjectDialog extends JDialog {
             projectsListPanel.setVisible(false);
 
             isFilteringBranches = true;
-            branchComboBox.removeAllItems();
-            for (String branch : branches) {
-                branchComboBox.addItem(branch);
-            }
+            branchModel.setIndex(branchIndex);
+            branchModel.setSelectedItem(branches.get(0));
             isFilteringBranches = false;
 
             // 默认选择 master 或 main
@@ -867,11 +838,9 @@ public class CheckoutGitProjectDialog extends JDialog {
                 BatchDownloadResult result = new BatchDownloadResult();
                 result.totalCount = selectedProjects.size();
 
-                for (int i = 0; i < selectedProjects.size(); i++) {
-                    GitLabProject project = selectedProjects.get(i);
-                    appendLog("[" + (i + 1) + "/" + selectedProjects.size() + "] Downloading: " + project.name);
-
-                    try {
+                // 各项目并行克隆，日志按选择顺序输出
+                try {
+                    MultiRepoExecutor.run(selectedProjects, null, (project, token) -> {
                         // 构建项目Git URL
                         String projectGitUrl = groupUrl;
                         if (projectGitUrl.endsWith("/")) {
@@ -881,9 +850,10 @@ public class CheckoutGitProjectDialog extends JDialog {
 
                         File projectDir = new File(targetDirectory, project.name);
 
+                        boolean deleted = false;
                         if (projectDir.exists()) {
-                            appendLog("  - Deleting existing directory...");
                             deleteDirectory(projectDir);
+                            deleted = true;
                         }
 
                         org.eclipse.jgit.api.CloneCommand cloneCommand = Git.cloneRepository()
@@ -896,15 +866,26 @@ public class CheckoutGitProjectDialog extends JDialog {
                         }
 
                         try (Git git = cloneCommand.call()) {
+                            return deleted;
+                        }
+                    }, cloneResult -> {
+                        GitLabProject project = cloneResult.getItem();
+                        appendLog("[" + (cloneResult.getIndex() + 1) + "/" + selectedProjects.size() + "] Downloading: " + project.name);
+                        if (cloneResult.isSuccess()) {
+                            if (cloneResult.getValue()) {
+                                appendLog("  - Deleted existing directory");
+                            }
                             result.successCount++;
                             result.successfulProjects.add(project.name);
                             appendLog("  ✓ Downloaded successfully");
+                        } else {
+                            result.failedCount++;
+                            result.failedProjects.add(project.name + ": " + cloneResult.getError().getMessage());
+                            appendLog("  ✗ Failed: " + cloneResult.getError().getMessage());
                         }
-                    } catch (Exception e) {
-                        result.failedCount++;
-                        result.failedProjects.add(project.name + ": " + e.getMessage());
-                        appendLog("  ✗ Failed: " + e.getMessage());
-                    }
+                    });
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 }
 
                 return result;
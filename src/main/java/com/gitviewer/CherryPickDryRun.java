@@ -0,0 +1,276 @@
+package com.gitviewer;
+
+import org.eclipse.jgit.diff.Sequence;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.errors.RevisionSyntaxException;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.merge.MergeChunk;
+import org.eclipse.jgit.merge.MergeResult;
+import org.eclipse.jgit.merge.MergeStrategy;
+import org.eclipse.jgit.merge.ResolveMerger;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.PackParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cherry-pick 预演
+ * 在内存中对目标分支依次做三方合并（基于被 cherry-pick 提交的父提交），预测每个提交是否冲突以及冲突的文件。
+ * 前一个能干净应用的提交的合并结果作为下一个提交的起点，冲突的提交视为跳过，与“只应用无冲突的提交”的结果一致。
+ * 合并产生的树和文件只保存在内存中，不写对象库、index、工作区或任何引用，预演不改变仓库。
+ */
+public class CherryPickDryRun {
+
+    /**
+     * 单个提交的预演结果
+     */
+    public enum Prediction {
+        /** 可以干净应用 */
+        CLEAN,
+        /** 会产生冲突 */
+        CONFLICTS,
+        /** 应用后没有变化（目标分支已经包含这些修改） */
+        EMPTY,
+        /** 无法预演（找不到提交、合并提交等） */
+        FAILED
+    }
+
+    /**
+     * 单个提交的预演结果和冲突文件
+     */
+    public static class Outcome {
+        private String commitId;
+        private Prediction prediction;
+        private List<String> conflictingFiles = new ArrayList<>();
+        private String message;
+
+        public String getCommitId() {
+            return commitId;
+        }
+
+        public void setCommitId(String commitId) {
+            this.commitId = commitId;
+        }
+
+        public Prediction getPrediction() {
+            return prediction;
+        }
+
+        public void setPrediction(Prediction prediction) {
+            this.prediction = prediction;
+        }
+
+        /**
+         * 冲突的文件，每项为“路径 (n conflict(s))”或“路径 (modify/delete)”等
+         */
+        public List<String> getConflictingFiles() {
+            return conflictingFiles;
+        }
+
+        public void setConflictingFiles(List<String> conflictingFiles) {
+            this.conflictingFiles = conflictingFiles;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+
+    /**
+     * 按顺序预演一个仓库中的多个 cherry-pick
+     * @param directory Git仓库目录
+     * @param targetBranch 目标分支（本地没有时使用 origin 上的远程跟踪分支）
+     * @param commitIds 要 cherry-pick 的提交，按应用顺序
+     * @return 与 commitIds 一一对应的结果
+     * @throws IOException 无法打开仓库或找不到目标分支
+     */
+    public static List<Outcome> simulate(File directory, String targetBranch, List<String> commitIds) throws IOException {
+        List<Outcome> outcomes = new ArrayList<>(commitIds.size());
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory);
+             MemoryInserter inserter = new MemoryInserter(handle.getRepository());
+             ObjectReader reader = inserter.newReader();
+             RevWalk revWalk = new RevWalk(reader)) {
+            Repository repository = handle.getRepository();
+            Ref target = repository.exactRef(Constants.R_HEADS + targetBranch);
+            if (target == null) {
+                target = repository.exactRef(Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/" + targetBranch);
+            }
+            if (target == null || target.getObjectId() == null) {
+                throw new IOException("Target branch not found: " + targetBranch);
+            }
+            ObjectId currentTree = revWalk.parseCommit(target.getObjectId()).getTree();
+
+            for (String commitId : commitIds) {
+                Outcome outcome = new Outcome();
+                outcome.commitId = commitId;
+                outcomes.add(outcome);
+
+                RevCommit commit = resolveCommit(repository, revWalk, commitId);
+                if (commit == null) {
+                    outcome.prediction = Prediction.FAILED;
+                    outcome.message = "Commit not found in local repository";
+                    continue;
+                }
+                if (commit.getParentCount() != 1) {
+                    outcome.prediction = Prediction.FAILED;
+                    outcome.message = commit.getParentCount() == 0
+                            ? "Root commit cannot be cherry-picked" : "Merge commit cannot be cherry-picked";
+                    continue;
+                }
+
+                RevCommit parent = revWalk.parseCommit(commit.getParent(0));
+                ResolveMerger merger = (ResolveMerger) MergeStrategy.RECURSIVE.newMerger(inserter, repository.getConfig());
+                merger.setBase(parent.getTree());
+                if (merger.merge(currentTree, commit.getTree())) {
+                    ObjectId resultTree = merger.getResultTreeId();
+                    if (resultTree.equals(currentTree)) {
+                        outcome.prediction = Prediction.EMPTY;
+                    } else {
+                        outcome.prediction = Prediction.CLEAN;
+                        currentTree = resultTree;
+                    }
+                } else {
+                    outcome.prediction = Prediction.CONFLICTS;
+                    outcome.conflictingFiles = describeConflicts(merger);
+                }
+            }
+        }
+        return outcomes;
+    }
+
+    private static RevCommit resolveCommit(Repository repository, RevWalk revWalk, String commitId) {
+        try {
+            ObjectId objectId = repository.resolve(commitId);
+            return objectId != null ? revWalk.parseCommit(objectId) : null;
+        } catch (IOException | RevisionSyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 冲突文件及原因：内容冲突给出冲突块数，其他（删除/修改、文件/目录）给出失败原因
+     */
+    private static List<String> describeConflicts(ResolveMerger merger) {
+        List<String> files = new ArrayList<>();
+        Map<String, MergeResult<? extends Sequence>> mergeResults = merger.getMergeResults();
+        for (String path : merger.getUnmergedPaths()) {
+            MergeResult<? extends Sequence> result = mergeResults.get(path);
+            if (result != null && result.containsConflicts()) {
+                int conflicts = 0;
+                for (MergeChunk chunk : result) {
+                    if (chunk.getConflictState() == MergeChunk.ConflictState.FIRST_CONFLICTING_RANGE) {
+                        conflicts++;
+                    }
+                }
+                files.add(path + " (" + conflicts + " conflict(s))");
+            } else {
+                files.add(path + " (modify/delete)");
+            }
+        }
+        if (merger.getFailingPaths() != null) {
+            merger.getFailingPaths().forEach((path, reason) -> files.add(path + " (" + reason + ")"));
+        }
+        return files;
+    }
+
+    /**
+     * 只保存在内存中的对象写入器：合并产生的文件和树不写入仓库，读取时先查内存再查仓库
+     */
+    private static class MemoryInserter extends ObjectInserter {
+        private final Repository repository;
+        private final Map<ObjectId, ObjectLoader> objects = new HashMap<>();
+
+        MemoryInserter(Repository repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public ObjectId insert(int type, long length, InputStream in) throws IOException {
+            byte[] data = in.readNBytes((int) length);
+            ObjectId id = idFor(type, data);
+            objects.putIfAbsent(id, new ObjectLoader.SmallObject(type, data));
+            return id;
+        }
+
+        @Override
+        public PackParser newPackParser(InputStream in) {
+            throw new UnsupportedOperationException("Pack parsing is not used by the cherry-pick dry run");
+        }
+
+        @Override
+        public ObjectReader newReader() {
+            ObjectReader repositoryReader = repository.newObjectReader();
+            return new ObjectReader.Filter() {
+                @Override
+                protected ObjectReader delegate() {
+                    return repositoryReader;
+                }
+
+                @Override
+                public ObjectReader newReader() {
+                    return MemoryInserter.this.newReader();
+                }
+
+                @Override
+                public boolean has(AnyObjectId objectId) throws IOException {
+                    return objects.containsKey(objectId) || repositoryReader.has(objectId);
+                }
+
+                @Override
+                public boolean has(AnyObjectId objectId, int typeHint) throws IOException {
+                    return objects.containsKey(objectId) || repositoryReader.has(objectId, typeHint);
+                }
+
+                @Override
+                public ObjectLoader open(AnyObjectId objectId) throws IOException {
+                    return open(objectId, OBJ_ANY);
+                }
+
+                @Override
+                public ObjectLoader open(AnyObjectId objectId, int typeHint) throws MissingObjectException, IOException {
+                    ObjectLoader loader = objects.get(objectId);
+                    return loader != null ? loader : repositoryReader.open(objectId, typeHint);
+                }
+
+                @Override
+                public long getObjectSize(AnyObjectId objectId, int typeHint) throws IOException {
+                    ObjectLoader loader = objects.get(objectId);
+                    return loader != null ? loader.getSize() : repositoryReader.getObjectSize(objectId, typeHint);
+                }
+
+                @Override
+                public ObjectInserter getCreatedFromInserter() {
+                    return MemoryInserter.this;
+                }
+            };
+        }
+
+        @Override
+        public void flush() {
+            // 不写入仓库
+        }
+
+        @Override
+        public void close() {
+            // 内存中的对象随对象本身释放
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.gitviewer;
+
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.util.SystemReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 文件历史查询的 commit-graph 性能对比
+ * 用法: java -cp git-info-viewer.jar com.gitviewer.CommitGraphBenchmark <仓库目录> <文件路径>... [--write]
+ *   --write  先用命令行 git 为仓库写入 commit-graph（会修改 .git/objects/info/commit-graph）
+ * 对每个文件分别在关闭和开启 commit-graph 的情况下查询完整历史，输出多次运行的中位数耗时。
+ */
+public class CommitGraphBenchmark {
+
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 5;
+
+    public static void main(String[] args) throws IOException {
+        List<String> paths = new ArrayList<>();
+        boolean writeGraph = false;
+        for (int i = 1; i < args.length; i++) {
+            if ("--write".equals(args[i])) {
+                writeGraph = true;
+            } else {
+                paths.add(args[i]);
+            }
+        }
+        if (args.length < 1 || paths.isEmpty()) {
+            System.err.println("Usage: CommitGraphBenchmark <repo-dir> <file-path>... [--write]");
+            System.exit(1);
+        }
+
+        File gitDir = new File(args[0], ".git");
+        if (writeGraph) {
+            try (Repository repository = open(gitDir, true)) {
+                long start = System.nanoTime();
+                CommitGraphMaintainer.write(repository);
+                System.out.printf("commit-graph written in %d ms%n", (System.nanoTime() - start) / 1_000_000);
+            }
+        }
+
+        try (Repository withoutGraph = open(gitDir, false);
+             Repository withGraph = open(gitDir, true)) {
+            if (!CommitGraphMaintainer.hasCommitGraph(withGraph)) {
+                System.out.println("warning: commit-graph is missing, run with --write");
+            }
+            if (!readsChangedPaths()) {
+                System.out.println("note: changed-path filters are disabled by commitGraph.readChangedPaths = false"
+                        + " in the JGit config (~/.config/jgit/config)");
+            }
+            System.out.printf("%-40s %8s %12s %12s %8s%n", "path", "commits", "no graph", "graph", "speedup");
+            for (String path : paths) {
+                long[] without = measure(withoutGraph, path);
+                long[] with = measure(withGraph, path);
+                System.out.printf("%-40s %8d %9.1f ms %9.1f ms %7.1fx%n", path, with[1],
+                        without[0] / 1e6, with[0] / 1e6, (double) without[0] / Math.max(1, with[0]));
+                if (with[1] != without[1]) {
+                    System.out.println("  mismatch: " + without[1] + " commits without graph");
+                }
+            }
+        }
+    }
+
+    /**
+     * JGit 配置是否允许读取修改路径过滤器（CommitGraphMaintainer.enableReading 之后默认允许）
+     */
+    private static boolean readsChangedPaths() {
+        try {
+            return SystemReader.getInstance().getJGitConfig().getBoolean(ConfigConstants.CONFIG_COMMIT_GRAPH_SECTION,
+                    ConfigConstants.CONFIG_KEY_READ_CHANGED_PATHS, true);
+        } catch (IOException | ConfigInvalidException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 打开仓库，单独控制是否读取 commit-graph（不经过共享缓存）
+     */
+    private static Repository open(File gitDir, boolean commitGraph) throws IOException {
+        Repository repository = new FileRepositoryBuilder().setGitDir(gitDir).readEnvironment().build();
+        if (commitGraph) {
+            CommitGraphMaintainer.enableReading(repository);
+        } else {
+            repository.getConfig().setBoolean(ConfigConstants.CONFIG_CORE_SECTION, null,
+                    ConfigConstants.CONFIG_COMMIT_GRAPH, false);
+        }
+        return repository;
+    }
+
+    /**
+     * @return {中位数耗时(纳秒), 找到的提交数量}
+     */
+    private static long[] measure(Repository repository, String path) throws IOException {
+        long[] durations = new long[MEASURED_RUNS];
+        int[] count = {0};
+        for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+            count[0] = 0;
+            long start = System.nanoTime();
+            GitInfoExtractor.walkFileHistory(repository, path, Integer.MAX_VALUE, null, commit -> {
+                count[0]++;
+                return true;
+            });
+            if (run >= WARMUP_RUNS) {
+                durations[run - WARMUP_RUNS] = System.nanoTime() - start;
+            }
+        }
+        java.util.Arrays.sort(durations);
+        return new long[] {durations[MEASURED_RUNS / 2], count[0]};
+    }
+}
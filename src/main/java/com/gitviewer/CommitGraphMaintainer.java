@@ -0,0 +1,217 @@
+package com.gitviewer;
+
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileBasedConfig;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.FS;
+import org.eclipse.jgit.util.SystemReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * commit-graph 的读取和维护
+ * 本程序打开的仓库读取 .git/objects/info/commit-graph：RevWalk 从图中读取父提交和生成号，
+ * 文件历史用图中的修改路径 Bloom 过滤器跳过肯定没有修改该文件的提交，不再逐层比较这些提交的目录树（JGit 仍会读取根目录树）。
+ * JGit 只从 JGit 配置读取 commitGraph.readChangedPaths，本程序把它的默认值设为 true（用户配置中显式设置的值优先，不写入配置文件）。
+ * 打开仓库后在后台由命令行 git 写入或刷新 commit-graph（使用 git 自己的锁文件），可通过 -Dgitviewer.writeCommitGraph=false 关闭。
+ */
+public class CommitGraphMaintainer {
+
+    /**
+     * 是否在后台为打开的仓库写入 commit-graph，可通过 -Dgitviewer.writeCommitGraph=false 关闭
+     */
+    public static final boolean WRITE_ENABLED =
+            Boolean.parseBoolean(System.getProperty("gitviewer.writeCommitGraph", "true"));
+
+    // 同一个仓库两次重写之间的最短间隔，避免每次新提交都重算整个图
+    private static final long MIN_REWRITE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "commit-graph-writer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private static final Set<String> pending = new HashSet<>();
+    private static final Map<String, Long> lastWritten = new HashMap<>();
+    private static boolean changedPathsDefaultInstalled;
+
+    private CommitGraphMaintainer() {
+    }
+
+    /**
+     * 让仓库读取 commit-graph 和其中的修改路径过滤器（只修改内存中的配置，不写入 .git/config 和 JGit 配置文件）
+     */
+    public static void enableReading(Repository repository) {
+        installChangedPathsDefault();
+        repository.getConfig().setBoolean(ConfigConstants.CONFIG_CORE_SECTION, null,
+                ConfigConstants.CONFIG_COMMIT_GRAPH, true);
+    }
+
+    /**
+     * 把 JGit 配置中 commitGraph.readChangedPaths 的默认值设为 true（只需一次，须在加载 commit-graph 之前）
+     */
+    private static synchronized void installChangedPathsDefault() {
+        if (!changedPathsDefaultInstalled) {
+            SystemReader.setInstance(new ChangedPathsDefaultReader(SystemReader.getInstance()));
+            changedPathsDefaultInstalled = true;
+        }
+    }
+
+    /**
+     * 在后台写入或刷新仓库的 commit-graph（关闭写入时不做任何事），已在排队或刚写过的仓库会被跳过
+     */
+    public static void scheduleUpdate(File repoDirectory) {
+        if (!WRITE_ENABLED) {
+            return;
+        }
+        String key = repoDirectory.getAbsoluteFile().toPath().normalize().toString();
+        synchronized (pending) {
+            Long last = lastWritten.get(key);
+            if (last != null && System.currentTimeMillis() - last < MIN_REWRITE_INTERVAL_MILLIS) {
+                return;
+            }
+            if (!pending.add(key)) {
+                return;
+            }
+        }
+        writer.execute(() -> {
+            try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(repoDirectory)) {
+                write(handle.getRepository());
+            } catch (Exception e) {
+                System.err.println("Error writing commit-graph for " + repoDirectory + ": " + e.getMessage());
+            } finally {
+                synchronized (pending) {
+                    pending.remove(key);
+                    lastWritten.put(key, System.currentTimeMillis());
+                }
+            }
+        });
+    }
+
+    /**
+     * 仓库是否已有 commit-graph 文件（单个文件或分层的 commit-graphs 目录）
+     */
+    public static boolean hasCommitGraph(Repository repository) {
+        if (repository.getDirectory() == null) {
+            return false;
+        }
+        File infoDir = new File(repository.getDirectory(), "objects" + File.separator + "info");
+        return new File(infoDir, "commit-graph").isFile() || new File(infoDir, "commit-graphs").isDirectory();
+    }
+
+    /**
+     * 用命令行 git 写入 commit-graph 和修改路径 Bloom 过滤器（git commit-graph write --reachable --changed-paths）
+     * git 写入时持有 objects/info/commit-graph.lock，并原子替换旧文件，与同时运行的 git 命令不会冲突
+     * @return 是否写入成功，浅克隆或没有 .git 目录的仓库返回 false，找不到 git 时也返回 false
+     */
+    public static boolean write(Repository repository) throws IOException {
+        if (repository.getDirectory() == null || new File(repository.getDirectory(), "shallow").exists()) {
+            // 浅克隆的历史不完整，git 同样不会为其写入 commit-graph
+            return false;
+        }
+        ProcessBuilder builder = new ProcessBuilder("git", "--git-dir=" + repository.getDirectory().getAbsolutePath(),
+                "commit-graph", "write", "--reachable", "--changed-paths");
+        builder.redirectErrorStream(true);
+        Process process;
+        try {
+            process = builder.start();
+        } catch (IOException e) {
+            System.err.println("Error running git commit-graph (is git installed?): " + e.getMessage());
+            return false;
+        }
+        try {
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            if (process.waitFor() != 0) {
+                throw new IOException("git commit-graph write failed: " + output);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing commit-graph", e);
+        }
+    }
+
+    /**
+     * 文件历史使用的目录树过滤器（用于 RevWalk.setTreeFilter），与 git log -- &lt;path&gt; 的结果相同：
+     * 只保留修改了该文件的提交，合并提交与某个父提交相同时只沿该父提交继续（TREESAME 简化）。
+     * 与 AndTreeFilter.create(PathFilterGroup, ANY_DIFF) 等价，另外向 JGit 声明过滤的路径，
+     * 仓库的 commit-graph 带有修改路径过滤器时，单父提交先查询过滤器，过滤器确定未修改该路径时不再比较子目录树。
+     */
+    public static TreeFilter fileHistoryFilter(String filePath) {
+        return new ChangedPathTreeFilter(filePath);
+    }
+
+    /**
+     * 打开 JGit 配置文件时加上 commitGraph.readChangedPaths = true 作为基础配置：
+     * 配置文件中的值覆盖基础配置，保存时也只写入配置文件自己的内容
+     */
+    private static class ChangedPathsDefaultReader extends SystemReader.Delegate {
+        ChangedPathsDefaultReader(SystemReader delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public FileBasedConfig openJGitConfig(Config parent, FS fs) {
+            Config defaults = new Config(parent);
+            defaults.setBoolean(ConfigConstants.CONFIG_COMMIT_GRAPH_SECTION, null,
+                    ConfigConstants.CONFIG_KEY_READ_CHANGED_PATHS, true);
+            return super.openJGitConfig(defaults, fs);
+        }
+    }
+
+    private static class ChangedPathTreeFilter extends TreeFilter {
+        private final String filePath;
+        private final TreeFilter pathFilter;
+        private final byte[] rawPath;
+
+        ChangedPathTreeFilter(String filePath) {
+            this.filePath = filePath;
+            this.pathFilter = PathFilterGroup.createFromStrings(filePath);
+            this.rawPath = Constants.encode(filePath);
+        }
+
+        @Override
+        public boolean include(TreeWalk walker) throws IOException {
+            return pathFilter.include(walker) && TreeFilter.ANY_DIFF.include(walker);
+        }
+
+        @Override
+        public boolean shouldBeRecursive() {
+            return pathFilter.shouldBeRecursive() || TreeFilter.ANY_DIFF.shouldBeRecursive();
+        }
+
+        @Override
+        public Optional<Set<byte[]>> getPathsBestEffort() {
+            Set<byte[]> paths = new HashSet<>();
+            paths.add(rawPath);
+            return Optional.of(paths);
+        }
+
+        @Override
+        public TreeFilter clone() {
+            return new ChangedPathTreeFilter(filePath);
+        }
+
+        @Override
+        public String toString() {
+            return "CHANGED_PATH(" + filePath + ")";
+        }
+    }
+}
@@ -0,0 +1,725 @@
+package com.gitviewer;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 单个仓库的持久化提交元数据索引
+ * 保存在 ~/.git-viewer/index 下（不写入 .git），记录提交ID、父提交、作者、邮箱、时间、
+ * 提交信息和修改的文件。每次刷新只追加从新的分支头可达、且尚未索引的提交。
+ * 内存中只保留 {@link CommitStore} 中的紧凑字段和父提交位置，完整提交信息和修改文件在需要时从索引文件读取。
+ *
+ * 文件格式（追加写入）：
+ *   头部: MAGIC, VERSION, 仓库路径
+ *   记录: 'C' 提交记录 | 'T' 本次刷新完成后的分支头列表
+ * 文件末尾不完整的记录（例如写入时崩溃）会在加载时被截断。
+ */
+public class CommitIndex {
+
+    private static final int MAGIC = 0x47564349; // "GVCI"
+    private static final int VERSION = 1;
+    private static final byte RECORD_COMMIT = 'C';
+    private static final byte RECORD_TIPS = 'T';
+
+    private static final File INDEX_DIR = new File(System.getProperty("user.home"),
+            ".git-viewer" + File.separator + "index");
+
+    // 已加载到内存的索引，按仓库路径共享
+    private static final Map<String, CommitIndex> loadedIndexes = new HashMap<>();
+    // 后台建立索引使用的单线程执行器
+    private static final ExecutorService builder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "commit-index-builder");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private static final Set<String> pendingBuilds = new HashSet<>();
+
+    private final File repoDirectory;
+    private final File indexFile;
+
+    private final CommitStore store = new CommitStore(new CommitStore.DetailLoader() {
+        @Override
+        public String loadMessage(long detailOffset) throws IOException {
+            synchronized (detailLock) {
+                return readString(openDetails(detailOffset));
+            }
+        }
+
+        @Override
+        public List<GitInfoExtractor.ChangedFile> loadChangedFiles(long detailOffset) throws IOException {
+            synchronized (detailLock) {
+                DataInputStream in = openDetails(detailOffset);
+                in.skipBytes(in.readInt());
+                return readChangedFiles(new CountingInput(in));
+            }
+        }
+    });
+    // 父提交在 store 中的位置：第 i 个提交的父提交为 parentPositions[parentStart[i] .. parentStart[i + 1])
+    private int[] parentStart = new int[17];
+    private int[] parentPositions = new int[16];
+    // 已加入 store、父提交尚未解析为位置的提交的父提交ID
+    private final List<ObjectId[]> unresolvedParents = new ArrayList<>();
+    private Set<ObjectId> indexedTips = new LinkedHashSet<>();
+    private boolean loaded;
+    // 同一时间只有一个线程刷新；遍历历史时不持有对象锁，读取索引的线程不会等待遍历完成
+    private final Object refreshLock = new Object();
+    // 首次刷新已经完成，之前 getIfBuilt 不返回该索引
+    private volatile boolean built;
+
+    // 读取完整提交信息时使用，与刷新使用不同的锁，界面线程读取详情时不会等待刷新完成
+    private final Object detailLock = new Object();
+    private FileChannel detailChannel;
+
+    private CommitIndex(File repoDirectory) {
+        this.repoDirectory = repoDirectory;
+        this.indexFile = indexFileFor(repoDirectory);
+    }
+
+    /**
+     * 获取仓库已经完成首次刷新的索引，否则返回 null（可以用 {@link #buildInBackground} 在后台加载或建立）
+     */
+    public static CommitIndex getIfBuilt(File repoDirectory) {
+        synchronized (loadedIndexes) {
+            CommitIndex index = loadedIndexes.get(keyOf(repoDirectory));
+            return index != null && index.built ? index : null;
+        }
+    }
+
+    /**
+     * 获取仓库的索引，不存在时创建（首次刷新会遍历完整历史）
+     */
+    public static CommitIndex getOrCreate(File repoDirectory) {
+        String key = keyOf(repoDirectory);
+        synchronized (loadedIndexes) {
+            CommitIndex index = loadedIndexes.get(key);
+            if (index == null) {
+                index = new CommitIndex(repoDirectory);
+                loadedIndexes.put(key, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * 在后台为仓库建立或刷新索引，已在排队的仓库不会重复提交
+     */
+    public static void buildInBackground(File repoDirectory) {
+        String key = keyOf(repoDirectory);
+        synchronized (pendingBuilds) {
+            if (!pendingBuilds.add(key)) {
+                return;
+            }
+        }
+        builder.execute(() -> {
+            try {
+                getOrCreate(repoDirectory).refresh();
+            } catch (Exception e) {
+                System.err.println("Error building commit index for " + repoDirectory + ": " + e.getMessage());
+            } finally {
+                synchronized (pendingBuilds) {
+                    pendingBuilds.remove(key);
+                }
+            }
+        });
+    }
+
+    /**
+     * 加载索引并追加自上次刷新以来新增的提交
+     * 遍历新增的提交时不持有对象锁，只在追加结果时持有，刷新期间仍可以读取已有的提交
+     * @return 本次追加的提交数量
+     */
+    public int refresh() throws IOException {
+        synchronized (refreshLock) {
+            Set<ObjectId> knownTips;
+            synchronized (this) {
+                ensureLoaded();
+                knownTips = indexedTips;
+            }
+
+            try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(repoDirectory)) {
+                Repository repository = handle.getRepository();
+                Set<ObjectId> currentTips = readTips(repository);
+                if (knownTips.containsAll(currentTips)) {
+                    if (knownTips.size() != currentTips.size()) {
+                        // 只删除了分支：记录新的分支头，已删除分支上的提交仍保留在索引中
+                        synchronized (this) {
+                            append(new ArrayList<>(), currentTips);
+                            indexedTips = currentTips;
+                        }
+                    }
+                    built = true;
+                    return 0;
+                }
+
+                // store 只在持有 refreshLock 时修改，这里可以直接查询
+                List<Entry> added = new ArrayList<>();
+                try (ObjectReader reader = repository.newObjectReader();
+                     RevWalk revWalk = new RevWalk(reader);
+                     GitInfoExtractor.ChangeCollector collector = new GitInfoExtractor.ChangeCollector(repository, reader)) {
+                    boolean hasStart = false;
+                    for (ObjectId tip : currentTips) {
+                        if (store.find(tip) < 0) {
+                            revWalk.markStart(revWalk.parseCommit(tip));
+                            hasStart = true;
+                        }
+                    }
+                    if (hasStart) {
+                        // 已索引的分支头及其祖先不需要再次遍历
+                        for (ObjectId tip : knownTips) {
+                            try {
+                                revWalk.markUninteresting(revWalk.parseCommit(tip));
+                            } catch (IOException e) {
+                                // 旧的分支头可能已被垃圾回收，忽略即可
+                            }
+                        }
+                        for (RevCommit commit : revWalk) {
+                            if (store.find(commit) >= 0) {
+                                continue;
+                            }
+                            added.add(toEntry(commit, collector.collect(revWalk, commit)));
+                        }
+                    }
+                }
+
+                // 当前分支头可达的提交都已索引，下次刷新只需以它们为界（已删除的分支头不再保留）
+                synchronized (this) {
+                    append(added, currentTips);
+                    for (Entry entry : added) {
+                        addEntry(entry);
+                    }
+                    resolveParents();
+                    indexedTips = currentTips;
+                }
+                built = true;
+                return added.size();
+            }
+        }
+    }
+
+    /**
+     * 从指定提交开始按提交时间倒序遍历索引中的历史，逐个交给 consumer 处理
+     * 只在开始时持有对象锁取得当前的提交数量和父提交数组，遍历和 consumer 的处理不持有锁，
+     * 同时进行的刷新只在末尾追加新提交，不影响已取得的部分
+     * @param start 起始提交
+     * @param maxScanned 最多遍历的提交数量
+     * @param consumer 返回 false 时停止遍历
+     * @return 起始提交是否在索引中（不在时不遍历）
+     */
+    public boolean walkHistory(ObjectId start, int maxScanned, GitInfoExtractor.CommitConsumer consumer) {
+        int size;
+        int[] parentStart;
+        int[] parentPositions;
+        int startPosition;
+        synchronized (this) {
+            size = store.size();
+            parentStart = this.parentStart;
+            parentPositions = this.parentPositions;
+            startPosition = start != null ? store.find(start) : -1;
+        }
+        if (startPosition < 0 || startPosition >= size) {
+            return false;
+        }
+
+        // 与 RevWalk 默认顺序一致：总是先输出提交时间最新的候选提交
+        PriorityQueue<Integer> queue = new PriorityQueue<>((a, b) ->
+                Long.compare(store.getCommitTime(b), store.getCommitTime(a)));
+        BitSet seen = new BitSet(size);
+        queue.add(startPosition);
+        seen.set(startPosition);
+
+        int scanned = 0;
+        while (!queue.isEmpty() && scanned < maxScanned) {
+            int position = queue.poll();
+            scanned++;
+
+            if (!consumer.accept(store.view(position))) {
+                return true;
+            }
+
+            for (int i = parentStart[position]; i < parentStart[position + 1]; i++) {
+                int parent = parentPositions[i];
+                if (parent >= 0 && !seen.get(parent)) {
+                    seen.set(parent);
+                    queue.add(parent);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 读取从指定位置开始的所有提交（位置在索引中固定不变，新提交总是追加在末尾）
+     */
+    public synchronized List<GitInfoExtractor.GitCommitInfo> entriesFrom(int from) {
+        List<GitInfoExtractor.GitCommitInfo> result = new ArrayList<>(Math.max(0, store.size() - from));
+        for (int i = from; i < store.size(); i++) {
+            result.add(store.view(i));
+        }
+        return result;
+    }
+
+    /**
+     * 读取指定位置的提交
+     */
+    public synchronized GitInfoExtractor.GitCommitInfo get(int position) {
+        return store.view(position);
+    }
+
+    /**
+     * 计算从指定提交可达的所有提交在索引中的位置
+     */
+    public synchronized BitSet reachableFrom(ObjectId start) {
+        BitSet reachable = new BitSet(store.size());
+        int startPosition = start != null ? store.find(start) : -1;
+        if (startPosition < 0) {
+            return reachable;
+        }
+
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = startPosition;
+        reachable.set(startPosition);
+        while (top > 0) {
+            int position = stack[--top];
+            for (int i = parentStart[position]; i < parentStart[position + 1]; i++) {
+                int parent = parentPositions[i];
+                if (parent >= 0 && !reachable.get(parent)) {
+                    reachable.set(parent);
+                    if (top == stack.length) {
+                        stack = java.util.Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = parent;
+                }
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * 索引文件是否已经存在
+     */
+    public boolean exists() {
+        return indexFile.isFile();
+    }
+
+    /**
+     * 索引中的提交数量
+     */
+    public synchronized int size() {
+        return store.size();
+    }
+
+    private void ensureLoaded() throws IOException {
+        if (loaded) {
+            return;
+        }
+        if (indexFile.isFile()) {
+            load();
+        }
+        loaded = true;
+    }
+
+    /**
+     * 从磁盘加载索引，格式不兼容时删除旧索引（之后的刷新重新建立）
+     */
+    private void load() throws IOException {
+        if (!readIndexFile()) {
+            // 格式不兼容或头部不完整，丢弃旧索引重新建立
+            closeDetails();
+            if (!indexFile.delete()) {
+                throw new IOException("Cannot delete incompatible index: " + indexFile);
+            }
+        }
+    }
+
+    /**
+     * 读取索引文件中完整写入的记录，末尾损坏的记录会被截断
+     * @return 文件头是否有效（无效时不读取任何记录）
+     */
+    private boolean readIndexFile() throws IOException {
+        long validLength;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    validLength = -1;
+                } else {
+                    // 仓库路径，仅用于排查问题
+                    validLength = 8 + 4 + readString(in).getBytes(StandardCharsets.UTF_8).length;
+                }
+            } catch (EOFException e) {
+                validLength = -1;
+            }
+            if (validLength < 0) {
+                return false;
+            }
+
+            List<Entry> pending = new ArrayList<>();
+            long offset = validLength;
+            while (true) {
+                int type = in.read();
+                if (type < 0) {
+                    break;
+                }
+                try {
+                    if (type == RECORD_COMMIT) {
+                        Entry entry = readEntry(in, offset + 1);
+                        pending.add(entry);
+                        offset += 1 + entry.recordLength;
+                    } else if (type == RECORD_TIPS) {
+                        Set<ObjectId> tips = readTipsRecord(in);
+                        offset += 1 + 4 + tips.size() * Constants.OBJECT_ID_LENGTH;
+                        // 只有以分支头记录结尾的提交才算完整写入
+                        for (Entry entry : pending) {
+                            addEntry(entry);
+                        }
+                        pending.clear();
+                        indexedTips = tips;
+                        validLength = offset;
+                    } else {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+            }
+        }
+        resolveParents();
+
+        if (validLength < indexFile.length()) {
+            try (RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+                file.setLength(validLength);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 追加提交记录和分支头记录
+     */
+    private void append(List<Entry> added, Set<ObjectId> tips) throws IOException {
+        boolean isNew = !indexFile.isFile();
+        long base = isNew ? 0 : indexFile.length();
+        if (isNew) {
+            // 之前打开的文件已经不存在（被删除或替换），之后读取详情时重新打开
+            closeDetails();
+        }
+        if (isNew && !INDEX_DIR.isDirectory() && !INDEX_DIR.mkdirs()) {
+            throw new IOException("Cannot create index directory: " + INDEX_DIR);
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(indexFile, true)))) {
+            if (isNew) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, repoDirectory.getAbsolutePath());
+            }
+            for (Entry entry : added) {
+                out.writeByte(RECORD_COMMIT);
+                writeEntry(out, entry, base);
+            }
+            out.writeByte(RECORD_TIPS);
+            out.writeInt(tips.size());
+            for (ObjectId tip : tips) {
+                tip.copyRawTo(out);
+            }
+        }
+    }
+
+    private void addEntry(Entry entry) {
+        store.add(entry.id, entry.author, entry.email, entry.commitTime, entry.subject, entry.detailOffset);
+        unresolvedParents.add(entry.parents);
+    }
+
+    /**
+     * 将新加入提交的父提交ID解析为索引中的位置
+     */
+    private void resolveParents() {
+        int first = store.size() - unresolvedParents.size();
+        if (parentStart.length < store.size() + 1) {
+            parentStart = Arrays.copyOf(parentStart, Math.max(parentStart.length * 2, store.size() + 1));
+        }
+        for (int i = 0; i < unresolvedParents.size(); i++) {
+            ObjectId[] parents = unresolvedParents.get(i);
+            int start = parentStart[first + i];
+            if (start + parents.length > parentPositions.length) {
+                parentPositions = Arrays.copyOf(parentPositions,
+                        Math.max(parentPositions.length * 2, start + parents.length));
+            }
+            for (int p = 0; p < parents.length; p++) {
+                parentPositions[start + p] = store.find(parents[p]);
+            }
+            parentStart[first + i + 1] = start + parents.length;
+        }
+        unresolvedParents.clear();
+    }
+
+    /**
+     * 定位到索引文件中某个提交的完整信息，调用方需持有 detailLock
+     * 返回的流不能关闭（会关闭共享的文件通道）
+     */
+    private DataInputStream openDetails(long detailOffset) throws IOException {
+        if (detailChannel == null) {
+            detailChannel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ);
+        }
+        detailChannel.position(detailOffset);
+        return new DataInputStream(new BufferedInputStream(Channels.newInputStream(detailChannel), 4096));
+    }
+
+    /**
+     * 关闭读取详情使用的文件通道（索引文件被删除或替换时）
+     */
+    private void closeDetails() {
+        synchronized (detailLock) {
+            if (detailChannel != null) {
+                try {
+                    detailChannel.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing commit index: " + e.getMessage());
+                }
+                detailChannel = null;
+            }
+        }
+    }
+
+    /**
+     * 需要索引的分支头：HEAD 和所有本地分支
+     */
+    private static Set<ObjectId> readTips(Repository repository) throws IOException {
+        Set<ObjectId> tips = new LinkedHashSet<>();
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if (head != null) {
+            tips.add(head.copy());
+        }
+        for (Ref ref : repository.getRefDatabase().getRefsByPrefix(Constants.R_HEADS)) {
+            if (ref.getObjectId() != null) {
+                tips.add(ref.getObjectId().copy());
+            }
+        }
+        return tips;
+    }
+
+    private static Entry toEntry(RevCommit commit, List<GitInfoExtractor.ChangedFile> changedFiles) {
+        Entry entry = new Entry();
+        entry.id = commit.copy();
+        entry.parents = new ObjectId[commit.getParentCount()];
+        for (int i = 0; i < commit.getParentCount(); i++) {
+            entry.parents[i] = commit.getParent(i).copy();
+        }
+        entry.author = commit.getAuthorIdent().getName();
+        entry.email = commit.getAuthorIdent().getEmailAddress();
+        entry.commitTime = commit.getCommitTime() * 1000L;
+        entry.subject = commit.getShortMessage();
+        entry.message = commit.getFullMessage();
+        entry.changedFiles = changedFiles;
+        return entry;
+    }
+
+    private static void writeEntry(DataOutputStream out, Entry entry, long base) throws IOException {
+        int start = out.size();
+        entry.id.copyRawTo(out);
+        out.writeByte(entry.parents.length);
+        for (ObjectId parent : entry.parents) {
+            parent.copyRawTo(out);
+        }
+        writeString(out, entry.author);
+        writeString(out, entry.email);
+        out.writeLong(entry.commitTime);
+        writeString(out, entry.subject);
+        entry.detailOffset = base + out.size();
+        writeString(out, entry.message);
+        out.writeInt(entry.changedFiles.size());
+        for (GitInfoExtractor.ChangedFile file : entry.changedFiles) {
+            out.writeByte(file.getChangeType().ordinal());
+            writeString(out, file.getOldPath());
+            writeString(out, file.getNewPath());
+        }
+        entry.recordLength = out.size() - start;
+    }
+
+    /**
+     * 读取提交记录，完整提交信息和修改文件只记录位置并跳过
+     * @param recordOffset 记录内容在文件中的起始位置
+     */
+    private static Entry readEntry(DataInputStream in, long recordOffset) throws IOException {
+        CountingInput counter = new CountingInput(in);
+        Entry entry = new Entry();
+        entry.id = counter.readObjectId();
+        int parentCount = counter.readUnsignedByte();
+        entry.parents = new ObjectId[parentCount];
+        for (int i = 0; i < parentCount; i++) {
+            entry.parents[i] = counter.readObjectId();
+        }
+        entry.author = counter.readString();
+        entry.email = counter.readString();
+        entry.commitTime = counter.readLong();
+        entry.subject = counter.readString();
+        entry.detailOffset = recordOffset + counter.count;
+        counter.skipString();
+        int fileCount = counter.readInt();
+        for (int i = 0; i < fileCount; i++) {
+            counter.readUnsignedByte();
+            counter.skipString();
+            counter.skipString();
+        }
+        entry.recordLength = counter.count;
+        return entry;
+    }
+
+    private static List<GitInfoExtractor.ChangedFile> readChangedFiles(CountingInput in) throws IOException {
+        int fileCount = in.readInt();
+        List<GitInfoExtractor.ChangedFile> changedFiles = new ArrayList<>(fileCount);
+        DiffEntry.ChangeType[] types = DiffEntry.ChangeType.values();
+        for (int i = 0; i < fileCount; i++) {
+            DiffEntry.ChangeType type = types[in.readUnsignedByte()];
+            String oldPath = in.readString();
+            String newPath = in.readString();
+            changedFiles.add(new GitInfoExtractor.ChangedFile(type, oldPath, newPath));
+        }
+        return changedFiles;
+    }
+
+    private static Set<ObjectId> readTipsRecord(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        Set<ObjectId> tips = new LinkedHashSet<>();
+        byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+        for (int i = 0; i < count; i++) {
+            in.readFully(raw);
+            tips.add(ObjectId.fromRaw(raw));
+        }
+        return tips;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String keyOf(File repoDirectory) {
+        return repoDirectory.getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    /**
+     * 索引文件名：目录名加上完整路径的哈希，避免不同位置的同名仓库冲突
+     */
+    private static File indexFileFor(File repoDirectory) {
+        String path = keyOf(repoDirectory);
+        String hash = ObjectId.zeroId().getName();
+        try {
+            java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-1");
+            hash = ObjectId.fromRaw(digest.digest(path.getBytes(StandardCharsets.UTF_8))).getName();
+        } catch (java.security.NoSuchAlgorithmException e) {
+            // SHA-1 在所有 JRE 中都可用
+        }
+        String name = repoDirectory.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+        return new File(INDEX_DIR, name + "-" + hash.substring(0, 16) + ".idx");
+    }
+
+    /**
+     * 读取或写入中的一条提交记录，加入 store 后不再保留
+     */
+    private static class Entry {
+        ObjectId id;
+        ObjectId[] parents;
+        String author;
+        String email;
+        long commitTime;
+        String subject;
+        // 以下两项只在新建记录时填充
+        String message;
+        List<GitInfoExtractor.ChangedFile> changedFiles;
+        // 完整提交信息在索引文件中的位置
+        long detailOffset;
+        int recordLength;
+    }
+
+    /**
+     * 统计读取字节数的辅助类，用于计算记录长度以便截断损坏的尾部
+     */
+    private static class CountingInput {
+        private final DataInputStream in;
+        int count;
+
+        CountingInput(DataInputStream in) {
+            this.in = in;
+        }
+
+        ObjectId readObjectId() throws IOException {
+            byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+            in.readFully(raw);
+            count += raw.length;
+            return ObjectId.fromRaw(raw);
+        }
+
+        int readUnsignedByte() throws IOException {
+            count += 1;
+            return in.readUnsignedByte();
+        }
+
+        int readInt() throws IOException {
+            count += 4;
+            return in.readInt();
+        }
+
+        long readLong() throws IOException {
+            count += 8;
+            return in.readLong();
+        }
+
+        String readString() throws IOException {
+            int length = in.readInt();
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            count += 4 + length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void skipString() throws IOException {
+            int length = in.readInt();
+            if (in.skipBytes(length) != length) {
+                throw new EOFException();
+            }
+            count += 4 + length;
+        }
+    }
+}
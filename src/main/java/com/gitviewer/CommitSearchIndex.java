@@ -0,0 +1,333 @@
+package com.gitviewer;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 工作区级别的提交全文倒排索引
+ * 覆盖工作区下所有仓库的提交信息，数据来自各仓库的 {@link CommitIndex}，
+ * 每次查询前只追加新增的提交。
+ *
+ * 匹配规则与逐个扫描提交时相同：提交信息（忽略大小写）包含整个关键词才算命中。
+ * 索引只用于缩小候选范围，候选提交最后都会按原文校验：
+ *   英文/数字按单词建索引，关键词中的每个单词必须是某个索引词的子串
+ *   中日韩文字按单字和二元组（bigram）建索引，关键词中的单字和二元组必须全部命中
+ */
+public class CommitSearchIndex {
+
+    // 按工作区根目录共享索引
+    private static final Map<String, CommitSearchIndex> workspaces = new HashMap<>();
+
+    private final Map<String, RepoState> repos = new HashMap<>();
+    private final List<RepoState> repoSlots = new ArrayList<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    // 文档（提交）所在的仓库和在 CommitIndex 中的位置
+    private int[] docRepo = new int[1024];
+    private int[] docPosition = new int[1024];
+    private int docCount;
+
+    private CommitSearchIndex() {
+    }
+
+    /**
+     * 获取工作区的搜索索引
+     */
+    public static CommitSearchIndex forWorkspace(File rootDirectory) {
+        synchronized (workspaces) {
+            return workspaces.computeIfAbsent(key(rootDirectory), k -> new CommitSearchIndex());
+        }
+    }
+
+    /**
+     * 搜索指定仓库的提交
+     * @param repoDirectories 要搜索的仓库
+     * @param queryText 关键词，按子串匹配提交信息（忽略大小写）
+     * @param since 开始时间（毫秒，可以为null）
+     * @param until 结束时间（毫秒，可以为null）
+     * @param progress 进度信息回调（可以为null）
+     * @return 按仓库顺序、提交时间从新到旧排列的结果，只包含当前 HEAD 可达的提交
+     */
+    public synchronized List<Hit> search(List<File> repoDirectories, String queryText, Long since, Long until,
+                                         Consumer<String> progress) throws IOException {
+        String keyword = queryText == null ? "" : queryText.trim().toLowerCase(Locale.ROOT);
+        List<Hit> hits = new ArrayList<>();
+
+        // 各仓库的提交索引相互独立，先并行刷新，下面的更新只需读取内存中的新增提交
+        try {
+            MultiRepoExecutor.run(repoDirectories, null, (repoDirectory, token) -> {
+                CommitIndex index = CommitIndex.getOrCreate(repoDirectory);
+                if (progress != null && !index.exists()) {
+                    progress.accept("  Indexing full history of " + repoDirectory.getName() + "...");
+                }
+                return index.refresh();
+            }, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while refreshing commit indexes", e);
+        }
+
+        // 先增量更新索引，并记录每个仓库 HEAD 可达的提交
+        Map<Integer, BitSet> reachable = new HashMap<>();
+        Map<Integer, Integer> repoOrder = new HashMap<>();
+        for (File repoDirectory : repoDirectories) {
+            RepoState state = update(repoDirectory);
+            repoOrder.put(state.slot, repoOrder.size());
+            ObjectId head;
+            try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(repoDirectory)) {
+                head = handle.getRepository().resolve(Constants.HEAD);
+            }
+            reachable.put(state.slot, state.index.reachableFrom(head));
+        }
+        if (keyword.isEmpty()) {
+            return hits;
+        }
+
+        BitSet candidates = candidates(keyword);
+        for (int doc = candidates.nextSetBit(0); doc >= 0; doc = candidates.nextSetBit(doc + 1)) {
+            BitSet repoReachable = reachable.get(docRepo[doc]);
+            if (repoReachable == null || !repoReachable.get(docPosition[doc])) {
+                continue;
+            }
+            RepoState state = repoSlots.get(docRepo[doc]);
+            GitInfoExtractor.GitCommitInfo commit = state.index.get(docPosition[doc]);
+            if (since != null && commit.getCommitTime() < since) {
+                continue;
+            }
+            if (until != null && commit.getCommitTime() > until) {
+                continue;
+            }
+            // 索引只保证各个分词出现过，还要确认关键词作为整体出现在提交信息中
+            if (commit.getMessage() == null || !commit.getMessage().toLowerCase(Locale.ROOT).contains(keyword)) {
+                continue;
+            }
+            hits.add(new Hit(state.directory, commit, repoOrder.get(docRepo[doc])));
+        }
+
+        hits.sort((a, b) -> {
+            if (a.repoOrder != b.repoOrder) {
+                return Integer.compare(a.repoOrder, b.repoOrder);
+            }
+            return Long.compare(b.commit.getCommitTime(), a.commit.getCommitTime());
+        });
+        return hits;
+    }
+
+    /**
+     * 将仓库新增的提交加入索引
+     */
+    private RepoState update(File repoDirectory) {
+        String key = key(repoDirectory);
+        RepoState state = repos.get(key);
+        if (state == null) {
+            state = new RepoState(repoSlots.size(), repoDirectory, CommitIndex.getOrCreate(repoDirectory));
+            repos.put(key, state);
+            repoSlots.add(state);
+        }
+
+        // CommitIndex 已在 search 中刷新过，这里只读取新增的提交
+        List<GitInfoExtractor.GitCommitInfo> added = state.index.entriesFrom(state.indexedCount);
+        for (GitInfoExtractor.GitCommitInfo commit : added) {
+            int doc = addDocument(state.slot, state.indexedCount++);
+            Set<String> tokens = new HashSet<>();
+            tokenize(commit.getMessage(), true, tokens::add);
+            for (String token : tokens) {
+                postings.computeIfAbsent(token, k -> new Postings()).add(doc);
+            }
+        }
+        return state;
+    }
+
+    private int addDocument(int slot, int position) {
+        if (docCount == docRepo.length) {
+            docRepo = Arrays.copyOf(docRepo, docCount * 2);
+            docPosition = Arrays.copyOf(docPosition, docCount * 2);
+        }
+        docRepo[docCount] = slot;
+        docPosition[docCount] = position;
+        return docCount++;
+    }
+
+    private static String key(File repoDirectory) {
+        return repoDirectory.getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    /**
+     * 找出可能包含关键词的文档：关键词中的每个分词都要在文档中出现
+     * 英文单词可能只是提交信息中某个单词的一部分，因此按子串查找索引词
+     */
+    private BitSet candidates(String keyword) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(keyword, false, tokens::add);
+
+        BitSet result = null;
+        for (String token : tokens) {
+            BitSet docs = new BitSet(docCount);
+            if (isCjkToken(token)) {
+                addDocs(postings.get(token), docs);
+            } else {
+                for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                    if (entry.getKey().contains(token)) {
+                        addDocs(entry.getValue(), docs);
+                    }
+                }
+            }
+            if (result == null) {
+                result = docs;
+            } else {
+                result.and(docs);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        if (result == null) {
+            // 关键词中没有可以索引的字符（只有标点等），只能逐个校验
+            result = new BitSet(docCount);
+            result.set(0, docCount);
+        }
+        return result;
+    }
+
+    private static void addDocs(Postings list, BitSet docs) {
+        if (list == null) {
+            return;
+        }
+        for (int i = 0; i < list.size; i++) {
+            docs.set(list.docs[i]);
+        }
+    }
+
+    /**
+     * 分词
+     * @param text 文本
+     * @param forIndex 建索引时中文同时输出单字和二元组；查询时只有单字才输出单字
+     * @param consumer 接收分词结果
+     */
+    static void tokenize(String text, boolean forIndex, Consumer<String> consumer) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        StringBuilder word = new StringBuilder();
+        List<String> cjkRun = new ArrayList<>();
+
+        int i = 0;
+        while (i < lower.length()) {
+            int codePoint = lower.codePointAt(i);
+            i += Character.charCount(codePoint);
+
+            if (isCjk(codePoint)) {
+                flushWord(word, consumer);
+                cjkRun.add(new String(Character.toChars(codePoint)));
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                flushCjk(cjkRun, forIndex, consumer);
+                word.appendCodePoint(codePoint);
+            } else {
+                flushWord(word, consumer);
+                flushCjk(cjkRun, forIndex, consumer);
+            }
+        }
+        flushWord(word, consumer);
+        flushCjk(cjkRun, forIndex, consumer);
+    }
+
+    private static void flushWord(StringBuilder word, Consumer<String> consumer) {
+        if (word.length() > 0) {
+            consumer.accept(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushCjk(List<String> run, boolean forIndex, Consumer<String> consumer) {
+        if (run.isEmpty()) {
+            return;
+        }
+        if (forIndex || run.size() == 1) {
+            for (String character : run) {
+                consumer.accept(character);
+            }
+        }
+        for (int i = 0; i + 1 < run.size(); i++) {
+            consumer.accept(run.get(i) + run.get(i + 1));
+        }
+        run.clear();
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static boolean isCjkToken(String token) {
+        return isCjk(token.codePointAt(0));
+    }
+
+    /**
+     * 搜索结果
+     */
+    public static class Hit {
+        private final File repoDirectory;
+        private final GitInfoExtractor.GitCommitInfo commit;
+        // 仓库在本次查询中的顺序，用于排序
+        private final int repoOrder;
+
+        Hit(File repoDirectory, GitInfoExtractor.GitCommitInfo commit, int repoOrder) {
+            this.repoDirectory = repoDirectory;
+            this.commit = commit;
+            this.repoOrder = repoOrder;
+        }
+
+        public File getRepoDirectory() {
+            return repoDirectory;
+        }
+
+        public GitInfoExtractor.GitCommitInfo getCommit() {
+            return commit;
+        }
+    }
+
+    private static class RepoState {
+        final int slot;
+        final File directory;
+        final CommitIndex index;
+        int indexedCount;
+
+        RepoState(int slot, File directory, CommitIndex index) {
+            this.slot = slot;
+            this.directory = directory;
+            this.index = index;
+        }
+    }
+
+    /**
+     * 一个词的倒排列表，文档按加入顺序递增
+     */
+    private static class Postings {
+        int[] docs = new int[4];
+        int size;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.gitviewer;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.util.NB;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 紧凑的提交列表存储
+ * 按列保存提交：二进制ID、作者身份编号（相同的作者和邮箱只保存一份）、毫秒时间戳和 UTF-8 编码的标题，
+ * 完整提交信息和修改文件由 {@link DetailLoader} 按需读取，不常驻内存。
+ * {@link GitInfoExtractor.GitCommitInfo} 可以作为其中一条提交的视图使用。
+ */
+public class CommitStore {
+
+    private static final int ID_LENGTH = Constants.OBJECT_ID_LENGTH;
+
+    /**
+     * 按需读取完整提交信息和修改文件
+     */
+    public interface DetailLoader {
+        String loadMessage(long detailOffset) throws IOException;
+
+        List<GitInfoExtractor.ChangedFile> loadChangedFiles(long detailOffset) throws IOException;
+    }
+
+    private final DetailLoader loader;
+
+    private int size;
+    private byte[] ids = new byte[16 * ID_LENGTH];
+    private int[] identities = new int[16];
+    private long[] commitTimes = new long[16];
+    private long[] detailOffsets = new long[16];
+    private int[] subjectOffsets = new int[17];
+    private byte[] subjects = new byte[1024];
+
+    // 作者身份表
+    private final List<String> names = new ArrayList<>();
+    private final List<String> emails = new ArrayList<>();
+    private final Map<String, Integer> identityIndex = new HashMap<>();
+
+    // ID -> 位置 的开放寻址哈希表，保存 位置 + 1，0 表示空槽
+    private int[] table = new int[32];
+
+    public CommitStore(DetailLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * 追加一条提交
+     * @param detailOffset 交给 DetailLoader 读取完整信息的位置
+     * @return 提交在存储中的位置
+     */
+    public synchronized int add(AnyObjectId id, String author, String email, long commitTime,
+                                String subject, long detailOffset) {
+        if (size == commitTimes.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity * ID_LENGTH);
+            identities = Arrays.copyOf(identities, capacity);
+            commitTimes = Arrays.copyOf(commitTimes, capacity);
+            detailOffsets = Arrays.copyOf(detailOffsets, capacity);
+            subjectOffsets = Arrays.copyOf(subjectOffsets, capacity + 1);
+        }
+        int position = size;
+        id.copyRawTo(ids, position * ID_LENGTH);
+        identities[position] = identityOf(author, email);
+        commitTimes[position] = commitTime;
+        detailOffsets[position] = detailOffset;
+
+        byte[] subjectBytes = (subject != null ? subject : "").getBytes(StandardCharsets.UTF_8);
+        int start = subjectOffsets[position];
+        if (start + subjectBytes.length > subjects.length) {
+            subjects = Arrays.copyOf(subjects, Math.max(subjects.length * 2, start + subjectBytes.length));
+        }
+        System.arraycopy(subjectBytes, 0, subjects, start, subjectBytes.length);
+        subjectOffsets[position + 1] = start + subjectBytes.length;
+
+        size++;
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        } else {
+            insert(position);
+        }
+        return position;
+    }
+
+    /**
+     * 查找提交的位置，不存在时返回 -1
+     */
+    public synchronized int find(AnyObjectId id) {
+        int mask = table.length - 1;
+        for (int slot = id.hashCode() & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int position = table[slot] - 1;
+            if (id.compareTo(ids, position * ID_LENGTH) == 0) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized ObjectId getId(int position) {
+        return ObjectId.fromRaw(ids, position * ID_LENGTH);
+    }
+
+    public String getCommitId(int position) {
+        return getId(position).getName();
+    }
+
+    public synchronized String getAuthor(int position) {
+        return names.get(identities[position]);
+    }
+
+    public synchronized String getEmail(int position) {
+        return emails.get(identities[position]);
+    }
+
+    public synchronized long getCommitTime(int position) {
+        return commitTimes[position];
+    }
+
+    /**
+     * 提交标题，即 RevCommit.getShortMessage()
+     */
+    public synchronized String getSubject(int position) {
+        int start = subjectOffsets[position];
+        return new String(subjects, start, subjectOffsets[position + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 完整提交信息，每次调用都从 DetailLoader 读取，读取失败时返回标题
+     */
+    public String getMessage(int position) {
+        long offset;
+        synchronized (this) {
+            offset = detailOffsets[position];
+        }
+        try {
+            return loader.loadMessage(offset);
+        } catch (IOException e) {
+            System.err.println("Error reading commit message: " + e.getMessage());
+            return getSubject(position);
+        }
+    }
+
+    public List<GitInfoExtractor.ChangedFile> getChangedFiles(int position) {
+        long offset;
+        synchronized (this) {
+            offset = detailOffsets[position];
+        }
+        try {
+            return loader.loadChangedFiles(offset);
+        } catch (IOException e) {
+            System.err.println("Error reading changed files: " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 以 GitCommitInfo 的形式访问指定位置的提交（不复制数据）
+     */
+    public GitInfoExtractor.GitCommitInfo view(int position) {
+        return new GitInfoExtractor.GitCommitInfo(this, position);
+    }
+
+    private int identityOf(String author, String email) {
+        String key = author + '\n' + email;
+        Integer identity = identityIndex.get(key);
+        if (identity == null) {
+            identity = names.size();
+            names.add(author);
+            emails.add(email);
+            identityIndex.put(key, identity);
+        }
+        return identity;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int position = 0; position < size; position++) {
+            insert(position);
+        }
+    }
+
+    private void insert(int position) {
+        int mask = table.length - 1;
+        // 与 AnyObjectId.hashCode() 相同，取ID的第5到第8个字节
+        int slot = NB.decodeInt32(ids, position * ID_LENGTH + 4) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = position + 1;
+    }
+}
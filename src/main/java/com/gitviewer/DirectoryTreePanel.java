@@ -281,6 +281,13 @@ public class DirectoryTreePanel extends JPanel {
     public void setRootDirectory(File directory) {
         this.rootDirectory = directory;
 
+        // 记住根目录，下次启动时恢复
+        AppSettings settings = AppSettings.getInstance();
+        if (!directory.getAbsolutePath().equals(settings.getLastRootDirectory())) {
+            settings.setLastRootDirectory(directory.getAbsolutePath());
+            settings.saveSettings();
+        }
+
         // 更新路径文本框
         if (pathTextField != null) {
             pathTextField.setText(directory.getAbsolutePath());
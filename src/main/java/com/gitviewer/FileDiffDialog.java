@@ -1,5 +1,8 @@
 package com.gitviewer;
 
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.Edit;
+
 import javax.swing.*;
 import javax.swing.text.*;
 import java.awt.*;
@@ -165,21 +168,14 @@ public class FileDiffDialog extends JDialog {
                 DiffResult result = new DiffResult();
                 
                 // 加载diff
-                String diff = GitInfoExtractor.getFileDiff(repoDirectory, null, commitId, filePath);
-                result.diffData = parseDiff(diff);
+                GitInfoExtractor.FileDiff diff = GitInfoExtractor.getFileDiff(repoDirectory, null, commitId, filePath);
+                result.diffData = buildDiffData(diff);
                 
                 // 加载commit信息
-                try {
-                    List<GitInfoExtractor.GitCommitInfo> commits = GitInfoExtractor.getRecentCommits(repoDirectory, 1000);
-                    for (GitInfoExtractor.GitCommitInfo commit : commits) {
-                        if (commit.getCommitId().equals(commitId)) {
-                            result.author = commit.getAuthor();
-                            result.commitTime = new java.util.Date(commit.getCommitTime());
-                            break;
-                        }
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
+                GitInfoExtractor.GitCommitInfo commit = GitInfoExtractor.getCommitInfo(repoDirectory, commitId);
+                if (commit != null) {
+                    result.author = commit.getAuthor();
+                    result.commitTime = new java.util.Date(commit.getCommitTime());
                 }
                 
                 return result;
@@ -199,7 +195,10 @@ public class FileDiffDialog extends JDialog {
                     }
                     if (result.commitTime != null) {
                         java.text.SimpleDateFormat dateFormat = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                        info.append("<b>Time:</b> ").append(dateFormat.format(result.commitTime));
+                        info.append("<b>Time:</b> ").append(dateFormat.format(result.commitTime)).append("<br>");
+                    }
+                    if (result.diffData.summary != null) {
+                        info.append("<b>Diff:</b> ").append(result.diffData.summary);
                     }
                     info.append("</html>");
                     fileInfoLabel.setText(info.toString());
@@ -223,101 +222,81 @@ public class FileDiffDialog extends JDialog {
         java.util.Date commitTime;
     }
     
-    private DiffData parseDiff(String diff) {
+    /**
+     * 按 hunk 生成左右两侧对齐的行，行首显示行号，hunk 之间插入 hunk 头
+     */
+    private DiffData buildDiffData(GitInfoExtractor.FileDiff diff) {
         DiffData data = new DiffData();
-        if (diff == null || diff.isEmpty()) {
+        if (diff == null) {
             return data;
         }
-        
-        String[] lines = diff.split("\n");
-        List<String> beforeLines = new ArrayList<>();
-        List<String> afterLines = new ArrayList<>();
-        List<LineType> beforeTypes = new ArrayList<>();
-        List<LineType> afterTypes = new ArrayList<>();
-        
-        // 临时存储连续的删除和添加行
-        List<String> pendingRemovals = new ArrayList<>();
-        List<String> pendingAdditions = new ArrayList<>();
-        
-        for (String line : lines) {
-            if (line.startsWith("@@")) {
-                // 跳过hunk头
-                continue;
-            } else if (line.startsWith("---") || line.startsWith("+++")) {
-                // 跳过文件头
-                continue;
-            } else if (line.startsWith("diff --git")) {
-                // 跳过diff头
-                continue;
-            } else if (line.startsWith("-")) {
-                // 删除的行 - 暂存
-                pendingRemovals.add(line.substring(1));
-            } else if (line.startsWith("+")) {
-                // 添加的行 - 暂存
-                pendingAdditions.add(line.substring(1));
-            } else {
-                // 未改变的行 - 先处理之前暂存的删除和添加
-                processPendingChanges(beforeLines, afterLines, beforeTypes, afterTypes, 
-                                     pendingRemovals, pendingAdditions);
-                
-                // 添加未改变的行
-                String content = line.startsWith(" ") ? line.substring(1) : line;
-                beforeLines.add(content);
-                afterLines.add(content);
-                beforeTypes.add(LineType.UNCHANGED);
-                afterTypes.add(LineType.UNCHANGED);
-            }
+        if (diff.isBinary()) {
+            data.summary = "binary file";
+            addLine(data.beforeLines, data.beforeTypes, "Binary file or file too large, content not shown.", LineType.HUNK);
+            addLine(data.afterLines, data.afterTypes, "Binary file or file too large, content not shown.", LineType.HUNK);
+            return data;
         }
-        
-        // 处理最后剩余的删除和添加
-        processPendingChanges(beforeLines, afterLines, beforeTypes, afterTypes, 
-                             pendingRemovals, pendingAdditions);
-        
-        data.beforeLines = beforeLines;
-        data.afterLines = afterLines;
-        data.beforeTypes = beforeTypes;
-        data.afterTypes = afterTypes;
-        
-        return data;
-    }
-    
-    /**
-     * 处理暂存的删除和添加行，确保左右对齐
-     */
-    private void processPendingChanges(List<String> beforeLines, List<String> afterLines,
-                                      List<LineType> beforeTypes, List<LineType> afterTypes,
-                                      List<String> pendingRemovals, List<String> pendingAdditions) {
-        if (pendingRemovals.isEmpty() && pendingAdditions.isEmpty()) {
-            return;
+
+        StringBuilder summary = new StringBuilder(diff.getAlgorithm().name().toLowerCase());
+        summary.append(", ").append(diff.getHunks().size()).append(diff.getHunks().size() == 1 ? " hunk" : " hunks");
+        if (diff.getChangeType() == DiffEntry.ChangeType.RENAME || diff.getChangeType() == DiffEntry.ChangeType.COPY) {
+            summary.append(", ").append(diff.getChangeType().name().toLowerCase())
+                   .append(" from ").append(diff.getOldPath());
         }
-        
-        int maxLines = Math.max(pendingRemovals.size(), pendingAdditions.size());
-        
-        for (int i = 0; i < maxLines; i++) {
-            // 左侧（删除的行）
-            if (i < pendingRemovals.size()) {
-                beforeLines.add(pendingRemovals.get(i));
-                beforeTypes.add(LineType.REMOVED);
-            } else {
-                // 右侧有新增但左侧没有对应删除，添加空行
-                beforeLines.add("");
-                beforeTypes.add(LineType.EMPTY);
+        data.summary = summary.toString();
+
+        for (GitInfoExtractor.DiffHunk hunk : diff.getHunks()) {
+            addLine(data.beforeLines, data.beforeTypes, hunk.toString(), LineType.HUNK);
+            addLine(data.afterLines, data.afterTypes, hunk.toString(), LineType.HUNK);
+
+            int oldLine = hunk.getOldStart();
+            int newLine = hunk.getNewStart();
+            for (Edit edit : hunk.getEdits()) {
+                // 编辑之前的上下文
+                while (oldLine < edit.getBeginA()) {
+                    addUnchanged(data, diff, oldLine++, newLine++);
+                }
+
+                // 删除和新增的行并排显示，较短的一侧补空行
+                int removed = edit.getLengthA();
+                int added = edit.getLengthB();
+                for (int i = 0; i < Math.max(removed, added); i++) {
+                    if (i < removed) {
+                        int line = edit.getBeginA() + i;
+                        addLine(data.beforeLines, data.beforeTypes, numbered(line, diff.getOldLine(line)), LineType.REMOVED);
+                    } else {
+                        addLine(data.beforeLines, data.beforeTypes, "", LineType.EMPTY);
+                    }
+                    if (i < added) {
+                        int line = edit.getBeginB() + i;
+                        addLine(data.afterLines, data.afterTypes, numbered(line, diff.getNewLine(line)), LineType.ADDED);
+                    } else {
+                        addLine(data.afterLines, data.afterTypes, "", LineType.EMPTY);
+                    }
+                }
+                oldLine = edit.getEndA();
+                newLine = edit.getEndB();
             }
-            
-            // 右侧（添加的行）
-            if (i < pendingAdditions.size()) {
-                afterLines.add(pendingAdditions.get(i));
-                afterTypes.add(LineType.ADDED);
-            } else {
-                // 左侧有删除但右侧没有对应添加，添加空行
-                afterLines.add("");
-                afterTypes.add(LineType.EMPTY);
+            // hunk 末尾的上下文
+            while (oldLine < hunk.getOldEnd()) {
+                addUnchanged(data, diff, oldLine++, newLine++);
             }
         }
-        
-        // 清空暂存列表
-        pendingRemovals.clear();
-        pendingAdditions.clear();
+        return data;
+    }
+
+    private void addUnchanged(DiffData data, GitInfoExtractor.FileDiff diff, int oldLine, int newLine) {
+        addLine(data.beforeLines, data.beforeTypes, numbered(oldLine, diff.getOldLine(oldLine)), LineType.UNCHANGED);
+        addLine(data.afterLines, data.afterTypes, numbered(newLine, diff.getNewLine(newLine)), LineType.UNCHANGED);
+    }
+
+    private static void addLine(List<String> lines, List<LineType> types, String line, LineType type) {
+        lines.add(line);
+        types.add(type);
+    }
+
+    private static String numbered(int line, String content) {
+        return String.format("%5d  %s", line + 1, content);
     }
     
     private void displayDiff(DiffData data) {
@@ -358,6 +337,10 @@ public class FileDiffDialog extends JDialog {
                         // 空行使用浅灰色背景
                         StyleConstants.setBackground(attrs, new Color(245, 245, 245));
                         break;
+                    case HUNK:
+                        StyleConstants.setBackground(attrs, HEADER_BG_COLOR);
+                        StyleConstants.setForeground(attrs, new Color(95, 99, 104));
+                        break;
                 }
                 
                 doc.insertString(doc.getLength(), line + "\n", attrs);
@@ -370,7 +353,7 @@ public class FileDiffDialog extends JDialog {
     }
     
     private enum LineType {
-        ADDED, REMOVED, UNCHANGED, EMPTY
+        ADDED, REMOVED, UNCHANGED, EMPTY, HUNK
     }
     
     private static class DiffData {
@@ -378,5 +361,6 @@ public class FileDiffDialog extends JDialog {
         List<String> afterLines = new ArrayList<>();
         List<LineType> beforeTypes = new ArrayList<>();
         List<LineType> afterTypes = new ArrayList<>();
+        String summary;
     }
 }
@@ -1,28 +1,43 @@
 package com.gitviewer;
 
-import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.errors.LargeObjectException;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
-import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.diff.DiffAlgorithm;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.RawText;
 import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.diff.RenameDetector;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
-
-import java.io.ByteArrayOutputStream;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * Git信息提取工具类
@@ -30,264 +45,352 @@ import java.util.Map;
  */
 public class GitInfoExtractor {
 
+    // 超过该大小的文件不做行级差异
+    private static final int MAX_DIFF_FILE_SIZE = 20 * 1024 * 1024;
+
+    // 最近按ID查询过的提交头信息（提交不可变，无需失效）
+    private static final int COMMIT_INFO_CACHE_SIZE = 256;
+    private static final Map<String, GitCommitInfo> commitInfoCache =
+            new LinkedHashMap<String, GitCommitInfo>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, GitCommitInfo> eldest) {
+                    return size() > COMMIT_INFO_CACHE_SIZE;
+                }
+            };
+
     /**
      * 检查指定目录是否是Git仓库
+     * .git 可以是目录，也可以是子模块使用的 .git 文件；JGit 无法读取的链接工作树（git worktree add）不算
      */
     public static boolean isGitRepository(File directory) {
         if (directory == null || !directory.isDirectory()) {
             return false;
         }
         File gitDir = new File(directory, ".git");
-        return gitDir.exists();
+        return gitDir.isDirectory() || (gitDir.isFile() && !GitRepositoryCache.isLinkedWorktree(directory));
     }
 
     /**
      * 获取Git仓库信息
      */
     public static GitRepositoryInfo getRepositoryInfo(File directory) {
-        if (!isGitRepository(directory)) {
+        RepositorySummary summary = RepositorySummary.read(directory,
+                RepositorySummary.Field.REMOTES, RepositorySummary.Field.CURRENT_BRANCH,
+                RepositorySummary.Field.LOCAL_BRANCHES, RepositorySummary.Field.LAST_COMMIT);
+        if (summary == null) {
             return null;
         }
 
-        try {
-            FileRepositoryBuilder builder = new FileRepositoryBuilder();
-            Repository repository = builder
-                    .setGitDir(new File(directory, ".git"))
-                    .readEnvironment()
-                    .findGitDir()
-                    .build();
-
-            GitRepositoryInfo info = new GitRepositoryInfo();
-            info.setPath(directory.getAbsolutePath());
+        GitRepositoryInfo info = new GitRepositoryInfo();
+        info.setPath(summary.getPath());
 
-            // 获取remote信息
-            List<String> remotes = getRemoteUrls(repository);
-            info.setRemoteUrls(remotes);
+        List<String> remotes = new ArrayList<>();
+        for (Map.Entry<String, String> remote : summary.getRemotes().entrySet()) {
+            remotes.add(remote.getKey() + " : " + remote.getValue());
+        }
+        info.setRemoteUrls(remotes);
+        info.setCurrentBranch(summary.getCurrentBranch());
 
-            // 获取当前分支
-            String currentBranch = getCurrentBranch(repository);
-            info.setCurrentBranch(currentBranch);
+        List<String> branches = new ArrayList<>();
+        for (String branch : summary.getLocalBranches()) {
+            branches.add(Constants.R_HEADS + branch);
+        }
+        info.setBranches(branches);
+        info.setLastCommit(summary.getLastCommit());
+        return info;
+    }
 
-            // 获取所有分支
-            List<String> branches = getAllBranches(repository);
-            info.setBranches(branches);
+    /**
+     * 获取指定提交修改的文件列表
+     */
+    public static List<String> getCommitFiles(File directory, String commitId) {
+        if (!isGitRepository(directory)) {
+            return new ArrayList<>();
+        }
 
-            // 获取最后提交信息
-            GitCommitInfo lastCommit = getLastCommitInfo(repository);
-            info.setLastCommit(lastCommit);
+        List<String> files = new ArrayList<>();
 
-            repository.close();
-            return info;
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory);
+             ObjectReader reader = handle.getRepository().newObjectReader();
+             RevWalk revWalk = new RevWalk(reader);
+             ChangeCollector collector = new ChangeCollector(handle.getRepository(), reader)) {
+            RevCommit commit = revWalk.parseCommit(ObjectId.fromString(commitId));
+            for (ChangedFile changedFile : collector.collect(revWalk, commit)) {
+                files.add(changedFile.toString());
+            }
+            return files;
 
         } catch (IOException e) {
-            System.err.println("Error reading git repository: " + e.getMessage());
-            return null;
+            System.err.println("Error reading commit files: " + e.getMessage());
+            e.printStackTrace();
+            return files;
         }
     }
 
     /**
-     * 获取所有remote URL
+     * 逐个接收提交的回调，返回 false 表示不再需要更多提交
+     * 回调在遍历线程中同步执行，处理完当前提交之前不会读取下一个提交
      */
-    private static List<String> getRemoteUrls(Repository repository) throws IOException {
-        List<String> urls = new ArrayList<>();
+    @FunctionalInterface
+    public interface CommitConsumer {
+        boolean accept(GitCommitInfo commit);
+    }
 
-        // 从config读取所有remote配置
-        org.eclipse.jgit.lib.Config config = repository.getConfig();
-        java.util.Set<String> remoteNames = config.getSubsections("remote");
+    /**
+     * 单次遍历获取最近N次提交记录及每个提交修改的文件
+     * @param directory Git仓库目录
+     * @param count 最多遍历的提交数量
+     * @param filter 提交过滤条件，只有通过的提交才计算修改文件（为null时接受所有提交）
+     * @return 通过过滤的提交列表，changedFiles 已填充
+     */
+    public static List<GitCommitInfo> getRecentCommitsWithFiles(File directory, int count,
+                                                                Predicate<GitCommitInfo> filter) {
+        List<GitCommitInfo> commits = new ArrayList<>();
+        streamCommitsWithFiles(directory, count, filter, null, commits::add);
+        return commits;
+    }
 
-        for (String remoteName : remoteNames) {
-            String remoteUrl = config.getString("remote", remoteName, "url");
-            if (remoteUrl != null && !remoteUrl.isEmpty()) {
-                urls.add(remoteName + " : " + remoteUrl);
-            }
-        }
+    /**
+     * 获取指定时间范围内的提交（包含修改文件）
+     * @param directory Git仓库目录
+     * @param since 开始时间（毫秒，0表示不限制）
+     * @param until 结束时间（毫秒，0表示不限制）
+     * @param limit 最多返回的提交数量
+     */
+    public static List<GitCommitInfo> getCommitsInDateRange(File directory, long since, long until, int limit) {
+        Predicate<GitCommitInfo> filter = info -> (since <= 0 || info.getCommitTime() >= since)
+                && (until <= 0 || info.getCommitTime() <= until);
+        return queryCommits(directory, filter, limit);
+    }
 
-        return urls;
+    /**
+     * 获取指定作者的提交（包含修改文件），按作者名或邮箱匹配，忽略大小写
+     * @param directory Git仓库目录
+     * @param author 作者名或邮箱
+     * @param limit 最多返回的提交数量
+     */
+    public static List<GitCommitInfo> getCommitsByAuthor(File directory, String author, int limit) {
+        Predicate<GitCommitInfo> filter = info -> author.equalsIgnoreCase(info.getAuthor())
+                || author.equalsIgnoreCase(info.getEmail());
+        return queryCommits(directory, filter, limit);
     }
 
     /**
-     * 获取当前分支
+     * 遍历 HEAD 的完整历史，返回通过过滤的提交（包含修改文件）
+     * @param directory Git仓库目录
+     * @param filter 提交过滤条件
+     * @param limit 最多返回的提交数量
      */
-    private static String getCurrentBranch(Repository repository) throws IOException {
-        String head = repository.getBranch();
-        return head != null ? head : "Unknown";
+    public static List<GitCommitInfo> queryCommits(File directory, Predicate<GitCommitInfo> filter, int limit) {
+        List<GitCommitInfo> commits = new ArrayList<>();
+        streamCommitsWithFiles(directory, Integer.MAX_VALUE, filter, null, commit -> {
+            commits.add(commit);
+            return commits.size() < limit;
+        });
+        return commits;
     }
 
     /**
-     * 获取所有分支
+     * 流式遍历 HEAD 的历史，逐个输出通过过滤的提交（包含修改文件）
+     * 已建立提交索引时直接从索引读取，否则只打开一次仓库，共享同一个 ObjectReader、TreeWalk 和 DiffFormatter
+     * @param directory Git仓库目录
+     * @param maxScanned 最多遍历的提交数量
+     * @param filter 提交过滤条件（可以为null）
+     * @param token 取消标记（可以为null）
+     * @param consumer 接收提交，返回 false 时停止遍历
      */
-    private static List<String> getAllBranches(Repository repository) throws IOException {
-        List<String> branches = new ArrayList<>();
-        Map<String, Ref> refs = repository.getRefDatabase().getRefs(Constants.R_HEADS);
+    public static void streamCommitsWithFiles(File directory, int maxScanned, Predicate<GitCommitInfo> filter,
+                                              CancellationToken token, CommitConsumer consumer) {
+        if (!isGitRepository(directory)) {
+            return;
+        }
+        if (!streamFromIndex(directory, filter, maxScanned, token, consumer)) {
+            walkHead(directory, true, filter, maxScanned, token, consumer);
+        }
+    }
 
-        for (Map.Entry<String, Ref> entry : refs.entrySet()) {
-            String branchName = entry.getKey();
-            if (!branchName.endsWith("HEAD")) {
-                branches.add(branchName);
-            }
+    /**
+     * 流式获取最近N次提交记录，提交一经读取就交给 consumer，不必等待整个遍历完成
+     * @param directory Git仓库目录
+     * @param count 最多获取的提交数量
+     * @param token 取消标记（可以为null）
+     * @param consumer 接收提交，返回 false 时停止遍历
+     */
+    public static void streamRecentCommits(File directory, int count, CancellationToken token,
+                                           CommitConsumer consumer) {
+        if (!isGitRepository(directory)) {
+            return;
+        }
+        if (!streamFromIndex(directory, null, count, token, consumer)) {
+            walkHead(directory, false, null, count, token, consumer);
+        }
+    }
+
+    /**
+     * 从提交索引遍历 HEAD 的历史
+     * 直接使用已有的索引，同时在后台刷新（或首次建立、加载）索引；
+     * 索引尚未建立或 HEAD 还不在索引中（例如刚提交或切换到新分支）时返回 false，由调用方直接遍历仓库
+     */
+    private static boolean streamFromIndex(File directory, Predicate<GitCommitInfo> filter, int maxScanned,
+                                           CancellationToken token, CommitConsumer consumer) {
+        CommitIndex index = CommitIndex.getIfBuilt(directory);
+        CommitIndex.buildInBackground(directory);
+        if (index == null) {
+            return false;
         }
 
-        return branches;
+        ObjectId head;
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory)) {
+            head = handle.getRepository().resolve(Constants.HEAD);
+        } catch (IOException e) {
+            System.err.println("Error reading commit index: " + e.getMessage());
+            return false;
+        }
+
+        return index.walkHistory(head, maxScanned, commit -> {
+            if (CancellationToken.isCancelled(token)) {
+                return false;
+            }
+            return (filter != null && !filter.test(commit)) || consumer.accept(commit);
+        });
     }
 
     /**
-     * 获取最后一次提交信息
+     * 直接遍历 HEAD 的历史
+     * @param withFiles 是否为通过过滤的提交计算修改文件
      */
-    private static GitCommitInfo getLastCommitInfo(Repository repository) throws IOException {
-        RevWalk revWalk = new RevWalk(repository);
-        try {
-            ObjectId head = repository.resolve(Constants.HEAD);
+    private static void walkHead(File directory, boolean withFiles, Predicate<GitCommitInfo> filter,
+                                 int maxScanned, CancellationToken token, CommitConsumer consumer) {
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory);
+             ObjectReader reader = handle.getRepository().newObjectReader();
+             RevWalk revWalk = new RevWalk(reader);
+             ChangeCollector collector = new ChangeCollector(handle.getRepository(), reader)) {
+            ObjectId head = handle.getRepository().resolve(Constants.HEAD);
             if (head == null) {
-                return null;
+                return;
             }
 
-            RevCommit commit = revWalk.parseCommit(head);
+            revWalk.markStart(revWalk.parseCommit(head));
 
-            GitCommitInfo info = new GitCommitInfo();
-            info.setMessage(commit.getFullMessage());
-            info.setAuthor(commit.getAuthorIdent().getName());
-            info.setEmail(commit.getAuthorIdent().getEmailAddress());
-            info.setCommitTime(commit.getCommitTime() * 1000L); // 转换为毫秒
-            info.setCommitId(commit.getName());
+            int scanned = 0;
+            for (RevCommit commit : revWalk) {
+                if (scanned >= maxScanned || CancellationToken.isCancelled(token)) {
+                    break;
+                }
+                scanned++;
 
-            return info;
-        } finally {
-            revWalk.close();
+                GitCommitInfo info = toCommitInfo(commit);
+                if (filter != null && !filter.test(info)) {
+                    continue;
+                }
+                if (withFiles) {
+                    info.setChangedFiles(collector.collect(revWalk, commit));
+                }
+                if (!consumer.accept(info)) {
+                    break;
+                }
+            }
+
+        } catch (IOException e) {
+            System.err.println("Error reading git commits: " + e.getMessage());
         }
     }
 
     /**
-     * 获取指定提交修改的文件列表
+     * 将 RevCommit 转换为提交信息对象
      */
-    public static List<String> getCommitFiles(File directory, String commitId) {
-        if (!isGitRepository(directory)) {
-            return new ArrayList<>();
-        }
+    static GitCommitInfo toCommitInfo(RevCommit commit) {
+        GitCommitInfo info = new GitCommitInfo();
+        info.setMessage(commit.getFullMessage());
+        info.setAuthor(commit.getAuthorIdent().getName());
+        info.setEmail(commit.getAuthorIdent().getEmailAddress());
+        info.setCommitTime(commit.getCommitTime() * 1000L); // 转换为毫秒
+        info.setCommitId(commit.getName());
+        return info;
+    }
 
-        List<String> files = new ArrayList<>();
+    /**
+     * 计算提交修改文件的工具，可在一次遍历中对多个提交重复使用
+     */
+    static class ChangeCollector implements AutoCloseable {
+        private final DiffFormatter formatter;
+        private final TreeWalk treeWalk;
 
-        try {
-            FileRepositoryBuilder builder = new FileRepositoryBuilder();
-            Repository repository = builder
-                    .setGitDir(new File(directory, ".git"))
-                    .readEnvironment()
-                    .findGitDir()
-                    .build();
+        ChangeCollector(Repository repository, ObjectReader reader) {
+            formatter = new DiffFormatter(DisabledOutputStream.INSTANCE);
+            formatter.setReader(reader, repository.getConfig());
+            formatter.setDiffComparator(RawTextComparator.DEFAULT);
+            formatter.setDetectRenames(true);
+            treeWalk = new TreeWalk(repository, reader);
+            treeWalk.setRecursive(true);
+        }
 
-            RevWalk revWalk = new RevWalk(repository);
-            try {
-                ObjectId commitIdObj = ObjectId.fromString(commitId);
-                RevCommit commit = revWalk.parseCommit(commitIdObj);
-
-                // 获取该提交的父提交
-                if (commit.getParentCount() > 0) {
-                    RevCommit parent = revWalk.parseCommit(commit.getParent(0));
-
-                    // 使用DiffFormatter获取文件变更
-                    ByteArrayOutputStream out = new ByteArrayOutputStream();
-                    DiffFormatter formatter = new DiffFormatter(out);
-                    formatter.setRepository(repository);
-                    formatter.setDiffComparator(RawTextComparator.DEFAULT);
-                    formatter.setDetectRenames(true);
-
-                    List<DiffEntry> diffs = formatter.scan(parent.getTree(), commit.getTree());
-
-                    for (DiffEntry diff : diffs) {
-                        String path;
-                        if (diff.getChangeType() == DiffEntry.ChangeType.ADD) {
-                            path = "[ADD] " + diff.getNewPath();
-                        } else if (diff.getChangeType() == DiffEntry.ChangeType.DELETE) {
-                            path = "[DELETE] " + diff.getOldPath();
-                        } else if (diff.getChangeType() == DiffEntry.ChangeType.RENAME) {
-                            path = "[RENAME] " + diff.getOldPath() + " -> " + diff.getNewPath();
-                        } else if (diff.getChangeType() == DiffEntry.ChangeType.MODIFY) {
-                            path = "[MODIFY] " + diff.getNewPath();
-                        } else if (diff.getChangeType() == DiffEntry.ChangeType.COPY) {
-                            path = "[COPY] " + diff.getOldPath() + " -> " + diff.getNewPath();
-                        } else {
-                            path = "[CHANGE] " + diff.getNewPath();
-                        }
-                        files.add(path);
-                    }
-
-                    formatter.close();
-                } else {
-                    // 初始提交，列出所有文件
-                    TreeWalk treeWalk = new TreeWalk(repository);
-                    treeWalk.addTree(commit.getTree());
-                    treeWalk.setRecursive(true);
-                    while (treeWalk.next()) {
-                        files.add("[ADD] " + treeWalk.getPathString());
-                    }
-                    treeWalk.close();
+        /**
+         * 获取提交相对于第一个父提交修改的文件，初始提交列出所有文件
+         */
+        List<ChangedFile> collect(RevWalk revWalk, RevCommit commit) throws IOException {
+            List<ChangedFile> files = new ArrayList<>();
+            if (commit.getParentCount() > 0) {
+                RevCommit parent = revWalk.parseCommit(commit.getParent(0));
+                for (DiffEntry diff : formatter.scan(parent.getTree(), commit.getTree())) {
+                    files.add(new ChangedFile(diff.getChangeType(), diff.getOldPath(), diff.getNewPath()));
+                }
+            } else {
+                treeWalk.reset(commit.getTree());
+                while (treeWalk.next()) {
+                    String path = treeWalk.getPathString();
+                    files.add(new ChangedFile(DiffEntry.ChangeType.ADD, DiffEntry.DEV_NULL, path));
                 }
-            } finally {
-                revWalk.close();
             }
-
-            repository.close();
             return files;
+        }
 
-        } catch (IOException e) {
-            System.err.println("Error reading commit files: " + e.getMessage());
-            e.printStackTrace();
-            return files;
+        @Override
+        public void close() {
+            formatter.close();
+            treeWalk.close();
         }
     }
 
     /**
-     * 获取最近N次提交记录
+     * 获取最近N次提交记录，已建立提交索引时直接从索引读取
      */
     public static List<GitCommitInfo> getRecentCommits(File directory, int count) {
-        if (!isGitRepository(directory)) {
-            return new ArrayList<>();
-        }
-
         List<GitCommitInfo> commits = new ArrayList<>();
+        streamRecentCommits(directory, count, null, commits::add);
+        return commits;
+    }
 
-        try {
-            FileRepositoryBuilder builder = new FileRepositoryBuilder();
-            Repository repository = builder
-                    .setGitDir(new File(directory, ".git"))
-                    .readEnvironment()
-                    .findGitDir()
-                    .build();
-
-            RevWalk revWalk = new RevWalk(repository);
-            try {
-                ObjectId head = repository.resolve(Constants.HEAD);
-                if (head == null) {
-                    return commits;
-                }
-
-                revWalk.markStart(revWalk.parseCommit(head));
-
-                int fetched = 0;
-                for (RevCommit commit : revWalk) {
-                    if (fetched >= count) {
-                        break;
-                    }
-
-                    GitCommitInfo info = new GitCommitInfo();
-                    info.setMessage(commit.getFullMessage());
-                    info.setAuthor(commit.getAuthorIdent().getName());
-                    info.setEmail(commit.getAuthorIdent().getEmailAddress());
-                    info.setCommitTime(commit.getCommitTime() * 1000L);
-                    info.setCommitId(commit.getName());
-
-                    commits.add(info);
-                    fetched++;
+    /**
+     * 按ID获取单个提交的信息，只解析这一个提交，不遍历历史
+     * @param directory Git仓库目录
+     * @param commitId 提交ID，可以是缩写
+     * @return 提交信息（不含修改文件），提交不存在时返回null
+     */
+    public static GitCommitInfo getCommitInfo(File directory, String commitId) {
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory);
+             RevWalk revWalk = new RevWalk(handle.getRepository())) {
+            ObjectId id = handle.getRepository().resolve(commitId);
+            if (id == null) {
+                return null;
+            }
+            // 缩写和完整ID指向同一个提交，缓存统一使用完整ID
+            String cacheKey = directory.getAbsolutePath() + ":" + id.getName();
+            synchronized (commitInfoCache) {
+                GitCommitInfo cached = commitInfoCache.get(cacheKey);
+                if (cached != null) {
+                    return cached.copy();
                 }
-            } finally {
-                revWalk.close();
             }
 
-            repository.close();
-            return commits;
-
-        } catch (IOException e) {
-            System.err.println("Error reading git commits: " + e.getMessage());
-            return commits;
+            GitCommitInfo info = toCommitInfo(revWalk.parseCommit(id));
+            synchronized (commitInfoCache) {
+                commitInfoCache.put(cacheKey, info);
+            }
+            return info.copy();
+        } catch (Exception e) {
+            System.err.println("Error reading commit " + commitId + ": " + e.getMessage());
+            return null;
         }
     }
 
@@ -300,41 +403,55 @@ public class GitInfoExtractor {
      */
     public static List<GitCommitInfo> getFileCommitHistory(File repoDirectory, String filePath, int count) {
         List<GitCommitInfo> commits = new ArrayList<>();
+        streamFileCommitHistory(repoDirectory, filePath, count, null, commits::add);
+        return commits;
+    }
 
-        try {
-            FileRepositoryBuilder builder = new FileRepositoryBuilder();
-            Repository repository = builder
-                    .setGitDir(new File(repoDirectory, ".git"))
-                    .readEnvironment()
-                    .findGitDir()
-                    .build();
-
-            Git git = new Git(repository);
-            
-            // 使用 log 命令获取文件的提交历史
-            Iterable<RevCommit> logs = git.log()
-                    .addPath(filePath)
-                    .setMaxCount(count)
-                    .call();
-
-            for (RevCommit commit : logs) {
-                GitCommitInfo info = new GitCommitInfo();
-                info.setMessage(commit.getFullMessage());
-                info.setAuthor(commit.getAuthorIdent().getName());
-                info.setEmail(commit.getAuthorIdent().getEmailAddress());
-                info.setCommitTime(commit.getCommitTime() * 1000L);
-                info.setCommitId(commit.getName());
-                commits.add(info);
-            }
-
-            git.close();
-            repository.close();
-            return commits;
-
+    /**
+     * 流式获取指定文件的提交历史
+     * @param repoDirectory Git仓库目录
+     * @param filePath 文件相对于仓库根目录的路径
+     * @param count 最多获取的提交数量
+     * @param token 取消标记（可以为null）
+     * @param consumer 接收提交，返回 false 时停止遍历
+     */
+    public static void streamFileCommitHistory(File repoDirectory, String filePath, int count,
+                                               CancellationToken token, CommitConsumer consumer) {
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(repoDirectory)) {
+            walkFileHistory(handle.getRepository(), filePath, count, token, consumer);
         } catch (Exception e) {
             System.err.println("Error reading file commit history: " + e.getMessage());
             e.printStackTrace();
-            return commits;
+        }
+    }
+
+    /**
+     * 遍历 HEAD 历史中修改过指定文件的提交
+     * 与 git log -- <path> 相同的过滤方式；仓库的 commit-graph 带有修改路径过滤器时，
+     * 肯定未修改该文件的单父提交不再比较目录树（见 CommitGraphMaintainer.fileHistoryFilter）
+     */
+    static void walkFileHistory(Repository repository, String filePath, int count,
+                                CancellationToken token, CommitConsumer consumer) throws IOException {
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            ObjectId head = repository.resolve(Constants.HEAD);
+            if (head == null) {
+                return;
+            }
+
+            revWalk.setTreeFilter(CommitGraphMaintainer.fileHistoryFilter(filePath));
+            revWalk.markStart(revWalk.parseCommit(head));
+
+            int fetched = 0;
+            for (RevCommit commit : revWalk) {
+                if (fetched >= count || CancellationToken.isCancelled(token)) {
+                    break;
+                }
+                fetched++;
+
+                if (!consumer.accept(toCommitInfo(commit))) {
+                    break;
+                }
+            }
         }
     }
 
@@ -346,13 +463,8 @@ public class GitInfoExtractor {
      * @return 文件内容
      */
     public static String getFileContentAtCommit(File repoDirectory, String commitId, String filePath) {
-        try {
-            FileRepositoryBuilder builder = new FileRepositoryBuilder();
-            Repository repository = builder
-                    .setGitDir(new File(repoDirectory, ".git"))
-                    .readEnvironment()
-                    .findGitDir()
-                    .build();
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(repoDirectory)) {
+            Repository repository = handle.getRepository();
 
             ObjectId commitObjectId = ObjectId.fromString(commitId);
             RevWalk revWalk = new RevWalk(repository);
@@ -366,13 +478,11 @@ public class GitInfoExtractor {
                 
                 treeWalk.close();
                 revWalk.close();
-                repository.close();
                 
                 return new String(bytes, "UTF-8");
             }
             
             revWalk.close();
-            repository.close();
             return "";
 
         } catch (Exception e) {
@@ -387,18 +497,15 @@ public class GitInfoExtractor {
      * @param oldCommitId 旧提交ID（可以为null，表示父提交）
      * @param newCommitId 新提交ID
      * @param filePath 文件路径
-     * @return 差异文本
+     * @return 差异，文件在两个提交间没有修改时返回null
      */
-    public static String getFileDiff(File repoDirectory, String oldCommitId, String newCommitId, String filePath) {
-        try {
-            FileRepositoryBuilder builder = new FileRepositoryBuilder();
-            Repository repository = builder
-                    .setGitDir(new File(repoDirectory, ".git"))
-                    .readEnvironment()
-                    .findGitDir()
-                    .build();
+    public static FileDiff getFileDiff(File repoDirectory, String oldCommitId, String newCommitId, String filePath)
+            throws IOException {
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(repoDirectory);
+             RevWalk revWalk = new RevWalk(handle.getRepository())) {
+            Repository repository = handle.getRepository();
+            ObjectReader reader = revWalk.getObjectReader();
 
-            RevWalk revWalk = new RevWalk(repository);
             RevCommit newCommit = revWalk.parseCommit(ObjectId.fromString(newCommitId));
             
             RevCommit oldCommit = null;
@@ -409,48 +516,108 @@ public class GitInfoExtractor {
                 oldCommit = revWalk.parseCommit(newCommit.getParent(0));
             }
 
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            DiffFormatter formatter = new DiffFormatter(out);
-            formatter.setRepository(repository);
-            formatter.setDiffComparator(RawTextComparator.DEFAULT);
-            formatter.setDetectRenames(true);
+            DiffEntry entry = findFileDiffEntry(repository, reader,
+                    oldCommit != null ? oldCommit.getTree() : null, newCommit.getTree(), filePath);
+            if (entry == null) {
+                return null;
+            }
 
-            if (oldCommit != null) {
-                List<DiffEntry> diffs = formatter.scan(oldCommit.getTree(), newCommit.getTree());
-                
-                for (DiffEntry diff : diffs) {
-                    if (diff.getNewPath().equals(filePath) || diff.getOldPath().equals(filePath)) {
-                        formatter.format(diff);
-                    }
-                }
-            } else {
-                // 初始提交，显示整个文件
-                TreeWalk treeWalk = new TreeWalk(repository);
-                treeWalk.addTree(newCommit.getTree());
-                treeWalk.setRecursive(true);
-                treeWalk.setFilter(org.eclipse.jgit.treewalk.filter.PathFilter.create(filePath));
-                
-                if (treeWalk.next()) {
-                    out.write(("New file: " + filePath + "\n").getBytes());
-                    String content = getFileContentAtCommit(repoDirectory, newCommitId, filePath);
-                    String[] lines = content.split("\n");
-                    for (int i = 0; i < lines.length; i++) {
-                        out.write(("+" + lines[i] + "\n").getBytes());
-                    }
-                }
-                treeWalk.close();
+            // 与 git diff 一样使用仓库配置的 diff.algorithm，默认 histogram
+            DiffAlgorithm.SupportedAlgorithm algorithm = repository.getConfig().getEnum(
+                    ConfigConstants.CONFIG_DIFF_SECTION, null, ConfigConstants.CONFIG_KEY_ALGORITHM,
+                    DiffAlgorithm.SupportedAlgorithm.HISTOGRAM);
+            byte[] oldBytes = readBlob(reader, entry.getOldMode(), entry.getOldId());
+            byte[] newBytes = readBlob(reader, entry.getNewMode(), entry.getNewId());
+            if (oldBytes == null || newBytes == null || RawText.isBinary(oldBytes) || RawText.isBinary(newBytes)) {
+                return new FileDiff(entry, algorithm, null, null, new EditList());
             }
 
-            formatter.close();
-            revWalk.close();
-            repository.close();
+            RawText oldText = new RawText(oldBytes);
+            RawText newText = new RawText(newBytes);
+            EditList edits = DiffAlgorithm.getAlgorithm(algorithm).diff(RawTextComparator.DEFAULT, oldText, newText);
+            return new FileDiff(entry, algorithm, oldText, newText, edits);
+        }
+    }
 
-            return out.toString("UTF-8");
+    /**
+     * 读取差异一侧的文件内容，文件不存在时返回空内容
+     * @return 文件内容，文件过大无法读入内存时返回null
+     */
+    private static byte[] readBlob(ObjectReader reader, FileMode mode, AbbreviatedObjectId id) throws IOException {
+        if (mode == FileMode.MISSING || id == null || !id.isComplete()) {
+            return new byte[0];
+        }
+        if (mode == FileMode.GITLINK) {
+            return ("Subproject commit " + id.name() + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+        try {
+            return reader.open(id.toObjectId(), Constants.OBJ_BLOB).getCachedBytes(MAX_DIFF_FILE_SIZE);
+        } catch (LargeObjectException e) {
+            return null;
+        }
+    }
 
-        } catch (Exception e) {
-            System.err.println("Error getting file diff: " + e.getMessage());
-            e.printStackTrace();
-            return "Error: " + e.getMessage();
+    /**
+     * 查找单个文件在两棵树之间的差异
+     * 只遍历该路径；文件只在一侧存在时才扫描整棵树的新增/删除文件做重命名检测
+     * @param oldTree 旧树，为null时表示初始提交（与空树比较）
+     * @return 差异条目，文件未修改时返回null
+     */
+    static DiffEntry findFileDiffEntry(Repository repository, ObjectReader reader, RevTree oldTree,
+                                       RevTree newTree, String filePath) throws IOException {
+        DiffEntry entry;
+        try (TreeWalk treeWalk = new TreeWalk(reader)) {
+            addTree(treeWalk, oldTree);
+            treeWalk.addTree(newTree);
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(AndTreeFilter.create(PathFilter.create(filePath), TreeFilter.ANY_DIFF));
+            List<DiffEntry> entries = DiffEntry.scan(treeWalk);
+            if (entries.isEmpty()) {
+                return null;
+            }
+            entry = entries.get(0);
+        }
+
+        DiffEntry.ChangeType type = entry.getChangeType();
+        if (oldTree == null || (type != DiffEntry.ChangeType.ADD && type != DiffEntry.ChangeType.DELETE)) {
+            return entry;
+        }
+
+        // 新增的文件可能来自某个被删除的文件，被删除的文件可能被重命名为某个新增的文件
+        DiffEntry.ChangeType candidateType = type == DiffEntry.ChangeType.ADD
+                ? DiffEntry.ChangeType.DELETE : DiffEntry.ChangeType.ADD;
+        List<DiffEntry> candidates = new ArrayList<>();
+        candidates.add(entry);
+        try (TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.addTree(oldTree);
+            treeWalk.addTree(newTree);
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            for (DiffEntry candidate : DiffEntry.scan(treeWalk)) {
+                if (candidate.getChangeType() == candidateType) {
+                    candidates.add(candidate);
+                }
+            }
+        }
+        if (candidates.size() == 1) {
+            return entry;
+        }
+
+        RenameDetector renameDetector = new RenameDetector(repository);
+        renameDetector.addAll(candidates);
+        for (DiffEntry renamed : renameDetector.compute()) {
+            if (filePath.equals(renamed.getNewPath()) || filePath.equals(renamed.getOldPath())) {
+                return renamed;
+            }
+        }
+        return entry;
+    }
+
+    private static void addTree(TreeWalk treeWalk, RevTree tree) throws IOException {
+        if (tree != null) {
+            treeWalk.addTree(tree);
+        } else {
+            treeWalk.addTree(new EmptyTreeIterator());
         }
     }
 
@@ -509,54 +676,359 @@ public class GitInfoExtractor {
         }
     }
 
+    /**
+     * 单个文件的差异
+     * 保存两侧的原始内容和编辑列表，按 git 默认的 3 行上下文划分为 hunk，行号从 0 开始
+     */
+    public static class FileDiff {
+        private static final int CONTEXT_LINES = 3;
+
+        private final DiffEntry.ChangeType changeType;
+        private final String oldPath;
+        private final String newPath;
+        private final DiffAlgorithm.SupportedAlgorithm algorithm;
+        private final RawText oldText;
+        private final RawText newText;
+        private final EditList edits;
+        private final List<DiffHunk> hunks;
+
+        FileDiff(DiffEntry entry, DiffAlgorithm.SupportedAlgorithm algorithm,
+                 RawText oldText, RawText newText, EditList edits) {
+            this.changeType = entry.getChangeType();
+            this.oldPath = entry.getOldPath();
+            this.newPath = entry.getNewPath();
+            this.algorithm = algorithm;
+            this.oldText = oldText;
+            this.newText = newText;
+            this.edits = edits;
+            this.hunks = splitHunks(edits, oldText, newText);
+        }
+
+        public DiffEntry.ChangeType getChangeType() {
+            return changeType;
+        }
+
+        public String getOldPath() {
+            return oldPath;
+        }
+
+        public String getNewPath() {
+            return newPath;
+        }
+
+        public DiffAlgorithm.SupportedAlgorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        /**
+         * 任意一侧是二进制文件或文件过大时没有行级差异
+         */
+        public boolean isBinary() {
+            return oldText == null;
+        }
+
+        public EditList getEdits() {
+            return edits;
+        }
+
+        public List<DiffHunk> getHunks() {
+            return hunks;
+        }
+
+        public String getOldLine(int line) {
+            return oldText.getString(line);
+        }
+
+        public String getNewLine(int line) {
+            return newText.getString(line);
+        }
+
+        /**
+         * 把相距不超过两倍上下文的编辑合并到同一个 hunk（与 git diff 相同）
+         */
+        private static List<DiffHunk> splitHunks(EditList edits, RawText oldText, RawText newText) {
+            List<DiffHunk> hunks = new ArrayList<>();
+            int first = 0;
+            while (first < edits.size()) {
+                int last = first;
+                while (last + 1 < edits.size()
+                        && edits.get(last + 1).getBeginA() - edits.get(last).getEndA() <= 2 * CONTEXT_LINES) {
+                    last++;
+                }
+                Edit head = edits.get(first);
+                Edit tail = edits.get(last);
+                hunks.add(new DiffHunk(
+                        Math.max(0, head.getBeginA() - CONTEXT_LINES),
+                        Math.min(oldText.size(), tail.getEndA() + CONTEXT_LINES),
+                        Math.max(0, head.getBeginB() - CONTEXT_LINES),
+                        Math.min(newText.size(), tail.getEndB() + CONTEXT_LINES),
+                        edits.subList(first, last + 1)));
+                first = last + 1;
+            }
+            return hunks;
+        }
+    }
+
+    /**
+     * 差异中的一个 hunk：旧文件 [oldStart, oldEnd) 与新文件 [newStart, newEnd) 两个行区间及其中的编辑
+     */
+    public static class DiffHunk {
+        private final int oldStart;
+        private final int oldEnd;
+        private final int newStart;
+        private final int newEnd;
+        private final List<Edit> edits;
+
+        DiffHunk(int oldStart, int oldEnd, int newStart, int newEnd, List<Edit> edits) {
+            this.oldStart = oldStart;
+            this.oldEnd = oldEnd;
+            this.newStart = newStart;
+            this.newEnd = newEnd;
+            this.edits = edits;
+        }
+
+        public int getOldStart() {
+            return oldStart;
+        }
+
+        public int getOldEnd() {
+            return oldEnd;
+        }
+
+        public int getNewStart() {
+            return newStart;
+        }
+
+        public int getNewEnd() {
+            return newEnd;
+        }
+
+        public List<Edit> getEdits() {
+            return edits;
+        }
+
+        /**
+         * hunk 头，例如 "@@ -12,7 +12,8 @@"
+         */
+        @Override
+        public String toString() {
+            return "@@ -" + range(oldStart, oldEnd) + " +" + range(newStart, newEnd) + " @@";
+        }
+
+        private static String range(int start, int end) {
+            // 空区间和 git 一样显示为前一行的行号
+            return (end > start ? start + 1 : start) + "," + (end - start);
+        }
+    }
+
+    /**
+     * 提交中修改的文件
+     */
+    public static class ChangedFile {
+        private final DiffEntry.ChangeType changeType;
+        private final String oldPath;
+        private final String newPath;
+
+        public ChangedFile(DiffEntry.ChangeType changeType, String oldPath, String newPath) {
+            this.changeType = changeType;
+            this.oldPath = oldPath;
+            this.newPath = newPath;
+        }
+
+        public DiffEntry.ChangeType getChangeType() {
+            return changeType;
+        }
+
+        public String getOldPath() {
+            return oldPath;
+        }
+
+        public String getNewPath() {
+            return newPath;
+        }
+
+        /**
+         * 变更后的路径，删除的文件返回原路径
+         */
+        public String getPath() {
+            return changeType == DiffEntry.ChangeType.DELETE ? oldPath : newPath;
+        }
+
+        /**
+         * 显示格式，例如 "[MODIFY] src/App.java"
+         */
+        @Override
+        public String toString() {
+            switch (changeType) {
+                case ADD:
+                    return "[ADD] " + newPath;
+                case DELETE:
+                    return "[DELETE] " + oldPath;
+                case RENAME:
+                    return "[RENAME] " + oldPath + " -> " + newPath;
+                case MODIFY:
+                    return "[MODIFY] " + newPath;
+                case COPY:
+                    return "[COPY] " + oldPath + " -> " + newPath;
+                default:
+                    return "[CHANGE] " + newPath;
+            }
+        }
+    }
+
     /**
      * Git提交信息封装类
+     * 可以独立保存各字段，也可以作为 {@link CommitStore} 中一条提交的视图（此时完整提交信息和修改文件按需读取）
      */
     public static class GitCommitInfo {
+        private CommitStore store;
+        private int position;
+
         private String commitId;
         private String message;
         private String author;
         private String email;
         private long commitTime;
+        private List<ChangedFile> changedFiles;
+
+        public GitCommitInfo() {
+        }
+
+        GitCommitInfo(CommitStore store, int position) {
+            this.store = store;
+            this.position = position;
+        }
 
         public String getCommitId() {
-            return commitId;
+            return store != null ? store.getCommitId(position) : commitId;
         }
 
         public void setCommitId(String commitId) {
+            detach();
             this.commitId = commitId;
         }
 
         public String getMessage() {
-            return message;
+            return store != null ? store.getMessage(position) : message;
         }
 
         public void setMessage(String message) {
+            detach();
             this.message = message;
         }
 
+        /**
+         * 提交标题，与 RevCommit.getShortMessage() 相同：第一段文字，段内换行替换为空格
+         * 视图不需要读取完整提交信息
+         */
+        public String getSubject() {
+            if (store != null) {
+                return store.getSubject(position);
+            }
+            return message != null ? shortMessage(message) : null;
+        }
+
+        /**
+         * 按 RevCommit.getShortMessage() 的规则从完整提交信息中取出标题，
+         * 保证索引中的提交和直接读取的提交显示相同的标题
+         */
+        static String shortMessage(String message) {
+            // 第一段在空行（以 \n 或 \r 开头的行）之前结束
+            int end = message.length();
+            int lineStart = 0;
+            while (lineStart < message.length()) {
+                char first = message.charAt(lineStart);
+                if (first == '\n' || first == '\r') {
+                    end = lineStart;
+                    break;
+                }
+                int lineEnd = message.indexOf('\n', lineStart);
+                if (lineEnd < 0) {
+                    break;
+                }
+                lineStart = lineEnd + 1;
+            }
+            String paragraph = message.substring(0, end);
+            if (paragraph.endsWith("\n")) {
+                paragraph = paragraph.substring(0, paragraph.length() - 1);
+            }
+            if (paragraph.endsWith("\r")) {
+                paragraph = paragraph.substring(0, paragraph.length() - 1);
+            }
+            if (paragraph.indexOf('\n') < 0) {
+                return paragraph;
+            }
+            return paragraph.replace("\r\n", " ").replace('\r', ' ').replace('\n', ' ');
+        }
+
         public String getAuthor() {
-            return author;
+            return store != null ? store.getAuthor(position) : author;
         }
 
         public void setAuthor(String author) {
+            detach();
             this.author = author;
         }
 
         public String getEmail() {
-            return email;
+            return store != null ? store.getEmail(position) : email;
         }
 
         public void setEmail(String email) {
+            detach();
             this.email = email;
         }
 
         public long getCommitTime() {
-            return commitTime;
+            return store != null ? store.getCommitTime(position) : commitTime;
         }
 
         public void setCommitTime(long commitTime) {
+            detach();
             this.commitTime = commitTime;
         }
+
+        /**
+         * 修改的文件列表，通过 getRecentCommitsWithFiles 等查询或从提交索引读取的提交才会填充
+         */
+        public List<ChangedFile> getChangedFiles() {
+            return store != null ? store.getChangedFiles(position) : changedFiles;
+        }
+
+        public void setChangedFiles(List<ChangedFile> changedFiles) {
+            detach();
+            this.changedFiles = changedFiles;
+        }
+
+        GitCommitInfo copy() {
+            if (store != null) {
+                return new GitCommitInfo(store, position);
+            }
+            GitCommitInfo copy = new GitCommitInfo();
+            copy.commitId = commitId;
+            copy.message = message;
+            copy.author = author;
+            copy.email = email;
+            copy.commitTime = commitTime;
+            copy.changedFiles = changedFiles;
+            return copy;
+        }
+
+        /**
+         * 修改视图前先把所有字段复制出来，之后与存储无关
+         */
+        private void detach() {
+            if (store == null) {
+                return;
+            }
+            CommitStore source = store;
+            store = null;
+            commitId = source.getCommitId(position);
+            message = source.getMessage(position);
+            author = source.getAuthor(position);
+            email = source.getEmail(position);
+            commitTime = source.getCommitTime(position);
+            changedFiles = source.getChangedFiles(position);
+        }
     }
 }
@@ -1,20 +1,29 @@
 package com.gitviewer;
 
+import org.eclipse.jgit.api.FetchCommand;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeResult;
 import org.eclipse.jgit.api.PullResult;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.BranchConfig;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
-import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.TagOpt;
+import org.eclipse.jgit.transport.URIish;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 
 import javax.swing.*;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -23,16 +32,17 @@ import java.util.List;
  */
 public class GitOperations {
 
-    // 静态变量保存全局认证信息
-    private static CredentialsProvider globalCredentialsProvider = null;
-    private static boolean authenticationTested = false;
+    // 静态变量保存全局认证信息（批量操作时多个仓库并行访问）
+    private static volatile CredentialsProvider globalCredentialsProvider = null;
+    private static volatile boolean authenticationTested = false;
 
     /**
      * 获取认证提供者
      * @param repositoryUrl 仓库URL，用于显示在认证对话框中
      * @return CredentialsProvider 或 null（如果用户取消）
+     * 同步执行，并行的批量操作只弹出一次认证对话框
      */
-    private static CredentialsProvider getCredentialsProvider(String repositoryUrl) {
+    private static synchronized CredentialsProvider getCredentialsProvider(String repositoryUrl) {
         // 如果已经有全局认证信息，直接使用
         if (globalCredentialsProvider != null) {
             return globalCredentialsProvider;
@@ -65,7 +75,7 @@ public class GitOperations {
     /**
      * 清除全局认证信息（当认证失败时调用）
      */
-    private static void clearGlobalCredentials() {
+    private static synchronized void clearGlobalCredentials() {
         globalCredentialsProvider = null;
         authenticationTested = false;
         GitCredentialsDialog.clearSavedCredentials();
@@ -159,7 +169,8 @@ public class GitOperations {
      * @return 是否成功
      */
     public static boolean switchBranch(File directory, String branchName) {
-        try (Git git = Git.open(directory)) {
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory);
+             Git git = Git.wrap(handle.getRepository())) {
             // 检查分支是否存在
             boolean branchExists = checkBranchExists(git, branchName);
 
@@ -204,7 +215,8 @@ public class GitOperations {
      * @return 是否成功
      */
     public static boolean pull(File directory) {
-        try (Git git = Git.open(directory)) {
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory);
+             Git git = Git.wrap(handle.getRepository())) {
             String remoteUrl = getRemoteUrl(git);
             
             return executeWithAuth((credentialsProvider) -> {
@@ -234,6 +246,108 @@ public class GitOperations {
         }
     }
 
+    /**
+     * 只拉取一个分支（批量切换的第一阶段）
+     * 本地分支已经设置了上游时拉取上游分支，否则拉取 origin 上的同名分支，更新对应的远程跟踪分支。
+     * 只有一次网络往返，不拉取其他引用。
+     * @param directory Git仓库目录
+     * @param branchName 分支名称
+     * @return 是否拉取成功（远程没有这个分支时返回 false）
+     */
+    public static boolean fetchBranch(File directory, String branchName) {
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory);
+             Git git = Git.wrap(handle.getRepository())) {
+            BranchConfig branchConfig = new BranchConfig(handle.getRepository().getConfig(), branchName);
+            String remote = branchConfig.getRemote() != null ? branchConfig.getRemote() : Constants.DEFAULT_REMOTE_NAME;
+            String source = branchConfig.getMerge() != null ? branchConfig.getMerge() : Constants.R_HEADS + branchName;
+            String tracking = branchConfig.getRemoteTrackingBranch();
+            if (tracking == null) {
+                tracking = Constants.R_REMOTES + remote + "/" + Repository.shortenRefName(source);
+            }
+            String remoteUrl = handle.getRepository().getConfig().getString("remote", remote, "url");
+            if (remoteUrl == null) {
+                System.err.println("Error fetching branch: no URL for remote " + remote);
+                return false;
+            }
+            RefSpec refSpec = new RefSpec("+" + source + ":" + tracking);
+
+            return executeWithAuth((credentialsProvider) -> {
+                FetchCommand fetch = git.fetch().setRemote(remote).setRefSpecs(refSpec);
+                if (credentialsProvider != null) {
+                    fetch.setCredentialsProvider(credentialsProvider);
+                }
+                fetch.call();
+                return true;
+            }, remoteUrl);
+        } catch (IOException e) {
+            System.err.println("Error fetching branch: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 切换到本地分支，本地没有时从已拉取的 origin 远程跟踪分支创建（不访问网络）
+     * @param directory Git仓库目录
+     * @param branchName 分支名称
+     * @return 是否成功
+     */
+    public static boolean checkoutBranch(File directory, String branchName) {
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory);
+             Git git = Git.wrap(handle.getRepository())) {
+            Repository repository = handle.getRepository();
+            if (repository.exactRef(Constants.R_HEADS + branchName) != null) {
+                git.checkout()
+                        .setName(branchName)
+                        .call();
+                return true;
+            }
+            String remoteBranch = Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/" + branchName;
+            if (repository.exactRef(remoteBranch) == null) {
+                System.err.println("Error switching branch: " + branchName + " not found locally or on origin");
+                return false;
+            }
+            git.checkout()
+                    .setName(branchName)
+                    .setCreateBranch(true)
+                    .setStartPoint(remoteBranch)
+                    .call();
+            return true;
+        } catch (GitAPIException | IOException e) {
+            System.err.println("Error switching branch: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 把当前分支的远程跟踪分支合并到当前分支（与 pull 的合并部分相同，但不再拉取）
+     * @param directory Git仓库目录
+     * @return 是否成功（快进、已是最新或合并成功）
+     */
+    public static boolean mergeUpstream(File directory) {
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory);
+             Git git = Git.wrap(handle.getRepository())) {
+            Repository repository = handle.getRepository();
+            String branch = repository.getBranch();
+            String tracking = new BranchConfig(repository.getConfig(), branch).getRemoteTrackingBranch();
+            Ref trackingRef = tracking != null ? repository.exactRef(tracking) : null;
+            if (trackingRef == null) {
+                System.err.println("Merge failed: no remote tracking branch for " + branch);
+                return false;
+            }
+            MergeResult result = git.merge()
+                    .include(trackingRef)
+                    .call();
+            if (result.getMergeStatus().isSuccessful()) {
+                return true;
+            }
+            System.err.println("Merge failed: " + result.toString());
+            return false;
+        } catch (GitAPIException | IOException e) {
+            System.err.println("Error merging: " + e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * 获取远程仓库URL
      * @param git Git对象
@@ -247,33 +361,32 @@ public class GitOperations {
         }
     }
 
+    /**
+     * origin 的远程主机名（小写），用于限制批量操作对同一主机的并发数
+     * @param directory Git仓库目录
+     * @return 主机名，没有 origin 或是本地路径时返回 null
+     */
+    public static String getRemoteHost(File directory) {
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory)) {
+            String url = handle.getRepository().getConfig().getString("remote", "origin", "url");
+            if (url == null) {
+                return null;
+            }
+            String host = new URIish(url).getHost();
+            return host != null ? host.toLowerCase(java.util.Locale.ROOT) : null;
+        } catch (IOException | java.net.URISyntaxException e) {
+            return null;
+        }
+    }
+
     /**
      * 获取所有远程分支列表
      * @param directory Git仓库目录
      * @return 远程分支名称列表
      */
     public static java.util.List<String> getRemoteBranches(File directory) {
-        try (Git git = Git.open(directory)) {
-            java.util.List<String> branches = new java.util.ArrayList<>();
-
-            for (Ref ref : git.branchList()
-                    .setListMode(org.eclipse.jgit.api.ListBranchCommand.ListMode.ALL)
-                    .call()) {
-                String branchName = ref.getName();
-                if (branchName.startsWith("refs/remotes/")) {
-                    // 移除 refs/remotes/ 前缀
-                    String displayName = branchName.replace("refs/remotes/", "");
-                    if (!displayName.endsWith("HEAD")) {
-                        branches.add(displayName);
-                    }
-                }
-            }
-
-            return branches;
-        } catch (GitAPIException | IOException e) {
-            System.err.println("Error getting remote branches: " + e.getMessage());
-            return new java.util.ArrayList<>();
-        }
+        RepositorySummary summary = RepositorySummary.read(directory, RepositorySummary.Field.REMOTE_BRANCHES);
+        return summary != null ? new java.util.ArrayList<>(summary.getRemoteBranches()) : new java.util.ArrayList<>();
     }
 
     /**
@@ -282,7 +395,8 @@ public class GitOperations {
      * @return 本地分支名称列表
      */
     public static java.util.List<String> getLocalBranches(File directory) {
-        try (Git git = Git.open(directory)) {
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory);
+             Git git = Git.wrap(handle.getRepository())) {
             java.util.List<String> branches = new java.util.ArrayList<>();
 
             for (Ref ref : git.branchList().call()) {
@@ -328,31 +442,40 @@ public class GitOperations {
      * @return 当前分支名称
      */
     public static String getCurrentBranch(File directory) {
-        try {
-            FileRepositoryBuilder builder = new FileRepositoryBuilder();
-            try (Repository repository = builder
-                    .setGitDir(new File(directory, ".git"))
-                    .readEnvironment()
-                    .findGitDir()
-                    .build()) {
-                String branch = repository.getBranch();
-                return branch != null ? branch : "Unknown";
-            }
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory)) {
+            String branch = handle.getRepository().getBranch();
+            return branch != null ? branch : "Unknown";
         } catch (IOException e) {
             System.err.println("Error getting current branch: " + e.getMessage());
             return "Unknown";
         }
     }
 
+    /**
+     * 获取 HEAD 指向的提交ID
+     * @param directory Git仓库目录
+     * @return 提交ID，没有提交或读取失败时返回 null
+     */
+    public static String getHeadCommitId(File directory) {
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory)) {
+            ObjectId head = handle.getRepository().resolve(Constants.HEAD);
+            return head != null ? head.getName() : null;
+        } catch (IOException e) {
+            System.err.println("Error getting HEAD commit: " + e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * 获取仓库状态（是否有未提交的更改）
+     * 使用 index 中的 stat 信息快速检查，不对整个工作区计算哈希（见 WorkingTreeStatus）
      * @param directory Git仓库目录
      * @return 是否有未提交的更改
      */
     public static boolean hasUncommittedChanges(File directory) {
-        try (Git git = Git.open(directory)) {
-            return git.status().call().hasUncommittedChanges();
-        } catch (GitAPIException | IOException e) {
+        try {
+            return WorkingTreeStatus.compute(directory).hasUncommittedChanges();
+        } catch (IOException e) {
             System.err.println("Error checking status: " + e.getMessage());
             return false;
         }
@@ -364,7 +487,8 @@ public class GitOperations {
      * @return 是否成功
      */
     public static boolean fetch(File directory) {
-        try (Git git = Git.open(directory)) {
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory);
+             Git git = Git.wrap(handle.getRepository())) {
             String remoteUrl = getRemoteUrl(git);
 
             return executeWithAuth((credentialsProvider) -> {
@@ -388,14 +512,21 @@ public class GitOperations {
      * @return 是否成功
      */
     public static boolean cherryPick(File directory, String commitId) {
-        try (Git git = Git.open(directory)) {
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory);
+             Git git = Git.wrap(handle.getRepository())) {
             // 尝试 cherry-pick
-            git.cherryPick()
-                    .include(org.eclipse.jgit.lib.ObjectId.fromString(commitId))
+            // 支持缩写的提交 ID
+            ObjectId objectId = handle.getRepository().resolve(commitId + "^{commit}");
+            if (objectId == null) {
+                System.err.println("Error cherry-picking: commit not found: " + commitId);
+                return false;
+            }
+            org.eclipse.jgit.api.CherryPickResult result = git.cherryPick()
+                    .include(objectId)
                     .call();
 
-            // 检查是否有冲突
-            if (hasUncommittedChanges(directory)) {
+            // 检查是否有冲突（直接使用 cherry-pick 的结果，不再检查一遍工作区）
+            if (result.getStatus() != org.eclipse.jgit.api.CherryPickResult.CherryPickStatus.OK) {
                 System.out.println("Warning: Cherry-pick completed with possible conflicts");
                 return true; // 仍然返回 true，让用户知道需要解决冲突
             }
@@ -417,6 +548,97 @@ public class GitOperations {
         }
     }
 
+    /**
+     * 从给定 URL 只拉取指定的提交，放到临时引用 refPrefix + 提交ID 下（不添加远程，不拉取其他分支）
+     * 同一个上游的多个提交在一次拉取中协商；本地已有的提交不再拉取。
+     * 服务器不允许按提交 ID 拉取时，改为把上游的分支拉取到 refPrefix + "heads/" 下。
+     * @param directory Git仓库目录
+     * @param url 上游仓库 URL
+     * @param commitIds 要拉取的提交（完整的 40 位 ID 才能按 ID 拉取）
+     * @param refPrefix 临时引用的前缀，以 / 结尾
+     * @return 拉取后是否所有提交都在本地
+     */
+    public static boolean fetchCommits(File directory, String url, Collection<String> commitIds, String refPrefix) {
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory);
+             Git git = Git.wrap(handle.getRepository())) {
+            Repository repository = handle.getRepository();
+            List<RefSpec> refSpecs = new ArrayList<>();
+            boolean allById = true;
+            for (String commitId : commitIds) {
+                if (!ObjectId.isId(commitId)) {
+                    allById = false;
+                } else if (!repository.getObjectDatabase().has(ObjectId.fromString(commitId))) {
+                    refSpecs.add(new RefSpec("+" + commitId + ":" + refPrefix + commitId));
+                }
+            }
+            if (allById && refSpecs.isEmpty()) {
+                return true;
+            }
+
+            if (!refSpecs.isEmpty()) {
+                executeWithAuth((credentialsProvider) -> {
+                    FetchCommand fetch = git.fetch().setRemote(url).setRefSpecs(refSpecs).setTagOpt(TagOpt.NO_TAGS);
+                    if (credentialsProvider != null) {
+                        fetch.setCredentialsProvider(credentialsProvider);
+                    }
+                    fetch.call();
+                    return true;
+                }, url);
+            }
+            if (allCommitsPresent(repository, commitIds)) {
+                return true;
+            }
+
+            // 按 ID 拉取失败或提交 ID 不完整，退回到拉取上游的分支
+            System.err.println("Fetching commits by id failed, fetching upstream branches instead: " + url);
+            RefSpec branches = new RefSpec("+" + Constants.R_HEADS + "*:" + refPrefix + "heads/*");
+            executeWithAuth((credentialsProvider) -> {
+                FetchCommand fetch = git.fetch().setRemote(url).setRefSpecs(branches).setTagOpt(TagOpt.NO_TAGS);
+                if (credentialsProvider != null) {
+                    fetch.setCredentialsProvider(credentialsProvider);
+                }
+                fetch.call();
+                return true;
+            }, url);
+            return allCommitsPresent(repository, commitIds);
+        } catch (IOException e) {
+            System.err.println("Error fetching commits: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean allCommitsPresent(Repository repository, Collection<String> commitIds) {
+        for (String commitId : commitIds) {
+            try {
+                ObjectId objectId = repository.resolve(commitId + "^{commit}");
+                if (objectId == null) {
+                    return false;
+                }
+            } catch (IOException | RuntimeException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 删除以 refPrefix 开头的所有引用（清理 {@link #fetchCommits} 创建的临时引用）
+     * @param directory Git仓库目录
+     * @param refPrefix 引用前缀
+     */
+    public static void deleteRefs(File directory, String refPrefix) {
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory)) {
+            Repository repository = handle.getRepository();
+            for (Ref ref : repository.getRefDatabase().getRefsByPrefix(refPrefix)) {
+                RefUpdate update = repository.updateRef(ref.getName());
+                update.setForceUpdate(true);
+                update.delete();
+            }
+        } catch (IOException e) {
+            System.err.println("Error deleting temporary refs: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取冲突文件列表
      * @param directory Git仓库目录
@@ -424,14 +646,15 @@ public class GitOperations {
      */
     public static List<String> getConflictedFiles(File directory) {
         List<String> conflictedFiles = new ArrayList<>();
-        try (Git git = Git.open(directory)) {
-            // 使用 status 命令获取冲突文件
-            org.eclipse.jgit.api.Status status = git.status().call();
-
-            // 获取冲突文件集合
-            java.util.Set<String> conflicting = status.getConflicting();
-            for (String file : conflicting) {
-                conflictedFiles.add(file);
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory)) {
+            // 冲突文件就是 index 中 stage 不为 0 的条目，不需要扫描工作区
+            org.eclipse.jgit.dircache.DirCache dirCache = handle.getRepository().readDirCache();
+            for (int i = 0; i < dirCache.getEntryCount(); i++) {
+                org.eclipse.jgit.dircache.DirCacheEntry entry = dirCache.getEntry(i);
+                if (entry.getStage() != org.eclipse.jgit.dircache.DirCacheEntry.STAGE_0
+                        && !conflictedFiles.contains(entry.getPathString())) {
+                    conflictedFiles.add(entry.getPathString());
+                }
             }
         } catch (Exception e) {
             System.err.println("Error getting conflicted files: " + e.getMessage());
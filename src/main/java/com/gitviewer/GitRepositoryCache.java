@@ -0,0 +1,325 @@
+package com.gitviewer;
+
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程级 Repository 句柄缓存
+ * 按仓库目录共享已打开的 Repository，使用引用计数管理生命周期，
+ * 空闲超时或超过最大打开数量时关闭，.git 目录发生变化时重新打开
+ */
+public class GitRepositoryCache {
+
+    // 最多同时保持打开的仓库数量
+    private static final int MAX_OPEN_REPOSITORIES = 64;
+    // 空闲多久之后关闭（毫秒）
+    private static final long IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    // 空闲清理的检查间隔（秒）
+    private static final long SWEEP_INTERVAL_SECONDS = 30;
+
+    // 按访问顺序排列，便于淘汰最久未使用的仓库
+    private static final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "git-repository-cache-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        sweeper.scheduleWithFixedDelay(GitRepositoryCache::evictIdle,
+                SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private GitRepositoryCache() {
+    }
+
+    /**
+     * 获取仓库句柄，使用完毕后必须关闭（建议使用 try-with-resources）
+     * @param directory 仓库工作目录
+     * @return 仓库句柄
+     */
+    public static Handle open(File directory) throws IOException {
+        File gitDir = new File(directory, ".git");
+        if (!gitDir.exists()) {
+            throw new RepositoryNotFoundException(directory);
+        }
+        String key = directory.getAbsoluteFile().toPath().normalize().toString();
+        long[] fingerprint = fingerprint(gitDir);
+
+        List<Repository> toClose = new ArrayList<>();
+        try {
+            synchronized (entries) {
+                Entry entry = acquireExisting(key, fingerprint, toClose);
+                if (entry != null) {
+                    return new Handle(entry);
+                }
+            }
+
+            // 在锁外打开仓库，避免并行扫描时互相阻塞
+            FileRepositoryBuilder builder = new FileRepositoryBuilder();
+            if (gitDir.isFile()) {
+                if (isLinkedWorktree(directory)) {
+                    // JGit 不读取 commondir，引用和配置都在主仓库中，打开后看不到分支和提交
+                    throw new IOException("Linked worktrees are not supported: " + directory);
+                }
+                // 子模块：.git 是指向真正仓库目录的文件，由 JGit 解析
+                builder.setWorkTree(directory).readEnvironment();
+            } else {
+                builder.setGitDir(gitDir).readEnvironment().findGitDir();
+            }
+            Repository repository = builder.build();
+            CommitGraphMaintainer.enableReading(repository);
+
+            synchronized (entries) {
+                Entry entry = acquireExisting(key, fingerprint, toClose);
+                if (entry != null) {
+                    // 其他线程已经打开了同一个仓库
+                    toClose.add(repository);
+                    return new Handle(entry);
+                }
+                entry = new Entry(key, repository, fingerprint);
+                entry.refCount = 1;
+                entry.lastAccess = System.currentTimeMillis();
+                entries.put(key, entry);
+                collectOverflow(toClose);
+                return new Handle(entry);
+            }
+        } finally {
+            closeAll(toClose);
+        }
+    }
+
+    /**
+     * 查找仍然有效的缓存项并增加引用计数（调用方持有锁）
+     */
+    private static Entry acquireExisting(String key, long[] fingerprint, List<Repository> toClose) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.matches(fingerprint)) {
+            // .git 已被替换或重建，旧句柄不再可用
+            entries.remove(key);
+            entry.invalid = true;
+            if (entry.refCount == 0) {
+                toClose.add(entry.repository);
+            }
+            return null;
+        }
+        entry.refCount++;
+        entry.lastAccess = System.currentTimeMillis();
+        return entry;
+    }
+
+    /**
+     * 使指定仓库的缓存失效（例如仓库被删除或重新克隆之后）
+     */
+    public static void invalidate(File directory) {
+        String key = directory.getAbsoluteFile().toPath().normalize().toString();
+        List<Repository> toClose = new ArrayList<>();
+        synchronized (entries) {
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                entry.invalid = true;
+                if (entry.refCount == 0) {
+                    toClose.add(entry.repository);
+                }
+            }
+        }
+        closeAll(toClose);
+    }
+
+    /**
+     * 关闭所有当前未被使用的仓库
+     */
+    public static void clear() {
+        List<Repository> toClose = new ArrayList<>();
+        synchronized (entries) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                entry.invalid = true;
+                iterator.remove();
+                if (entry.refCount == 0) {
+                    toClose.add(entry.repository);
+                }
+            }
+        }
+        closeAll(toClose);
+    }
+
+    /**
+     * 关闭空闲超时的仓库
+     */
+    private static void evictIdle() {
+        long now = System.currentTimeMillis();
+        List<Repository> toClose = new ArrayList<>();
+        synchronized (entries) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.refCount == 0 && now - entry.lastAccess > IDLE_TIMEOUT_MILLIS) {
+                    iterator.remove();
+                    toClose.add(entry.repository);
+                }
+            }
+        }
+        closeAll(toClose);
+    }
+
+    /**
+     * 超过最大打开数量时，按最久未使用的顺序淘汰空闲仓库（调用方持有锁）
+     */
+    private static void collectOverflow(List<Repository> toClose) {
+        if (entries.size() <= MAX_OPEN_REPOSITORIES) {
+            return;
+        }
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > MAX_OPEN_REPOSITORIES && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.refCount == 0) {
+                iterator.remove();
+                toClose.add(entry.repository);
+            }
+        }
+    }
+
+    private static void release(Entry entry) {
+        Repository toClose = null;
+        synchronized (entries) {
+            entry.refCount--;
+            entry.lastAccess = System.currentTimeMillis();
+            if (entry.refCount == 0 && entry.invalid) {
+                toClose = entry.repository;
+            }
+            if (entry.refCount == 0 && !entry.invalid) {
+                List<Repository> overflow = new ArrayList<>();
+                collectOverflow(overflow);
+                if (!overflow.isEmpty()) {
+                    sweeper.execute(() -> closeAll(overflow));
+                }
+            }
+        }
+        if (toClose != null) {
+            toClose.close();
+        }
+    }
+
+    private static void closeAll(List<Repository> repositories) {
+        for (Repository repository : repositories) {
+            try {
+                repository.close();
+            } catch (Exception e) {
+                System.err.println("Error closing repository: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 仓库的 .git 目录；.git 是文件（工作树、子模块）时返回其中 gitdir 指向的目录
+     */
+    static File resolveGitDir(File directory) throws IOException {
+        File dotGit = new File(directory, ".git");
+        if (!dotGit.isFile()) {
+            return dotGit;
+        }
+        String content = new String(Files.readAllBytes(dotGit.toPath()), StandardCharsets.UTF_8).trim();
+        if (!content.startsWith("gitdir:")) {
+            throw new IOException("Invalid .git file: " + dotGit);
+        }
+        File gitDir = new File(content.substring("gitdir:".length()).trim());
+        return gitDir.isAbsolute() ? gitDir : new File(directory, gitDir.getPath());
+    }
+
+    /**
+     * 是否是 git worktree add 创建的链接工作树（.git 文件指向的目录中有 commondir）
+     * JGit 不支持链接工作树，这类目录不作为仓库处理
+     */
+    static boolean isLinkedWorktree(File directory) {
+        if (!new File(directory, ".git").isFile()) {
+            return false;
+        }
+        try {
+            return new File(resolveGitDir(directory), "commondir").isFile();
+        } catch (IOException e) {
+            System.err.println("Error reading .git file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 计算 .git 目录的指纹，用于检测仓库被删除、替换或重新初始化
+     */
+    private static long[] fingerprint(File gitDir) {
+        // HEAD、refs、index 的变化由 JGit 自行检测，这里只关心仓库是否被重建
+        if (gitDir.isFile()) {
+            // .git 文件改写说明工作树被移动或重新关联
+            return new long[] {2, gitDir.lastModified()};
+        }
+        return new long[] {
+                gitDir.isDirectory() ? 1 : 0,
+                new File(gitDir, "config").lastModified()
+        };
+    }
+
+    private static class Entry {
+        final String key;
+        final Repository repository;
+        final long[] fingerprint;
+        int refCount;
+        long lastAccess;
+        boolean invalid;
+
+        Entry(String key, Repository repository, long[] fingerprint) {
+            this.key = key;
+            this.repository = repository;
+            this.fingerprint = fingerprint;
+        }
+
+        boolean matches(long[] current) {
+            return fingerprint[0] == current[0] && fingerprint[1] == current[1];
+        }
+    }
+
+    /**
+     * 仓库句柄，关闭时只释放引用，不会真正关闭 Repository
+     */
+    public static class Handle implements AutoCloseable {
+        private Entry entry;
+
+        private Handle(Entry entry) {
+            this.entry = entry;
+        }
+
+        public Repository getRepository() {
+            if (entry == null) {
+                throw new IllegalStateException("Repository handle already released");
+            }
+            return entry.repository;
+        }
+
+        @Override
+        public void close() {
+            if (entry != null) {
+                Entry released = entry;
+                entry = null;
+                release(released);
+            }
+        }
+    }
+}
@@ -21,6 +21,22 @@ public class GitViewerApp extends JFrame {
 
     public GitViewerApp() {
         initializeUI();
+        restoreLastRootDirectory();
+    }
+
+    /**
+     * 恢复上次打开的根目录，子目录表格先显示保存的快照，再在后台校验
+     */
+    private void restoreLastRootDirectory() {
+        String lastRoot = AppSettings.getInstance().getLastRootDirectory();
+        if (lastRoot.isEmpty()) {
+            return;
+        }
+        File rootDir = new File(lastRoot);
+        if (rootDir.isDirectory()) {
+            directoryTreePanel.setRootDirectory(rootDir);
+            infoPanel.displayInfo(rootDir);
+        }
     }
 
     private void initializeUI() {
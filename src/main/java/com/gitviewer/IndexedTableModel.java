@@ -0,0 +1,281 @@
+package com.gitviewer;
+
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableColumn;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 只读表格模型：直接使用结果对象列表，不为每行复制 Object[]
+ * 单元格文本在绘制时才由 {@link #getCellValue(Object, int)} 生成（只有可见的行会被格式化），
+ * 过滤和排序只重建一个行号数组（视图行 -> 结果下标），结果列表本身不变。
+ * 每列第一次排序时对全部结果排序一次并缓存这个顺序，之后切换升降序或修改过滤条件只需按缓存的顺序过滤一遍。
+ * 排序由模型完成，不使用 JTable 的 RowSorter，视图行号就是模型行号。
+ */
+public abstract class IndexedTableModel<T> extends AbstractTableModel {
+
+    private final String[] columnNames;
+    private final List<T> rows = new ArrayList<>();
+    private int[] view = new int[16];
+    private int viewSize;
+    private Predicate<? super T> filter;
+    private int sortColumn = -1;
+    private boolean ascending = true;
+    private int[][] sortedOrders; // 每列升序排列的全部结果下标（null 表示该列需要重新排序）
+
+    protected IndexedTableModel(String... columnNames) {
+        this.columnNames = columnNames;
+        this.sortedOrders = new int[columnNames.length][];
+    }
+
+    /**
+     * 单元格显示的值
+     */
+    protected abstract Object getCellValue(T row, int column);
+
+    /**
+     * 列的排序方式，默认按显示文本（不区分大小写）；返回 null 表示该列不能排序
+     * 显示文本需要格式化的列（日期、截断的消息）应按原始字段比较，避免排序时格式化所有行
+     */
+    protected Comparator<T> getColumnComparator(int column) {
+        return Comparator.comparing(row -> String.valueOf(getCellValue(row, column)), String.CASE_INSENSITIVE_ORDER);
+    }
+
+    @Override
+    public int getRowCount() {
+        return viewSize;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        if (column == sortColumn) {
+            return columnNames[column] + (ascending ? " ▲" : " ▼");
+        }
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        return getCellValue(rows.get(view[rowIndex]), columnIndex);
+    }
+
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return false;
+    }
+
+    /**
+     * 视图中第 rowIndex 行对应的结果
+     */
+    public T getRow(int rowIndex) {
+        return rows.get(view[rowIndex]);
+    }
+
+    /**
+     * 全部结果的数量（包括被过滤掉的）
+     */
+    public int getTotalCount() {
+        return rows.size();
+    }
+
+    /**
+     * 全部结果，按加入的顺序
+     */
+    public List<T> getAllRows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+    /**
+     * 当前显示的结果，按显示的顺序
+     */
+    public List<T> getVisibleRows() {
+        List<T> visible = new ArrayList<>(viewSize);
+        for (int i = 0; i < viewSize; i++) {
+            visible.add(rows.get(view[i]));
+        }
+        return visible;
+    }
+
+    public void clear() {
+        rows.clear();
+        viewSize = 0;
+        Arrays.fill(sortedOrders, null);
+        fireTableDataChanged();
+    }
+
+    /**
+     * 追加结果，符合当前过滤条件的行加入视图
+     * 未排序时只通知新增的行；已排序时把新行排序后与缓存的顺序归并
+     */
+    public void addRows(Collection<? extends T> newRows) {
+        int first = rows.size();
+        rows.addAll(newRows);
+
+        if (sortColumn >= 0) {
+            // 已排序：新结果排序后归并到当前列缓存的顺序中（其他列的顺序作废），有新的可见行时按顺序重建视图
+            int[] sortedOrder = sortedOrders[sortColumn];
+            Arrays.fill(sortedOrders, null);
+            if (sortedOrder != null) {
+                Comparator<T> comparator = getColumnComparator(sortColumn);
+                int[] added = new int[rows.size() - first];
+                for (int i = 0; i < added.length; i++) {
+                    added[i] = first + i;
+                }
+                sortedOrders[sortColumn] = merge(sortedOrder, sortedOrder.length,
+                        sort(added, added.length, comparator), added.length, comparator);
+            }
+            if (filter == null || newRows.stream().anyMatch(filter)) {
+                rebuildView();
+                fireTableDataChanged();
+            }
+            return;
+        }
+
+        int firstRow = viewSize;
+        ensureCapacity(viewSize + newRows.size());
+        for (int i = first; i < rows.size(); i++) {
+            if (filter == null || filter.test(rows.get(i))) {
+                view[viewSize++] = i;
+            }
+        }
+        if (viewSize > firstRow) {
+            fireTableRowsInserted(firstRow, viewSize - 1);
+        }
+    }
+
+    /**
+     * 设置过滤条件（null 表示显示全部），按当前排序重建视图
+     */
+    public void setFilter(Predicate<? super T> filter) {
+        this.filter = filter;
+        rebuildView();
+        fireTableDataChanged();
+    }
+
+    /**
+     * 按列排序，再次点击同一列时切换升序/降序
+     */
+    public void sortBy(int column) {
+        if (getColumnComparator(column) == null) {
+            return;
+        }
+        ascending = column != sortColumn || !ascending;
+        sortColumn = column;
+        rebuildView();
+        fireTableDataChanged();
+    }
+
+    /**
+     * 点击表头时按该列排序（代替 setAutoCreateRowSorter），表头文字显示排序方向
+     */
+    public void installSortHeader(JTable table) {
+        table.setAutoCreateRowSorter(false);
+        table.setRowSorter(null);
+        JTableHeader header = table.getTableHeader();
+        header.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int viewColumn = header.columnAtPoint(e.getPoint());
+                if (viewColumn < 0) {
+                    return;
+                }
+                sortBy(table.convertColumnIndexToModel(viewColumn));
+                for (int i = 0; i < table.getColumnCount(); i++) {
+                    TableColumn column = table.getColumnModel().getColumn(i);
+                    column.setHeaderValue(getColumnName(column.getModelIndex()));
+                }
+                header.repaint();
+            }
+        });
+    }
+
+    private void rebuildView() {
+        int[] indices = new int[Math.max(16, rows.size())];
+        int count = 0;
+        if (sortColumn < 0) {
+            for (int i = 0; i < rows.size(); i++) {
+                if (filter == null || filter.test(rows.get(i))) {
+                    indices[count++] = i;
+                }
+            }
+        } else {
+            int[] sortedOrder = sortedOrders[sortColumn];
+            if (sortedOrder == null) {
+                int[] all = new int[rows.size()];
+                for (int i = 0; i < all.length; i++) {
+                    all[i] = i;
+                }
+                sortedOrder = sort(all, all.length, getColumnComparator(sortColumn));
+                sortedOrders[sortColumn] = sortedOrder;
+            }
+            for (int i = 0; i < sortedOrder.length; i++) {
+                int index = sortedOrder[ascending ? i : sortedOrder.length - 1 - i];
+                if (filter == null || filter.test(rows.get(index))) {
+                    indices[count++] = index;
+                }
+            }
+        }
+        view = indices;
+        viewSize = count;
+    }
+
+    /**
+     * 归并两个按 comparator 排好序的行号数组，相等时 first 中的在前
+     */
+    private int[] merge(int[] first, int firstCount, int[] second, int secondCount, Comparator<T> comparator) {
+        int[] merged = new int[firstCount + secondCount];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < firstCount && j < secondCount) {
+            if (comparator.compare(rows.get(second[j]), rows.get(first[i])) < 0) {
+                merged[k++] = second[j++];
+            } else {
+                merged[k++] = first[i++];
+            }
+        }
+        while (i < firstCount) {
+            merged[k++] = first[i++];
+        }
+        while (j < secondCount) {
+            merged[k++] = second[j++];
+        }
+        return merged;
+    }
+
+    /**
+     * 按结果对象排序行号（稳定排序，相等的行保持加入顺序）
+     */
+    private int[] sort(int[] indices, int count, Comparator<T> comparator) {
+        Integer[] boxed = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            boxed[i] = indices[i];
+        }
+        Arrays.sort(boxed, (a, b) -> comparator.compare(rows.get(a), rows.get(b)));
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = boxed[i];
+        }
+        return sorted;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (view.length < capacity) {
+            view = Arrays.copyOf(view, Math.max(capacity, view.length * 2));
+        }
+    }
+}
@@ -9,6 +9,7 @@ import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.geom.*;
 import java.io.File;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.*;
@@ -37,8 +38,13 @@ public class InfoPanel extends JPanel {
     private JTable gitReposTable;
     private DefaultTableModel tableModel;
     private Map<String, java.util.List<String>> repoBranchesMap;
+    private Map<String, BranchIndex> repoBranchIndexMap; // 分支下拉框使用的分支名索引，第一次使用时创建
     private JTextArea logTextArea;
     private JPanel logPanel;
+    private CancellationToken fileHistoryToken; // 当前文件历史加载任务的取消标记
+    private CancellationToken subdirectoryScanToken; // 当前子目录仓库信息扫描的取消标记
+    private boolean batchPanelsAdded; // 批量操作面板是否已经显示（发现嵌套仓库后才可能添加）
+    private Map<String, Boolean> restoredCheckboxStates; // 刷新前的勾选状态，后发现的嵌套仓库行也要恢复
 
     // 现代化配色方案
     private static final Color PRIMARY_COLOR = new Color(66, 133, 244);      // Google Blue
@@ -51,6 +57,8 @@ public class InfoPanel extends JPanel {
     private static final Color BORDER_COLOR = new Color(227, 233, 239);      // Subtle Border
     private static final Color PANEL_BG_COLOR = new Color(255, 255, 255);    // White
     private static final Color ACCENT_COLOR = new Color(103, 58, 183);       // Purple
+    private static final String LOADING_TEXT = "Loading...";              // 仓库信息加载中的占位文本
+    private static final String SWITCH_JOURNAL = "switch";                // 批量切换的预写日志类型（见 BatchJournal）
 
     // 提交搜索结果数据类
     private static class CommitSearchResult {
@@ -79,7 +87,7 @@ public class InfoPanel extends JPanel {
                 }
                 return false;
             }
-            return column == 3 || column == 7;  // Branch, Action列可编辑
+            return column == 3 || column == 8;  // Branch, Action列可编辑
         }
     }
 
@@ -87,6 +95,7 @@ public class InfoPanel extends JPanel {
         this.dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
         this.logDateFormat = new SimpleDateFormat("HH:mm:ss");
         this.repoBranchesMap = new HashMap<>();
+        this.repoBranchIndexMap = new HashMap<>();
         initializeUI();
         loadFontSettings();
 
@@ -206,6 +215,14 @@ public class InfoPanel extends JPanel {
         applyAllButton.addActionListener(this::onApplyAll);
         contentPanel.add(applyAllButton);
 
+        JButton resumeButton = new JButton("Resume");
+        resumeButton.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        resumeButton.setPreferredSize(new Dimension(90, 32));
+        resumeButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        resumeButton.setToolTipText("Resume an interrupted batch switch, skipping repositories already switched");
+        resumeButton.addActionListener(this::onResumeApplyAll);
+        contentPanel.add(resumeButton);
+
         outerPanel.add(contentPanel, BorderLayout.CENTER);
         return outerPanel;
     }
@@ -323,6 +340,9 @@ public class InfoPanel extends JPanel {
     }
 
     public void displayInfo(File fileOrDirectory) {
+        cancelFileHistory();
+        cancelSubdirectoryScan();
+        restoredCheckboxStates = null;
         this.currentDirectory = fileOrDirectory;
         mainPanel.removeAll();
 
@@ -336,6 +356,7 @@ public class InfoPanel extends JPanel {
 
             if (GitInfoExtractor.isGitRepository(fileOrDirectory)) {
                 addGitRepositoryPanel(fileOrDirectory);
+                CommitGraphMaintainer.scheduleUpdate(fileOrDirectory);
             } else {
                 addNotGitRepoPanel();
             }
@@ -543,10 +564,15 @@ public class InfoPanel extends JPanel {
         }
 
         repoBranchesMap.clear();
+        repoBranchIndexMap.clear();
+        batchPanelsAdded = false;
 
-        String[] columnNames = {"Select", "Name", "Type", "Branch", "Remote", "Last Modified", "Author", "Action"};
+        String[] columnNames = {"Select", "Name", "Type", "Branch", "Remote", "Last Modified", "Author", "Changes", "Action"};
         tableModel = new NonEditableTableModel(new Object[][]{}, columnNames);
 
+        // 先显示目录名和上次保存的快照，仓库信息由后台扫描逐行校验和填充
+        Map<String, WorkspaceSnapshot.Entry> snapshot = WorkspaceSnapshot.load(directory);
+        Map<File, Integer> repoRows = new LinkedHashMap<>();
         for (File child : children) {
             if (child.isDirectory() && !child.getName().startsWith(".")) {
                 Vector<Object> row = new Vector<>();
@@ -563,47 +589,16 @@ public class InfoPanel extends JPanel {
                 row.add(child.getName());
 
                 if (isGitRepo) {
-                    GitInfoExtractor.GitRepositoryInfo repoInfo = GitInfoExtractor.getRepositoryInfo(child);
                     row.add("[Git Repo]");
-
-                    if (repoInfo != null) {
-                        String currentBranch = repoInfo.getCurrentBranch();
-                        row.add(currentBranch);
-
-                        java.util.List<String> allBranches = GitOperations.getRemoteBranches(child);
-                        java.util.List<String> displayBranches = new ArrayList<>();
-                        for (String branch : allBranches) {
-                            String displayName = branch.replace("origin/", "");
-                            if (!displayBranches.contains(displayName)) {
-                                displayBranches.add(displayName);
-                            }
-                        }
-                        repoBranchesMap.put(child.getAbsolutePath(), displayBranches);
-
-                        if (repoInfo.getRemoteUrls() != null && !repoInfo.getRemoteUrls().isEmpty()) {
-                            row.add(extractRemoteName(repoInfo.getRemoteUrls().get(0)));
-                        } else {
-                            row.add("-");
-                        }
-                        if (repoInfo.getLastCommit() != null) {
-                            row.add(formatDate(repoInfo.getLastCommit().getCommitTime()));
-                            row.add(repoInfo.getLastCommit().getAuthor());
-                        } else {
-                            row.add("-");
-                            row.add("-");
-                        }
-                    } else {
-                        row.add("-");
-                        row.add("-");
-                        row.add("-");
-                        row.add("-");
-                    }
+                    addRepositoryCells(row, child, snapshot.get(child.getName()));
+                    repoRows.put(child, tableModel.getRowCount());
                 } else {
                     row.add("Directory");
                     row.add("-");
                     row.add("-");
                     row.add("-");
                     row.add("-");
+                    row.add("-");
                 }
 
                 row.add("Switch");
@@ -611,6 +606,21 @@ public class InfoPanel extends JPanel {
             }
         }
 
+        // 快照中的嵌套仓库也先显示，后台发现时不再重复添加
+        for (WorkspaceSnapshot.Entry entry : snapshot.values()) {
+            File repoDir = new File(directory, entry.getName());
+            if (entry.getName().contains("/") && GitInfoExtractor.isGitRepository(repoDir)) {
+                Vector<Object> row = new Vector<>();
+                row.add(Boolean.FALSE);
+                row.add(entry.getName());
+                row.add("[Git Repo]");
+                addRepositoryCells(row, repoDir, entry);
+                row.add("Switch");
+                repoRows.put(repoDir, tableModel.getRowCount());
+                tableModel.addRow(row);
+            }
+        }
+
         if (tableModel.getRowCount() > 0) {
             JPanel tablePanel = new JPanel(new BorderLayout());
             tablePanel.setBackground(PANEL_BG_COLOR);
@@ -623,7 +633,7 @@ public class InfoPanel extends JPanel {
                     // 始终使用斑马纹颜色，忽略选中状态
                     c.setBackground(row % 2 == 0 ? EVEN_ROW_COLOR : ODD_ROW_COLOR);
                     // 特殊处理 Action 列的按钮
-                    if (column == 7 && c instanceof JButton) {
+                    if (column == 8 && c instanceof JButton) {
                         // 按钮保持自己的背景色
                     }
                     return c;
@@ -655,6 +665,7 @@ public class InfoPanel extends JPanel {
             gitReposTable.getColumnModel().getColumn(4).setPreferredWidth(120);  // Remote
             gitReposTable.getColumn("Last Modified").setPreferredWidth(150);
             gitReposTable.getColumn("Author").setPreferredWidth(120);
+            gitReposTable.getColumn("Changes").setPreferredWidth(160);
             gitReposTable.getColumn("Action").setPreferredWidth(80);
 
             // 为 Select 列添加复选框渲染器和编辑器
@@ -687,8 +698,8 @@ public class InfoPanel extends JPanel {
             gitReposTable.getColumnModel().getColumn(3).setCellEditor(new BranchCellEditor());
 
             // 为 Action 列设置按钮渲染器和编辑器
-            gitReposTable.getColumnModel().getColumn(7).setCellRenderer(new ButtonCellRenderer());
-            gitReposTable.getColumnModel().getColumn(7).setCellEditor(new ButtonCellEditor());
+            gitReposTable.getColumnModel().getColumn(8).setCellRenderer(new ButtonCellRenderer());
+            gitReposTable.getColumnModel().getColumn(8).setCellEditor(new ButtonCellEditor());
 
             JScrollPane tableScroll = new JScrollPane(gitReposTable);
             tableScroll.setBorder(BorderFactory.createLineBorder(BORDER_COLOR, 1));
@@ -701,17 +712,7 @@ public class InfoPanel extends JPanel {
             boolean hasGitRepos = hasGitRepositories();
             
             if (hasGitRepos) {
-                // 添加批量Switch面板
-                JPanel batchSwitchPanel = createBatchSwitchPanel();
-                mainPanel.add(batchSwitchPanel);
-                
-                // 添加Message查询面板
-                JPanel messageSearchPanel = createMessageSearchPanel();
-                mainPanel.add(messageSearchPanel);
-
-                // 添加Batch Cherry-Pick面板
-                JPanel batchCherryPickPanel = createBatchCherryPickPanel();
-                mainPanel.add(batchCherryPickPanel);
+                addBatchPanels();
             }
 
             // 添加鼠标监听器，监听双击事件
@@ -730,7 +731,262 @@ public class InfoPanel extends JPanel {
                     }
                 }
             });
+
+            scanRepositoryRows(directory, repoRows, snapshot);
+        }
+    }
+
+    /**
+     * 仓库行的 Branch、Remote、Last Modified、Author、Changes 列：有快照时直接显示快照，否则显示加载中
+     * （工作区状态不保存在快照中，总是由后台扫描填充）
+     */
+    private void addRepositoryCells(Vector<Object> row, File repoDir, WorkspaceSnapshot.Entry cached) {
+        if (cached == null) {
+            row.add(LOADING_TEXT);
+            row.add(LOADING_TEXT);
+            row.add(LOADING_TEXT);
+            row.add(LOADING_TEXT);
+            row.add(LOADING_TEXT);
+            return;
         }
+        repoBranchesMap.put(repoDir.getAbsolutePath(), cached.getBranches());
+        repoBranchIndexMap.remove(repoDir.getAbsolutePath());
+        row.add(cached.getCurrentBranch());
+        row.add(cached.getRemote());
+        row.add(cached.getLastCommitTime() != 0 ? formatDate(cached.getLastCommitTime()) : "-");
+        row.add(cached.getAuthor());
+        row.add(LOADING_TEXT);
+    }
+
+    /**
+     * 在后台查找嵌套在分组目录中的仓库（以及子模块）并追加到表格，
+     * 然后并行校验各仓库：状态戳与快照相同的仓库不再读取，其余仓库读取分支、远程和最后提交并填充对应的行，
+     * 全部完成后保存新的快照，最后并行检查各仓库的工作区状态（Changes 列）。
+     * 切换到其他目录时取消（见 cancelSubdirectoryScan）
+     */
+    private void scanRepositoryRows(File directory, Map<File, Integer> repoRows,
+                                    Map<String, WorkspaceSnapshot.Entry> snapshot) {
+        CancellationToken token = new CancellationToken();
+        subdirectoryScanToken = token;
+        DefaultTableModel model = tableModel;
+        int firstNestedRow = model.getRowCount();
+        Path base = directory.getAbsoluteFile().toPath().normalize();
+
+        // 发布的事件：String 为新发现仓库的相对路径（追加一行），RepoRowInfo 为读取完成的仓库信息，
+        // RepoRowStatus 为仓库的工作区状态
+        SwingWorker<Void, Object> worker = new SwingWorker<Void, Object>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                java.util.List<Map.Entry<File, Integer>> entries = new ArrayList<>(repoRows.entrySet());
+                Set<Path> listed = new HashSet<>();
+                for (File repoDir : repoRows.keySet()) {
+                    listed.add(repoDir.getAbsoluteFile().toPath().normalize());
+                }
+                int[] nextRow = {firstNestedRow};
+
+                // 第一层的仓库已经在表格中，只追加更深层的仓库
+                WorkspaceDiscovery.discover(directory, token, repoDir -> {
+                    synchronized (entries) {
+                        if (listed.contains(repoDir.toPath())) {
+                            return;
+                        }
+                        String name = base.relativize(repoDir.toPath()).toString().replace(File.separatorChar, '/');
+                        entries.add(new AbstractMap.SimpleEntry<>(repoDir, nextRow[0]++));
+                        publish(name);
+                    }
+                });
+
+                RepoRowInfo[] scanned = new RepoRowInfo[entries.size()];
+                MultiRepoExecutor.run(entries, MultiRepoExecutor.DEFAULT_PARALLELISM,
+                        MultiRepoExecutor.Delivery.COMPLETION_ORDER, token, (entry, t) -> {
+                            File repoDir = entry.getKey();
+                            String name = base.relativize(repoDir.getAbsoluteFile().toPath().normalize())
+                                    .toString().replace(File.separatorChar, '/');
+                            return loadRepoRowInfo(repoDir, name, entry.getValue(), snapshot.get(name));
+                        }, result -> {
+                            if (result.isSuccess()) {
+                                scanned[result.getIndex()] = result.getValue();
+                                if (result.getValue().changed) {
+                                    publish(result.getValue());
+                                }
+                            }
+                        });
+
+                if (!token.isCancelled()) {
+                    java.util.List<WorkspaceSnapshot.Entry> snapshotEntries = new ArrayList<>();
+                    for (RepoRowInfo info : scanned) {
+                        if (info != null) {
+                            snapshotEntries.add(info.entry);
+                        }
+                    }
+                    WorkspaceSnapshot.save(directory, snapshotEntries);
+                }
+
+                // 分支等信息填完之后再检查各仓库的工作区状态
+                MultiRepoExecutor.run(entries, MultiRepoExecutor.DEFAULT_PARALLELISM,
+                        MultiRepoExecutor.Delivery.COMPLETION_ORDER, token, (entry, t) -> {
+                            RepoRowStatus status = new RepoRowStatus();
+                            status.row = entry.getValue();
+                            status.counts = WorkingTreeStatus.get(entry.getKey());
+                            return status;
+                        }, result -> {
+                            if (result.isSuccess()) {
+                                publish(result.getValue());
+                            }
+                        });
+                return null;
+            }
+
+            @Override
+            protected void process(java.util.List<Object> events) {
+                if (token.isCancelled() || tableModel != model) {
+                    return;
+                }
+                for (Object event : events) {
+                    if (event instanceof String) {
+                        addNestedRepositoryRow(model, (String) event);
+                        continue;
+                    }
+                    if (event instanceof RepoRowStatus) {
+                        RepoRowStatus status = (RepoRowStatus) event;
+                        model.setValueAt(status.counts != null ? status.counts.getSummary() : "-", status.row, 7);
+                        continue;
+                    }
+                    RepoRowInfo info = (RepoRowInfo) event;
+                    WorkspaceSnapshot.Entry entry = info.entry;
+                    repoBranchesMap.put(info.path, entry.getBranches());
+                    repoBranchIndexMap.remove(info.path);
+                    // 用户已经在加载完成前选择了目标分支时保留用户的选择
+                    Object shownBranch = model.getValueAt(info.row, 3);
+                    if (LOADING_TEXT.equals(shownBranch)
+                            || (info.previous != null && info.previous.getCurrentBranch().equals(shownBranch))) {
+                        model.setValueAt(entry.getCurrentBranch(), info.row, 3);
+                    }
+                    model.setValueAt(entry.getRemote(), info.row, 4);
+                    model.setValueAt(entry.getLastCommitTime() != 0 ? formatDate(entry.getLastCommitTime()) : "-", info.row, 5);
+                    model.setValueAt(entry.getAuthor(), info.row, 6);
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    /**
+     * 追加一个嵌套仓库的行，名称为相对当前目录的路径
+     */
+    private void addNestedRepositoryRow(DefaultTableModel model, String name) {
+        Vector<Object> row = new Vector<>();
+        Boolean selected = restoredCheckboxStates != null ? restoredCheckboxStates.get(name) : null;
+        row.add(selected != null ? selected : Boolean.FALSE);
+        row.add(name);
+        row.add("[Git Repo]");
+        row.add(LOADING_TEXT);
+        row.add(LOADING_TEXT);
+        row.add(LOADING_TEXT);
+        row.add(LOADING_TEXT);
+        row.add(LOADING_TEXT);
+        row.add("Switch");
+        model.addRow(row);
+
+        JScrollPane tableScroll = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, gitReposTable);
+        if (tableScroll != null) {
+            tableScroll.setPreferredSize(new Dimension(Integer.MAX_VALUE, Math.min(350, model.getRowCount() * 32 + 40)));
+            tableScroll.revalidate();
+        }
+
+        if (!batchPanelsAdded) {
+            addBatchPanels();
+            updateFont(AppSettings.getInstance().getRightPanelFont());
+            mainPanel.revalidate();
+            mainPanel.repaint();
+        }
+    }
+
+    /**
+     * 添加批量 Switch、Message 查询和 Batch Cherry-Pick 面板
+     */
+    private void addBatchPanels() {
+        // 添加批量Switch面板
+        JPanel batchSwitchPanel = createBatchSwitchPanel();
+        mainPanel.add(batchSwitchPanel);
+
+        // 添加Message查询面板
+        JPanel messageSearchPanel = createMessageSearchPanel();
+        mainPanel.add(messageSearchPanel);
+
+        // 添加Batch Cherry-Pick面板
+        JPanel batchCherryPickPanel = createBatchCherryPickPanel();
+        mainPanel.add(batchCherryPickPanel);
+        batchPanelsAdded = true;
+    }
+
+    /**
+     * 校验或读取一个仓库行：状态戳与快照相同时直接使用快照
+     */
+    private RepoRowInfo loadRepoRowInfo(File repoDir, String name, int row, WorkspaceSnapshot.Entry cached) {
+        RepoRowInfo info = new RepoRowInfo();
+        info.row = row;
+        info.path = repoDir.getAbsolutePath();
+        info.previous = cached;
+
+        long stamp = WorkspaceSnapshot.stamp(repoDir);
+        if (cached != null && stamp != 0 && cached.getStamp() == stamp) {
+            info.entry = cached;
+            return info;
+        }
+        info.changed = true;
+
+        WorkspaceSnapshot.Entry entry = new WorkspaceSnapshot.Entry();
+        entry.setName(name);
+        entry.setStamp(stamp);
+        info.entry = entry;
+
+        RepositorySummary summary = RepositorySummary.read(repoDir,
+                RepositorySummary.Field.CURRENT_BRANCH, RepositorySummary.Field.REMOTES,
+                RepositorySummary.Field.REMOTE_BRANCHES, RepositorySummary.Field.LAST_COMMIT);
+        if (summary == null) {
+            // 读取失败时下次重新读取
+            entry.setStamp(0);
+            return info;
+        }
+        entry.setCurrentBranch(summary.getCurrentBranch());
+
+        java.util.List<String> branches = new ArrayList<>();
+        for (String branch : summary.getRemoteBranches()) {
+            String displayName = branch.replace("origin/", "");
+            if (!branches.contains(displayName)) {
+                branches.add(displayName);
+            }
+        }
+        entry.setBranches(branches);
+
+        if (!summary.getRemotes().isEmpty()) {
+            entry.setRemote(summary.getRemotes().keySet().iterator().next());
+        }
+        if (summary.getLastCommit() != null) {
+            entry.setLastCommitTime(summary.getLastCommit().getCommitTime());
+            entry.setAuthor(summary.getLastCommit().getAuthor());
+        }
+        return info;
+    }
+
+    /**
+     * 后台扫描得到的一行仓库信息
+     */
+    private static class RepoRowInfo {
+        int row;
+        String path;
+        WorkspaceSnapshot.Entry entry;
+        WorkspaceSnapshot.Entry previous; // 表格中当前显示的快照（可以为null）
+        boolean changed; // 与快照不同，需要更新表格
+    }
+
+    /**
+     * 后台扫描得到的一行仓库的工作区状态
+     */
+    private static class RepoRowStatus {
+        int row;
+        WorkingTreeStatus.Counts counts; // 读取失败时为null
     }
 
     /**
@@ -782,8 +1038,22 @@ public class InfoPanel extends JPanel {
         return false;
     }
 
+    /**
+     * 仓库的分支名索引（分支尚未加载时返回 null）
+     */
+    private BranchIndex getBranchIndex(String dirPath) {
+        java.util.List<String> branches = repoBranchesMap.get(dirPath);
+        if (branches == null) {
+            return null;
+        }
+        return repoBranchIndexMap.computeIfAbsent(dirPath, path -> new BranchIndex(branches));
+    }
+
     private class BranchCellRenderer extends JComboBox<String> implements TableCellRenderer {
+        private final BranchComboBoxModel branchModel = new BranchComboBoxModel();
+
         public BranchCellRenderer() {
+            setModel(branchModel);
             setBorder(BorderFactory.createEmptyBorder());
             setFont(new Font("Segoe UI", Font.PLAIN, 11));
         }
@@ -791,21 +1061,11 @@ public class InfoPanel extends JPanel {
         @Override
         public Component getTableCellRendererComponent(JTable table, Object value,
                 boolean isSelected, boolean hasFocus, int row, int column) {
-            removeAllItems();
-
+            // 渲染器只显示选中项，共享仓库的分支索引，不再每次绘制都重新添加所有分支
             String dirPath = getDirectoryPathForRow(row);
-            if (dirPath != null) {
-                java.util.List<String> branches = repoBranchesMap.get(dirPath);
-                if (branches != null) {
-                    for (String branch : branches) {
-                        addItem(branch);
-                    }
-                }
-            }
-
-            if (value != null) {
-                setSelectedItem(value);
-            }
+            BranchIndex index = dirPath != null ? getBranchIndex(dirPath) : null;
+            branchModel.setIndex(index != null ? index : BranchIndex.EMPTY);
+            branchModel.setSelectedItem(value);
 
             // 始终使用斑马纹颜色，忽略选中状态
             setBackground(row % 2 == 0 ? EVEN_ROW_COLOR : ODD_ROW_COLOR);
@@ -817,13 +1077,14 @@ public class InfoPanel extends JPanel {
 
     private class BranchCellEditor extends AbstractCellEditor implements TableCellEditor {
         private JComboBox<String> comboBox;
-        private java.util.List<String> allBranches;
+        private BranchComboBoxModel branchModel;
         private boolean isFiltering = false;
         private javax.swing.event.DocumentListener documentListener;
         private String initialValue; // 保存初始值
 
         public BranchCellEditor() {
-            comboBox = new JComboBox<>();
+            branchModel = new BranchComboBoxModel();
+            comboBox = new JComboBox<>(branchModel);
             comboBox.setFont(new Font("Segoe UI", Font.PLAIN, 11));
             comboBox.setEditable(true); // 设置为可编辑
             
@@ -858,56 +1119,35 @@ public class InfoPanel extends JPanel {
         }
         
         private void filterBranches() {
-            if (allBranches == null || allBranches.isEmpty() || isFiltering) return;
+            if (branchModel.getIndex().size() == 0 || isFiltering) return;
             
             isFiltering = true; // 设置过滤标志
             
             try {
                 JTextField textField = (JTextField) comboBox.getEditor().getEditorComponent();
                 String filterText = textField.getText();
-                String filterTextLower = filterText.toLowerCase();
                 
                 // 保存当前光标位置
                 int caretPosition = textField.getCaretPosition();
                 
-                // 清空并重新填充
-                comboBox.removeAllItems();
+                // 按索引过滤（没有匹配项时显示所有分支），模型只发出一次变化事件
+                branchModel.filter(filterText);
                 
-                if (filterText.isEmpty()) {
-                    // 如果文本为空，显示所有分支
-                    for (String branch : allBranches) {
-                        comboBox.addItem(branch);
-                    }
-                } else {
-                    // 根据过滤文本筛选分支
-                    boolean hasMatches = false;
-                    for (String branch : allBranches) {
-                        if (branch.toLowerCase().contains(filterTextLower)) {
-                            comboBox.addItem(branch);
-                            hasMatches = true;
-                        }
-                    }
-                    
-                    // 如果没有匹配项，显示所有分支
-                    if (!hasMatches) {
-                        for (String branch : allBranches) {
-                            comboBox.addItem(branch);
-                        }
-                    }
-                    
-                    // 显示下拉列表（只在有输入时，且组件可见且可显示时）
-                    if (comboBox.getItemCount() > 0 && comboBox.isShowing() && comboBox.isDisplayable()) {
-                        try {
-                            comboBox.showPopup();
-                        } catch (IllegalComponentStateException | IllegalArgumentException e) {
-                            // 忽略组件未完全显示时的异常
-                            // 这些异常不影响功能，只是UI渲染时序问题
-                        }
+                // 显示下拉列表（只在有输入时，且组件可见且可显示时）
+                if (!filterText.isEmpty() && comboBox.getItemCount() > 0
+                        && comboBox.isShowing() && comboBox.isDisplayable()) {
+                    try {
+                        comboBox.showPopup();
+                    } catch (IllegalComponentStateException | IllegalArgumentException e) {
+                        // 忽略组件未完全显示时的异常
+                        // 这些异常不影响功能，只是UI渲染时序问题
                     }
                 }
                 
                 // 恢复文本和光标位置（重要：保持用户输入）
-                textField.setText(filterText);
+                if (!filterText.equals(textField.getText())) {
+                    textField.setText(filterText);
+                }
                 textField.setCaretPosition(Math.min(caretPosition, filterText.length()));
                 
             } catch (Exception e) {
@@ -924,17 +1164,12 @@ public class InfoPanel extends JPanel {
             
             String dirPath = getDirectoryPathForRow(row);
             if (dirPath != null) {
-                allBranches = repoBranchesMap.get(dirPath);
+                BranchIndex index = getBranchIndex(dirPath);
                 
                 isFiltering = true;
                 try {
-                    comboBox.removeAllItems();
-                    
-                    if (allBranches != null) {
-                        for (String branch : allBranches) {
-                            comboBox.addItem(branch);
-                        }
-                    }
+                    branchModel.setIndex(index != null ? index : BranchIndex.EMPTY);
+                    branchModel.filter("");
                 } finally {
                     isFiltering = false;
                 }
@@ -1300,7 +1535,7 @@ public class InfoPanel extends JPanel {
             String dirPath = getDirectoryPathForRow(currentRow);
             if (dirPath != null) {
                 Object selectedBranchObj = gitReposTable.getValueAt(currentRow, 3);  // Branch列现在是第3列
-                if (selectedBranchObj != null) {
+                if (selectedBranchObj != null && !LOADING_TEXT.equals(selectedBranchObj)) {
                     String selectedBranch = selectedBranchObj.toString();
                     switchBranchForRepo(dirPath, selectedBranch);
                 }
@@ -1314,14 +1549,8 @@ public class InfoPanel extends JPanel {
         String dirName = (String) tableModel.getValueAt(modelRow, 1);  // Name列现在是第1列
 
         if (currentDirectory != null && dirName != null) {
-            File[] children = currentDirectory.listFiles();
-            if (children != null) {
-                for (File child : children) {
-                    if (child.getName().equals(dirName)) {
-                        return child.getAbsolutePath();
-                    }
-                }
-            }
+            // 渲染器每次重绘都会调用，直接拼接路径而不是列出整个目录
+            return new File(currentDirectory, dirName).getAbsolutePath();
         }
         return null;
     }
@@ -1399,6 +1628,7 @@ public class InfoPanel extends JPanel {
      * 恢复表格中checkbox的状态
      */
     private void restoreCheckboxStates(Map<String, Boolean> states) {
+        restoredCheckboxStates = states;
         if (gitReposTable != null && tableModel != null && states != null) {
             int rowCount = tableModel.getRowCount();
             for (int i = 0; i < rowCount; i++) {
@@ -1595,12 +1825,16 @@ public class InfoPanel extends JPanel {
 
         clearLog(); // 清空之前的日志
 
-        SwingWorker<java.util.List<CommitSearchResult>, String> worker = new SwingWorker<java.util.List<CommitSearchResult>, String>() {
+        // 日志和搜索结果共用 publish 通道，结果一出现就打开对话框并逐步追加；关闭对话框时停止搜索
+        CancellationToken token = new CancellationToken();
+        SwingWorker<Integer, Object> worker = new SwingWorker<Integer, Object>() {
+            private CommitSearchResultDialog dialog;
+
             @Override
-            protected java.util.List<CommitSearchResult> doInBackground() throws Exception {
+            protected Integer doInBackground() throws Exception {
                 // 判断是否为默认模式（无关键词无日期）
                 boolean isDefaultMode = searchKeywords.isEmpty() && startTimestamp == null && endTimestamp == null;
-                int limit = isDefaultMode ? 100 : 500;
+                int limit = 100;
 
                 if (isDefaultMode) {
                     publish("Retrieving first " + limit + " commits from each repository...");
@@ -1618,12 +1852,14 @@ public class InfoPanel extends JPanel {
                 }
                 publish("========================================");
 
-                java.util.List<CommitSearchResult> results = new ArrayList<>();
+                int totalCount = 0;
 
                 // 遍历表格中的所有行，只处理勾选的Git仓库
                 int rowCount = tableModel.getRowCount();
                 int selectedCount = 0;
                 int processedCount = 0;
+                java.util.List<File> selectedRepos = new ArrayList<>();
+                Map<String, String> branchesByRepo = new HashMap<>();
 
                 for (int i = 0; i < rowCount; i++) {
                     // 检查是否勾选
@@ -1639,88 +1875,118 @@ public class InfoPanel extends JPanel {
                         selectedCount++;
                         String dirPath = getDirectoryPathForRow(i);
                         if (dirPath != null) {
-                            File repoDir = new File(dirPath);
-                            String repoName = repoDir.getName();
-                            String currentBranch = (String) tableModel.getValueAt(i, 3);
-
-                            publish("");
-                            publish("[" + selectedCount + "] Searching in: " + repoName);
-
-                            try {
-                                // 获取提交记录
-                                java.util.List<GitInfoExtractor.GitCommitInfo> commits =
-                                    GitInfoExtractor.getRecentCommits(repoDir, limit);
-
-                                int foundCount = 0;
-                                for (GitInfoExtractor.GitCommitInfo commit : commits) {
-                                    // 检查时间范围
-                                    if (startTimestamp != null && commit.getCommitTime() < startTimestamp) {
-                                        continue;
-                                    }
-                                    if (endTimestamp != null && commit.getCommitTime() > endTimestamp) {
-                                        continue;
-                                    }
-
-                                    // 检查关键词（如果不为空）
-                                    if (!searchKeywords.isEmpty() &&
-                                        !commit.getMessage().toLowerCase().contains(searchKeywords.toLowerCase())) {
-                                        continue;
-                                    }
-
-                                    // 获取修改的文件列表
-                                    java.util.List<String> changedFiles =
-                                        GitInfoExtractor.getCommitFiles(repoDir, commit.getCommitId());
-
-                                    CommitSearchResult result = new CommitSearchResult();
-                                    result.projectName = repoName;
-                                    result.branch = currentBranch;
-                                    result.commitId = commit.getCommitId();
-                                    result.message = commit.getMessage();
-                                    result.author = commit.getAuthor();
-                                    result.commitTime = commit.getCommitTime();
-                                    result.changedFiles = String.join(", ", changedFiles);
-
-                                    results.add(result);
-                                    foundCount++;
-                                }
-
-                                publish("  ✓ Found " + foundCount + " commits");
-                                processedCount++;
+                            selectedRepos.add(new File(dirPath));
+                            branchesByRepo.put(dirPath, (String) tableModel.getValueAt(i, 3));
+                        }
+                    }
+                }
 
-                            } catch (Exception ex) {
-                                publish("  ✗ Error searching in " + repoName + ": " + ex.getMessage());
-                            }
+                if (!searchKeywords.isEmpty() && !selectedRepos.isEmpty()) {
+                    // 有关键词时使用工作区全文索引搜索所有仓库的完整历史
+                    try {
+                        java.util.List<CommitSearchIndex.Hit> hits = CommitSearchIndex.forWorkspace(currentDirectory)
+                                .search(selectedRepos, searchKeywords, startTimestamp, endTimestamp, this::publish);
+                        Map<String, Integer> foundByRepo = new LinkedHashMap<>();
+                        for (CommitSearchIndex.Hit hit : hits) {
+                            File repoDir = hit.getRepoDirectory();
+                            publish(toSearchResult(repoDir,
+                                    branchesByRepo.get(repoDir.getAbsolutePath()), hit.getCommit()));
+                            foundByRepo.merge(repoDir.getName(), 1, Integer::sum);
                         }
+                        totalCount = hits.size();
+                        for (File repoDir : selectedRepos) {
+                            publish("  " + repoDir.getName() + ": " + foundByRepo.getOrDefault(repoDir.getName(), 0) + " commits");
+                        }
+                        processedCount = selectedRepos.size();
+                    } catch (Exception ex) {
+                        publish("  ✗ Error searching commit index: " + ex.getMessage());
                     }
+                } else {
+                    java.util.function.Predicate<GitInfoExtractor.GitCommitInfo> filter = commit -> {
+                        // 检查时间范围
+                        if (startTimestamp != null && commit.getCommitTime() < startTimestamp) {
+                            return false;
+                        }
+                        return endTimestamp == null || commit.getCommitTime() <= endTimestamp;
+                    };
+                    // 指定日期范围时查询完整历史（有索引时直接从索引读取），否则只看最近的提交
+                    int maxScanned = startTimestamp != null || endTimestamp != null ? Integer.MAX_VALUE : limit;
+
+                    // 各仓库并行查询，结果一找到就追加到对话框，日志按勾选顺序输出
+                    int[] totals = new int[2]; // 提交数, 已处理仓库数
+                    MultiRepoExecutor.run(selectedRepos, token, (repoDir, t) -> {
+                        String currentBranch = branchesByRepo.get(repoDir.getAbsolutePath());
+                        int[] foundCount = {0};
+                        GitInfoExtractor.streamCommitsWithFiles(repoDir, maxScanned, filter, t, commit -> {
+                            publish(toSearchResult(repoDir, currentBranch, commit));
+                            foundCount[0]++;
+                            return true;
+                        });
+                        return foundCount[0];
+                    }, result -> {
+                        if (result.isCancelled()) {
+                            return;
+                        }
+                        String repoName = result.getItem().getName();
+                        publish("");
+                        publish("[" + (result.getIndex() + 1) + "] Searching in: " + repoName);
+                        if (result.isSuccess()) {
+                            totals[0] += result.getValue();
+                            totals[1]++;
+                            publish("  ✓ Found " + result.getValue() + " commits");
+                        } else {
+                            publish("  ✗ Error searching in " + repoName + ": " + result.getError().getMessage());
+                        }
+                    });
+                    totalCount += totals[0];
+                    processedCount += totals[1];
                 }
 
                 publish("");
                 publish("========================================");
                 if (selectedCount == 0) {
                     publish("⚠ No repositories selected.");
+                } else if (token.isCancelled()) {
+                    publish("Search stopped (results dialog closed).");
                 } else {
                     publish("Search completed!");
-                    publish("Processed: " + processedCount + " repositories, Total commits: " + results.size());
+                    publish("Processed: " + processedCount + " repositories, Total commits: " + totalCount);
                 }
 
-                return results;
+                return totalCount;
             }
 
             @Override
-            protected void process(java.util.List<String> chunks) {
-                for (String message : chunks) {
-                    appendLog(message);
+            protected void process(java.util.List<Object> chunks) {
+                java.util.List<CommitSearchResult> results = new ArrayList<>();
+                for (Object chunk : chunks) {
+                    if (chunk instanceof CommitSearchResult) {
+                        results.add((CommitSearchResult) chunk);
+                    } else {
+                        appendLog(String.valueOf(chunk));
+                    }
+                }
+                if (results.isEmpty() || token.isCancelled()) {
+                    return;
+                }
+
+                if (dialog == null) {
+                    // 显示搜索结果对话框，后续结果继续追加
+                    dialog = new CommitSearchResultDialog(null, searchKeywords, results, currentDirectory);
+                    dialog.startStreaming(token);
+                    CommitSearchResultDialog shownDialog = dialog;
+                    SwingUtilities.invokeLater(() -> shownDialog.setVisible(true));
+                } else {
+                    dialog.addResults(results);
                 }
             }
 
             @Override
             protected void done() {
                 try {
-                    java.util.List<CommitSearchResult> results = get();
-                    if (!results.isEmpty()) {
-                        // 显示搜索结果对话框
-                        CommitSearchResultDialog dialog = new CommitSearchResultDialog(null, searchKeywords, results, currentDirectory);
-                        dialog.setVisible(true);
+                    get();
+                    if (dialog != null) {
+                        dialog.finishStreaming();
                     } else {
                         appendLog("No commits found.");
                     }
@@ -1734,6 +2000,29 @@ public class InfoPanel extends JPanel {
         worker.execute();
     }
 
+    /**
+     * 将提交信息转换为搜索结果行
+     */
+    private static CommitSearchResult toSearchResult(File repoDir, String branch,
+                                                     GitInfoExtractor.GitCommitInfo commit) {
+        java.util.List<String> changedFiles = new ArrayList<>();
+        if (commit.getChangedFiles() != null) {
+            for (GitInfoExtractor.ChangedFile changedFile : commit.getChangedFiles()) {
+                changedFiles.add(changedFile.toString());
+            }
+        }
+
+        CommitSearchResult result = new CommitSearchResult();
+        result.projectName = repoDir.getName();
+        result.branch = branch;
+        result.commitId = commit.getCommitId();
+        result.message = commit.getMessage();
+        result.author = commit.getAuthor();
+        result.commitTime = commit.getCommitTime();
+        result.changedFiles = String.join(", ", changedFiles);
+        return result;
+    }
+
     private void onApplyAll(ActionEvent e) {
         if (currentDirectory == null) {
             return;
@@ -1746,58 +2035,118 @@ public class InfoPanel extends JPanel {
         }
 
         clearLog(); // 清空之前的日志
+        runBatchSwitch(targetBranch, null);
+    }
+
+    /**
+     * 继续执行上次中断的批量切换：只处理预写日志中没有成功完成的仓库
+     */
+    private void onResumeApplyAll(ActionEvent e) {
+        if (currentDirectory == null) {
+            return;
+        }
+
+        BatchJournal journal = BatchJournal.findUnfinished(SWITCH_JOURNAL, currentDirectory.getAbsolutePath());
+        if (journal == null) {
+            appendLog("⚠ No interrupted batch switch found for this directory.");
+            return;
+        }
+        int total = journal.getSteps().size();
+        int completed = journal.getCompletedCount();
+        int choice = JOptionPane.showConfirmDialog(this,
+                "Batch switch to '" + journal.getParameter() + "' started at "
+                        + formatDate(journal.getCreatedTime()) + " did not finish.\n"
+                        + completed + " of " + total + " repositories were switched.\n\n"
+                        + "Resume and process the remaining " + (total - completed) + " repositories?",
+                "Resume Batch Switch",
+                JOptionPane.YES_NO_OPTION);
+        if (choice != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        batchBranchTextField.setText(journal.getParameter());
+        clearLog();
+        runBatchSwitch(journal.getParameter(), journal);
+    }
+
+    /**
+     * 批量切换勾选的仓库（resumeJournal 不为 null 时继续执行该批次中未完成的仓库）
+     * 每个仓库开始前和完成后都写入预写日志，程序中途退出后可以用 Resume 继续
+     */
+    private void runBatchSwitch(String targetBranch, BatchJournal resumeJournal) {
+        String scope = currentDirectory.getAbsolutePath();
 
         SwingWorker<Void, String> worker = new SwingWorker<Void, String>() {
             @Override
             protected Void doInBackground() throws Exception {
-                publish("Starting batch switch to branch: " + targetBranch);
+                java.util.List<File> selectedRepos = new ArrayList<>();
+                BatchJournal journal = resumeJournal != null ? resumeJournal
+                        : collectSelectedRepos(selectedRepos, scope, targetBranch);
+                if (resumeJournal != null) {
+                    for (BatchJournal.Step step : journal.getSteps()) {
+                        if (step.getState() != BatchJournal.StepState.DONE) {
+                            selectedRepos.add(new File(step.getKey()));
+                        }
+                    }
+                    publish("Resuming batch switch to branch: " + targetBranch);
+                    publish("Skipping " + journal.getCompletedCount() + " repositories already switched");
+                } else {
+                    publish("Starting batch switch to branch: " + targetBranch);
+                }
                 publish("========================================");
-
-                // 遍历表格中的所有行，只处理勾选的Git仓库
-                int rowCount = tableModel.getRowCount();
-                int successCount = 0;
-                int failCount = 0;
-                int selectedCount = 0;
-
-                for (int i = 0; i < rowCount; i++) {
-                    // 检查是否勾选
-                    Boolean selected = (Boolean) tableModel.getValueAt(i, 0);
-                    if (selected == null || !selected) {
-                        continue;  // 跳过未勾选的行
+                int selectedCount = selectedRepos.size();
+                int[] counts = new int[2]; // 成功, 失败
+                java.util.List<String> failedRepos = new ArrayList<>();
+                java.util.List<String> pullFailedRepos = new ArrayList<>();
+
+                // 两阶段流水线：先只拉取目标分支（同一远程主机的仓库限制并发数），
+                // 拉取完成的仓库随即在本地切换并合并，不再第二次访问远程；日志按完成顺序输出
+                long startTime = System.currentTimeMillis();
+                int[] finished = {0};
+                MultiRepoExecutor.runPipeline(selectedRepos, MultiRepoExecutor.DEFAULT_PARALLELISM,
+                        GitOperations::getRemoteHost, MultiRepoExecutor.DEFAULT_PER_HOST_PARALLELISM,
+                        (repoDir, token) -> {
+                            journal.started(repoDir.getAbsolutePath());
+                            return GitOperations.fetchBranch(repoDir, targetBranch);
+                        },
+                        MultiRepoExecutor.DEFAULT_LOCAL_PARALLELISM, (repoDir, fetched, token) -> {
+                    boolean switched = GitOperations.checkoutBranch(repoDir, targetBranch);
+                    boolean pulled = switched && fetched && GitOperations.mergeUpstream(repoDir);
+                    journal.finished(repoDir.getAbsolutePath(), switched && pulled, GitOperations.getHeadCommitId(repoDir),
+                            !switched ? "Switch failed" : !fetched ? "Fetch failed" : pulled ? null : "Pull failed");
+                    return new boolean[] {switched, fetched, pulled};
+                }, MultiRepoExecutor.Delivery.COMPLETION_ORDER, null, result -> {
+                    publish("");
+                    publish("[" + (++finished[0]) + "/" + selectedCount + "] " + result.getItem().getName());
+                    boolean[] outcome = result.getValue();
+                    if (outcome == null) {
+                        journal.finished(result.getItem().getAbsolutePath(), false, null, "Failed");
                     }
-
-                    String type = (String) tableModel.getValueAt(i, 2);
-
-                    // 只处理Git仓库
-                    if ("[Git Repo]".equals(type)) {
-                        selectedCount++;
-                        String dirPath = getDirectoryPathForRow(i);
-                        if (dirPath != null) {
-                            File repoDir = new File(dirPath);
-                            publish("");
-                            publish("[" + selectedCount + "] Processing: " + repoDir.getName());
-
-                            // 切换分支
-                            boolean switchSuccess = GitOperations.switchBranch(repoDir, targetBranch);
-                            if (switchSuccess) {
-                                publish("  ✓ Branch switched to " + targetBranch);
-
-                                // Pull最新代码
-                                publish("  Pulling latest changes...");
-                                boolean pullSuccess = GitOperations.pull(repoDir);
-                                if (pullSuccess) {
-                                    publish("  ✓ Pull completed successfully!");
-                                    successCount++;
-                                } else {
-                                    publish("  ⚠ Pull failed or had conflicts.");
-                                    successCount++; // switch成功也算
-                                }
-                            } else {
-                                publish("  ✗ Failed to switch branch.");
-                                failCount++;
-                            }
+                    if (outcome != null && outcome[0]) {
+                        publish("  ✓ Branch switched to " + targetBranch);
+                        if (!outcome[1]) {
+                            publish("  ⚠ Fetch failed, branch not updated.");
+                            pullFailedRepos.add(result.getItem().getName());
+                        } else if (outcome[2]) {
+                            publish("  ✓ Pull completed successfully!");
+                        } else {
+                            publish("  ⚠ Pull failed or had conflicts.");
+                            pullFailedRepos.add(result.getItem().getName());
                         }
+                        counts[0]++; // switch成功也算
+                    } else {
+                        publish("  ✗ Failed to switch branch.");
+                        failedRepos.add(result.getItem().getName());
+                        counts[1]++;
                     }
+                });
+                int successCount = counts[0];
+                int failCount = counts[1];
+
+                // 全部仓库都切换并更新成功时批次结束，否则保留为未完成，可以用 Resume 重试失败的仓库
+                boolean allDone = journal.getCompletedCount() == journal.getSteps().size();
+                if (allDone) {
+                    journal.close();
                 }
 
                 publish("");
@@ -1806,7 +2155,17 @@ public class InfoPanel extends JPanel {
                     publish("⚠ No repositories selected.");
                 } else {
                     publish("Batch operation completed!");
-                    publish("Processed: " + selectedCount + ", Success: " + successCount + ", Failed: " + failCount);
+                    publish("Processed: " + selectedCount + ", Success: " + successCount + ", Failed: " + failCount
+                            + " (" + (System.currentTimeMillis() - startTime) / 1000 + "s)");
+                    if (!failedRepos.isEmpty()) {
+                        publish("Switch failed: " + String.join(", ", failedRepos));
+                    }
+                    if (!pullFailedRepos.isEmpty()) {
+                        publish("Pull failed: " + String.join(", ", pullFailedRepos));
+                    }
+                    if (!allDone) {
+                        publish("Use Resume to retry the repositories that did not complete.");
+                    }
                 }
 
                 return null;
@@ -1833,6 +2192,42 @@ public class InfoPanel extends JPanel {
         worker.execute();
     }
 
+    /**
+     * 收集表格中勾选的 Git 仓库，并为它们开始一个新的批量切换日志（同一目录上次未完成的批次被新批次取代）
+     */
+    private BatchJournal collectSelectedRepos(java.util.List<File> selectedRepos, String scope, String targetBranch) {
+        // 遍历表格中的所有行，只处理勾选的Git仓库
+        int rowCount = tableModel.getRowCount();
+
+        for (int i = 0; i < rowCount; i++) {
+            // 检查是否勾选
+            Boolean selected = (Boolean) tableModel.getValueAt(i, 0);
+            if (selected == null || !selected) {
+                continue;  // 跳过未勾选的行
+            }
+
+            String type = (String) tableModel.getValueAt(i, 2);
+
+            // 只处理Git仓库
+            if ("[Git Repo]".equals(type)) {
+                String dirPath = getDirectoryPathForRow(i);
+                if (dirPath != null) {
+                    selectedRepos.add(new File(dirPath));
+                }
+            }
+        }
+
+        Map<String, String> plannedSteps = new LinkedHashMap<>();
+        for (File repo : selectedRepos) {
+            plannedSteps.put(repo.getAbsolutePath(), repo.getName());
+        }
+        BatchJournal previous = BatchJournal.findUnfinished(SWITCH_JOURNAL, scope);
+        if (previous != null) {
+            previous.close();
+        }
+        return BatchJournal.begin(SWITCH_JOURNAL, scope, targetBranch, plannedSteps);
+    }
+
     private void onBatchCherryPick(ActionEvent e) {
         if (currentDirectory == null) {
             JOptionPane.showMessageDialog(this,
@@ -1851,6 +2246,8 @@ public class InfoPanel extends JPanel {
     }
 
     public void clearInfo() {
+        cancelFileHistory();
+        cancelSubdirectoryScan();
         mainPanel.removeAll();
         JLabel label = new JLabel("Select a directory from the tree to view its information.",
                 SwingConstants.CENTER);
@@ -1861,6 +2258,26 @@ public class InfoPanel extends JPanel {
         mainPanel.repaint();
     }
 
+    /**
+     * 切换到其他文件或目录时停止仍在进行的子目录扫描
+     */
+    private void cancelSubdirectoryScan() {
+        if (subdirectoryScanToken != null) {
+            subdirectoryScanToken.cancel();
+            subdirectoryScanToken = null;
+        }
+    }
+
+    /**
+     * 切换到其他文件或目录时停止仍在加载的文件历史
+     */
+    private void cancelFileHistory() {
+        if (fileHistoryToken != null) {
+            fileHistoryToken.cancel();
+            fileHistoryToken = null;
+        }
+    }
+
     private String formatDate(long timestamp) {
         return dateFormat.format(new Date(timestamp));
     }
@@ -1883,17 +2300,6 @@ public class InfoPanel extends JPanel {
         return String.join(", ", urls);
     }
 
-    private String extractRemoteName(String remote) {
-        if (remote == null) {
-            return "-";
-        }
-        int colonIndex = remote.indexOf(" : ");
-        if (colonIndex > 0) {
-            return remote.substring(0, colonIndex);
-        }
-        return remote;
-    }
-    
     /**
      * 显示文件的提交历史
      */
@@ -1934,11 +2340,25 @@ public class InfoPanel extends JPanel {
         historyPanel.setBorder(createStyledBorder("Commit History"));
         historyPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 600));
         
-        String[] columnNames = {"Commit ID", "Date", "Author", "Message"};
-        DefaultTableModel tableModel = new DefaultTableModel(columnNames, 0) {
+        // 表格直接使用读取到的提交，日期和消息在显示时才格式化
+        IndexedTableModel<GitInfoExtractor.GitCommitInfo> tableModel =
+                new IndexedTableModel<GitInfoExtractor.GitCommitInfo>("Commit ID", "Date", "Author", "Message") {
             @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
+            protected Object getCellValue(GitInfoExtractor.GitCommitInfo commit, int column) {
+                switch (column) {
+                    case 0: return commit.getCommitId(); // 显示完整的commit ID
+                    case 1: return dateFormat.format(new Date(commit.getCommitTime()));
+                    case 2: return commit.getAuthor();
+                    default: return truncateMessage(commit.getMessage());
+                }
+            }
+
+            @Override
+            protected java.util.Comparator<GitInfoExtractor.GitCommitInfo> getColumnComparator(int column) {
+                if (column == 1) {
+                    return java.util.Comparator.comparingLong(GitInfoExtractor.GitCommitInfo::getCommitTime);
+                }
+                return super.getColumnComparator(column);
             }
         };
         
@@ -1953,7 +2373,7 @@ public class InfoPanel extends JPanel {
             }
         };
         
-        historyTable.setAutoCreateRowSorter(true);
+        tableModel.installSortHeader(historyTable);
         historyTable.setRowHeight(28);
         historyTable.setIntercellSpacing(new Dimension(0, 0));
         historyTable.setShowGrid(false);
@@ -1991,42 +2411,47 @@ public class InfoPanel extends JPanel {
                 if (e.getClickCount() == 2) {
                     int selectedRow = historyTable.getSelectedRow();
                     if (selectedRow >= 0) {
-                        int modelRow = historyTable.convertRowIndexToModel(selectedRow);
-                        String commitId = (String) tableModel.getValueAt(modelRow, 0);
-                        // 现在表格中直接存储完整的commit ID
+                        String commitId = tableModel.getRow(selectedRow).getCommitId();
                         showFileDiff(finalRepoDir, finalRelativePath, commitId);
                     }
                 }
             }
         });
         
-        // 异步加载提交历史
-        SwingWorker<java.util.List<GitInfoExtractor.GitCommitInfo>, Void> worker = 
-            new SwingWorker<java.util.List<GitInfoExtractor.GitCommitInfo>, Void>() {
+        // 异步流式加载提交历史，读取到的提交立即显示
+        CancellationToken token = new CancellationToken();
+        fileHistoryToken = token;
+        SwingWorker<Integer, GitInfoExtractor.GitCommitInfo> worker = 
+            new SwingWorker<Integer, GitInfoExtractor.GitCommitInfo>() {
             @Override
-            protected java.util.List<GitInfoExtractor.GitCommitInfo> doInBackground() throws Exception {
-                return GitInfoExtractor.getFileCommitHistory(finalRepoDir, finalRelativePath, 100);
+            protected Integer doInBackground() throws Exception {
+                int[] count = {0};
+                GitInfoExtractor.streamFileCommitHistory(finalRepoDir, finalRelativePath, 100, token, commit -> {
+                    publish(commit);
+                    count[0]++;
+                    return true;
+                });
+                // 查询结束后再在后台更新 commit-graph，下一次查询文件历史时可以使用
+                CommitGraphMaintainer.scheduleUpdate(finalRepoDir);
+                return count[0];
+            }
+
+            @Override
+            protected void process(java.util.List<GitInfoExtractor.GitCommitInfo> commits) {
+                if (token.isCancelled()) {
+                    return;
+                }
+                tableModel.addRows(commits);
             }
             
             @Override
             protected void done() {
+                if (token.isCancelled()) {
+                    return;
+                }
                 try {
-                    java.util.List<GitInfoExtractor.GitCommitInfo> commits = get();
-                    for (GitInfoExtractor.GitCommitInfo commit : commits) {
-                        String fullId = commit.getCommitId();
-                        
-                        // 不再需要shortIdToFullIdMap，直接使用完整ID
-                        
-                        Object[] row = {
-                            fullId, // 显示完整的commit ID
-                            dateFormat.format(new Date(commit.getCommitTime())),
-                            commit.getAuthor(),
-                            truncateMessage(commit.getMessage())
-                        };
-                        tableModel.addRow(row);
-                    }
-                    
-                    if (commits.isEmpty()) {
+                    int count = get();
+                    if (count == 0) {
                         JLabel emptyLabel = new JLabel("No commit history found for this file.", SwingConstants.CENTER);
                         emptyLabel.setFont(new Font("Segoe UI", Font.ITALIC, 12));
                         emptyLabel.setForeground(new Color(154, 160, 166));
@@ -2150,16 +2575,8 @@ public class InfoPanel extends JPanel {
      * 获取Git仓库的远程URL
      */
     private String getRemoteUrl(File repoDir) {
-        try {
-            org.eclipse.jgit.storage.file.FileRepositoryBuilder builder = new org.eclipse.jgit.storage.file.FileRepositoryBuilder();
-            org.eclipse.jgit.lib.Repository repository = builder
-                    .setGitDir(new java.io.File(repoDir, ".git"))
-                    .readEnvironment()
-                    .findGitDir()
-                    .build();
-            
-            String url = repository.getConfig().getString("remote", "origin", "url");
-            repository.close();
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(repoDir)) {
+            String url = handle.getRepository().getConfig().getString("remote", "origin", "url");
             
             return url != null ? url : "No remote URL configured";
         } catch (Exception e) {
@@ -2200,9 +2617,8 @@ public class InfoPanel extends JPanel {
         private static final Color EVEN_ROW_COLOR = new Color(245, 248, 250);
 
         private JTable resultsTable;
-        private DefaultTableModel tableModel;
+        private CommitSearchTableModel tableModel; // 全部结果保存在模型中，过滤和排序只改变显示顺序
         private SimpleDateFormat dateFormat;
-        private java.util.List<CommitSearchResult> originalResults;
         private JTextField projectFilterField;
         private JTextField keywordFilterField;
         private JTextField authorFilterField;
@@ -2210,11 +2626,11 @@ public class InfoPanel extends JPanel {
         private JTextArea commitDetailsTextArea;
         private String currentCommitUrl;
         private File currentDirectory; // 保存当前目录的引用
+        private CancellationToken searchToken; // 搜索仍在进行时的取消标记
 
         public CommitSearchResultDialog(Frame parent, String searchKeywords, java.util.List<CommitSearchResult> results, File currentDir) {
             super(parent, "Commit Search Results", true);
             this.dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-            this.originalResults = new ArrayList<>(results); // 保存原始结果
             this.currentDirectory = currentDir; // 保存当前目录
             initializeUI(results);
             setLocationRelativeTo(parent);
@@ -2241,16 +2657,10 @@ public class InfoPanel extends JPanel {
             mainPanel.add(statsPanel, BorderLayout.CENTER);
 
             // 创建表格
-            String[] columnNames = {"Project Name", "Branch", "Commit Code", "Date", "Author", "Message", "Changed Files"};
-            tableModel = new DefaultTableModel(columnNames, 0) {
-                @Override
-                public boolean isCellEditable(int row, int column) {
-                    return false;
-                }
-            };
+            tableModel = new CommitSearchTableModel();
 
             // 填充数据
-            populateTable(results);
+            tableModel.addRows(results);
 
             resultsTable = new JTable(tableModel) {
                 @Override
@@ -2263,7 +2673,7 @@ public class InfoPanel extends JPanel {
                 }
             };
 
-            resultsTable.setAutoCreateRowSorter(true);
+            tableModel.installSortHeader(resultsTable);
             resultsTable.setRowHeight(28);
             resultsTable.setIntercellSpacing(new Dimension(0, 0));
             resultsTable.setShowGrid(false);
@@ -2290,7 +2700,7 @@ public class InfoPanel extends JPanel {
             resultsTable.getColumnModel().getColumn(6).setPreferredWidth(300);  // Changed Files
 
             // 为Changed Files列设置自定义渲染器，支持工具提示
-            resultsTable.getColumnModel().getColumn(6).setCellRenderer(new ChangedFilesRenderer(originalResults));
+            resultsTable.getColumnModel().getColumn(6).setCellRenderer(new ChangedFilesRenderer());
 
             JScrollPane tableScroll = new JScrollPane(resultsTable);
             tableScroll.setBorder(BorderFactory.createLineBorder(BORDER_COLOR, 1));
@@ -2362,11 +2772,7 @@ public class InfoPanel extends JPanel {
                     int selectedRow = resultsTable.getSelectedRow();
                     if (selectedRow >= 0) {
                         // 获取选中的commit信息
-                        int modelRow = resultsTable.convertRowIndexToModel(selectedRow);
-                        String projectName = (String) tableModel.getValueAt(modelRow, 0);
-                        String branch = (String) tableModel.getValueAt(modelRow, 1);
-                        String commitId = (String) tableModel.getValueAt(modelRow, 2);
-                        displayCommitDetails(projectName, branch, commitId);
+                        displayCommitDetails(tableModel.getRow(selectedRow));
                     }
                 }
             });
@@ -2454,39 +2860,79 @@ public class InfoPanel extends JPanel {
          * 应用过滤条件
          */
         private void applyFilters() {
+            // 只重建显示顺序，不重新生成表格行
+            tableModel.setFilter(createFilter());
+
+            // 更新结果计数
+            updateResultCount(tableModel.getRowCount());
+        }
+
+        /**
+         * 根据项目、消息关键词和提交人过滤条件创建过滤器，没有条件时返回 null
+         * 过滤文本只在这里处理一次，不在每一行上重复解析
+         */
+        private java.util.function.Predicate<CommitSearchResult> createFilter() {
             String projectFilter = projectFilterField.getText().trim().toLowerCase();
             String keywordFilter = keywordFilterField.getText().trim().toLowerCase();
             String authorFilter = authorFilterField.getText().trim().toLowerCase();
+            if (projectFilter.isEmpty() && keywordFilter.isEmpty() && authorFilter.isEmpty()) {
+                return null;
+            }
 
-            java.util.List<CommitSearchResult> filteredResults = new ArrayList<>();
-
-            for (CommitSearchResult result : originalResults) {
+            return result -> {
                 // 检查项目名称
                 if (!projectFilter.isEmpty() && !result.projectName.toLowerCase().contains(projectFilter)) {
-                    continue;
+                    return false;
                 }
 
                 // 检查消息关键词
                 if (!keywordFilter.isEmpty() && !result.message.toLowerCase().contains(keywordFilter)) {
-                    continue;
+                    return false;
                 }
 
                 // 检查提交人
-                if (!authorFilter.isEmpty() && !result.author.toLowerCase().contains(authorFilter)) {
-                    continue;
-                }
+                return authorFilter.isEmpty() || result.author.toLowerCase().contains(authorFilter);
+            };
+        }
 
-                filteredResults.add(result);
-            }
+        private void updateResultCount(int shownCount) {
+            int totalCount = tableModel.getTotalCount();
+            resultCountLabel.setText("Found " + shownCount + " commits" +
+                (shownCount < totalCount ?
+                    " (filtered from " + totalCount + ")" : "") +
+                (searchToken != null ? " - searching..." : ""));
+        }
 
-            // 清空表格并重新填充
-            tableModel.setRowCount(0);
-            populateTable(filteredResults);
+        /**
+         * 标记搜索仍在进行，关闭对话框时通过 token 停止搜索
+         */
+        void startStreaming(CancellationToken token) {
+            searchToken = token;
+            updateResultCount(tableModel.getRowCount());
+        }
 
-            // 更新结果计数
-            resultCountLabel.setText("Found " + filteredResults.size() + " commits" +
-                (filteredResults.size() < originalResults.size() ?
-                    " (filtered from " + originalResults.size() + ")" : ""));
+        /**
+         * 追加搜索过程中新找到的结果，只显示符合当前过滤条件的结果
+         */
+        void addResults(java.util.List<CommitSearchResult> results) {
+            tableModel.addRows(results);
+            updateResultCount(tableModel.getRowCount());
+        }
+
+        /**
+         * 搜索完成
+         */
+        void finishStreaming() {
+            searchToken = null;
+            updateResultCount(tableModel.getRowCount());
+        }
+
+        @Override
+        public void dispose() {
+            if (searchToken != null) {
+                searchToken.cancel();
+            }
+            super.dispose();
         }
 
         /**
@@ -2497,29 +2943,45 @@ public class InfoPanel extends JPanel {
             keywordFilterField.setText("");
             authorFilterField.setText("");
 
-            // 清空表格并重新填充所有结果
-            tableModel.setRowCount(0);
-            populateTable(originalResults);
+            // 显示所有结果
+            tableModel.setFilter(null);
 
             // 更新结果计数
-            resultCountLabel.setText("Found " + originalResults.size() + " commits");
+            updateResultCount(tableModel.getRowCount());
         }
 
         /**
-         * 填充表格数据
+         * 搜索结果表格模型，单元格文本在显示时才格式化
          */
-        private void populateTable(java.util.List<CommitSearchResult> results) {
-            for (CommitSearchResult result : results) {
-                Object[] row = {
-                    result.projectName,
-                    result.branch,
-                    result.commitId,
-                    dateFormat.format(new Date(result.commitTime)),
-                    result.author,
-                    truncateMessage(result.message, 100),
-                    truncateMessage(result.changedFiles, 80)
-                };
-                tableModel.addRow(row);
+        private class CommitSearchTableModel extends IndexedTableModel<CommitSearchResult> {
+            private final java.util.Comparator<String> textOrder =
+                    java.util.Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER);
+
+            CommitSearchTableModel() {
+                super("Project Name", "Branch", "Commit Code", "Date", "Author", "Message", "Changed Files");
+            }
+
+            @Override
+            protected Object getCellValue(CommitSearchResult result, int column) {
+                switch (column) {
+                    case 0: return result.projectName;
+                    case 1: return result.branch;
+                    case 2: return result.commitId;
+                    case 3: return dateFormat.format(new Date(result.commitTime));
+                    case 4: return result.author;
+                    case 5: return truncateMessage(result.message, 100);
+                    default: return truncateMessage(result.changedFiles, 80);
+                }
+            }
+
+            @Override
+            protected java.util.Comparator<CommitSearchResult> getColumnComparator(int column) {
+                switch (column) {
+                    case 3: return java.util.Comparator.comparingLong(result -> result.commitTime);
+                    case 5: return java.util.Comparator.comparing(result -> result.message, textOrder);
+                    case 6: return java.util.Comparator.comparing(result -> result.changedFiles, textOrder);
+                    default: return super.getColumnComparator(column);
+                }
             }
         }
 
@@ -2527,39 +2989,19 @@ public class InfoPanel extends JPanel {
          * 获取当前过滤后的结果
          */
         private java.util.List<CommitSearchResult> getFilteredResults() {
-            java.util.List<CommitSearchResult> filteredResults = new ArrayList<>();
-            for (int i = 0; i < tableModel.getRowCount(); i++) {
-                String projectName = (String) tableModel.getValueAt(i, 0);
-                String commitId = (String) tableModel.getValueAt(i, 2);
-
-                // 从原始结果中查找匹配的记录
-                for (CommitSearchResult result : originalResults) {
-                    if (result.projectName.equals(projectName) && result.commitId.equals(commitId)) {
-                        filteredResults.add(result);
-                        break;
-                    }
-                }
-            }
-            return filteredResults;
+            return tableModel.getVisibleRows();
         }
 
         /**
          * 显示选中的commit详细信息
          */
-        private void displayCommitDetails(String projectName, String branch, String commitId) {
-            // 从原始结果中查找对应的commit
-            CommitSearchResult selectedCommit = null;
-            for (CommitSearchResult result : originalResults) {
-                if (result.projectName.equals(projectName) && result.commitId.equals(commitId)) {
-                    selectedCommit = result;
-                    break;
-                }
-            }
+        private void displayCommitDetails(CommitSearchResult selectedCommit) {
+            String projectName = selectedCommit.projectName;
+            String commitId = selectedCommit.commitId;
 
-            if (selectedCommit == null) {
-                commitDetailsTextArea.setText("Error: Cannot find commit details");
-                return;
-            }
+            // 搜索结果行中已有完整的提交说明，直接使用，不在事件线程上读取仓库
+            String author = selectedCommit.author;
+            String message = selectedCommit.message;
 
             // 构建详细信息字符串（类似 RepoDetailsDialog 的格式）
             StringBuilder sb = new StringBuilder();
@@ -2572,7 +3014,7 @@ public class InfoPanel extends JPanel {
             sb.append("Project: ").append(selectedCommit.projectName).append("\n");
             sb.append("Branch: ").append(selectedCommit.branch).append("\n");
             sb.append("Commit Code: ").append(selectedCommit.commitId).append("\n");
-            sb.append("Author: ").append(selectedCommit.author).append("\n");
+            sb.append("Author: ").append(author).append("\n");
             sb.append("Date: ").append(dateFormat.format(new Date(selectedCommit.commitTime))).append("\n");
             sb.append("Repository URL: ").append(remoteUrl).append("\n");
 
@@ -2583,7 +3025,7 @@ public class InfoPanel extends JPanel {
 
             sb.append("\nMessage:\n");
             sb.append("========================================\n");
-            sb.append(selectedCommit.message).append("\n\n");
+            sb.append(message).append("\n\n");
 
             // 显示修改的文件
             if (selectedCommit.changedFiles != null && !selectedCommit.changedFiles.trim().isEmpty()) {
@@ -2610,16 +3052,8 @@ public class InfoPanel extends JPanel {
                 if (children != null) {
                     for (File child : children) {
                         if (child.getName().equals(projectName) && GitInfoExtractor.isGitRepository(child)) {
-                            try {
-                                org.eclipse.jgit.storage.file.FileRepositoryBuilder builder = new org.eclipse.jgit.storage.file.FileRepositoryBuilder();
-                                org.eclipse.jgit.lib.Repository repository = builder
-                                        .setGitDir(new java.io.File(child, ".git"))
-                                        .readEnvironment()
-                                        .findGitDir()
-                                        .build();
-
-                                String url = repository.getConfig().getString("remote", "origin", "url");
-                                repository.close();
+                            try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(child)) {
+                                String url = handle.getRepository().getConfig().getString("remote", "origin", "url");
 
                                 return url != null ? url : "No remote URL configured";
                             } catch (Exception e) {
@@ -2690,21 +3124,15 @@ public class InfoPanel extends JPanel {
          * Changed Files列的自定义渲染器，支持工具提示
          */
         private class ChangedFilesRenderer extends DefaultTableCellRenderer {
-            private java.util.List<CommitSearchResult> results;
-            
-            public ChangedFilesRenderer(java.util.List<CommitSearchResult> results) {
-                this.results = results;
-            }
-            
             @Override
             public Component getTableCellRendererComponent(JTable table, Object value,
                     boolean isSelected, boolean hasFocus, int row, int column) {
                 
                 Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
                 
-                // 设置工具提示
-                if (row < results.size()) {
-                    CommitSearchResult result = results.get(row);
+                // 设置工具提示（按显示的行取结果，过滤和排序后也对应正确的提交）
+                if (row < tableModel.getRowCount()) {
+                    CommitSearchResult result = tableModel.getRow(row);
                     String changedFiles = result.changedFiles;
                     
                     if (changedFiles != null && !changedFiles.trim().isEmpty()) {
@@ -0,0 +1,397 @@
+package com.gitviewer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * 多仓库并行执行器
+ * 批量切换分支、提交搜索、按时间排序和批量克隆等操作共用一个有界线程池，
+ * 每批任务有自己的并发上限（还可以按远程主机等分组再限制每组的并发数），每个仓库的结果或异常单独记录。
+ * 结果回调在调用线程上串行执行（SwingWorker 中可以直接 publish），整批任务通过一个 CancellationToken 取消。
+ */
+public class MultiRepoExecutor {
+
+    /**
+     * 每批任务默认的并发数，可通过 -Dgitviewer.parallelism=N 设置
+     */
+    public static final int DEFAULT_PARALLELISM = Math.max(1, Integer.getInteger("gitviewer.parallelism", 8));
+
+    /**
+     * 访问同一个远程主机的任务默认的并发数，可通过 -Dgitviewer.parallelismPerHost=N 设置
+     */
+    public static final int DEFAULT_PER_HOST_PARALLELISM =
+            Math.max(1, Integer.getInteger("gitviewer.parallelismPerHost", 4));
+
+    /**
+     * 只读写本地磁盘的任务（检出、合并）默认的并发数，可通过 -Dgitviewer.localParallelism=N 设置
+     */
+    public static final int DEFAULT_LOCAL_PARALLELISM = Math.max(1, Integer.getInteger("gitviewer.localParallelism",
+            Math.max(2, Runtime.getRuntime().availableProcessors())));
+
+    // 所有批次共用的线程上限，空闲线程一分钟后退出
+    private static final int MAX_THREADS = Math.max(DEFAULT_PARALLELISM, 32);
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS,
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+        Thread thread = new Thread(r, "multi-repo-worker-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 结果回调的顺序
+     */
+    public enum Delivery {
+        /** 按输入顺序回调，前面的任务未完成时后面的结果先缓存 */
+        INPUT_ORDER,
+        /** 按完成顺序回调 */
+        COMPLETION_ORDER
+    }
+
+    /**
+     * 对单个仓库（或单个输入项）执行的操作
+     */
+    public interface Task<I, R> {
+        R run(I item, CancellationToken token) throws Exception;
+    }
+
+    /**
+     * 两阶段流水线的第二阶段，接收第一阶段的结果
+     */
+    public interface NextTask<I, M, R> {
+        R run(I item, M previous, CancellationToken token) throws Exception;
+    }
+
+    /**
+     * 单个输入项的执行结果
+     */
+    public static class Result<I, R> {
+        private final int index;
+        private final I item;
+        private final R value;
+        private final Exception error;
+        private final boolean cancelled;
+
+        private Result(int index, I item, R value, Exception error, boolean cancelled) {
+            this.index = index;
+            this.item = item;
+            this.value = value;
+            this.error = error;
+            this.cancelled = cancelled;
+        }
+
+        /**
+         * 在输入列表中的位置
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public I getItem() {
+            return item;
+        }
+
+        public R getValue() {
+            return value;
+        }
+
+        public Exception getError() {
+            return error;
+        }
+
+        /**
+         * 批次取消时尚未开始的任务
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isSuccess() {
+            return error == null && !cancelled;
+        }
+    }
+
+    /**
+     * 以默认并发数按输入顺序执行
+     */
+    public static <I, R> List<Result<I, R>> run(List<I> items, CancellationToken token, Task<I, R> task,
+                                               Consumer<Result<I, R>> onResult) throws InterruptedException {
+        return run(items, DEFAULT_PARALLELISM, Delivery.INPUT_ORDER, token, task, onResult);
+    }
+
+    /**
+     * 并行执行一批任务，阻塞到全部完成
+     * 取消后不再启动新的任务，已经开始的任务通过 token 自行停止（不中断线程，避免关闭共享仓库的文件通道）。
+     * @param parallelism 本批最多同时执行的任务数
+     * @param token 取消标记（可以为null）
+     * @param onResult 每个任务结束后在调用线程上回调（可以为null）
+     * @return 按输入顺序排列的全部结果
+     */
+    public static <I, R> List<Result<I, R>> run(List<I> items, int parallelism, Delivery delivery,
+                                               CancellationToken token, Task<I, R> task,
+                                               Consumer<Result<I, R>> onResult) throws InterruptedException {
+        return run(items, parallelism, null, parallelism, delivery, token, task, onResult);
+    }
+
+    /**
+     * 并行执行一批任务，同一分组的任务最多同时执行 perGroupParallelism 个（例如同一远程主机上的仓库）
+     * 空闲的线程按输入顺序选择第一个所在分组未满的任务，分组已满的任务等待该组有任务完成。
+     * @param groupOf 任务所属的分组（null 表示不分组；返回 null 的任务不受分组限制）
+     * @param perGroupParallelism 每个分组最多同时执行的任务数
+     */
+    public static <I, R> List<Result<I, R>> run(List<I> items, int parallelism, Function<? super I, String> groupOf,
+                                               int perGroupParallelism, Delivery delivery,
+                                               CancellationToken token, Task<I, R> task,
+                                               Consumer<Result<I, R>> onResult) throws InterruptedException {
+        int total = items.size();
+        List<Result<I, R>> results = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            results.add(null);
+        }
+        if (total == 0) {
+            return results;
+        }
+
+        String[] groups = new String[total];
+        if (groupOf != null) {
+            for (int i = 0; i < total; i++) {
+                groups[i] = groupOf.apply(items.get(i));
+            }
+        }
+        int groupLimit = Math.max(1, perGroupParallelism);
+        Map<String, Integer> runningPerGroup = new HashMap<>();
+        LinkedList<Integer> pending = new LinkedList<>();
+        for (int i = 0; i < total; i++) {
+            pending.add(i);
+        }
+
+        CompletionService<Result<I, R>> completion = new ExecutorCompletionService<>(pool);
+        int limit = Math.max(1, Math.min(parallelism, total));
+        int running = 0;
+        int[] nextDelivered = {0};
+
+        for (int completed = 0; completed < total; ) {
+            if (CancellationToken.isCancelled(token)) {
+                // 已取消，剩余的任务不再提交
+                while (!pending.isEmpty()) {
+                    int index = pending.removeFirst();
+                    deliver(results, new Result<>(index, items.get(index), null, null, true),
+                            delivery, onResult, nextDelivered);
+                    completed++;
+                }
+            } else {
+                running += submitEligible(groups, pending, runningPerGroup, limit - running, groupLimit,
+                        index -> submit(completion, items, index, token, task));
+            }
+            if (running == 0) {
+                continue;
+            }
+
+            Result<I, R> result = take(completion);
+            running--;
+            String group = groups[result.index];
+            if (group != null) {
+                runningPerGroup.merge(group, -1, Integer::sum);
+            }
+            deliver(results, result, delivery, onResult, nextDelivered);
+            completed++;
+        }
+        return results;
+    }
+
+    /**
+     * 两阶段流水线：第一阶段（如网络拉取）和第二阶段（如本地检出）各有自己的并发上限，
+     * 某一项的第一阶段完成后立即排队进入第二阶段，两个阶段同时进行。
+     * 第一阶段失败或取消的项不进入第二阶段，直接作为结果回调；取消后尚未开始第二阶段的项记为取消。
+     * @param firstParallelism 第一阶段最多同时执行的任务数
+     * @param groupOf 第一阶段任务所属的分组（null 表示不分组）
+     * @param perGroupParallelism 第一阶段每个分组最多同时执行的任务数
+     * @param secondParallelism 第二阶段最多同时执行的任务数
+     * @return 按输入顺序排列的第二阶段结果
+     */
+    public static <I, M, R> List<Result<I, R>> runPipeline(List<I> items, int firstParallelism,
+                                                         Function<? super I, String> groupOf, int perGroupParallelism,
+                                                         Task<I, M> first, int secondParallelism,
+                                                         NextTask<I, M, R> second, Delivery delivery,
+                                                         CancellationToken token,
+                                                         Consumer<Result<I, R>> onResult) throws InterruptedException {
+        int total = items.size();
+        List<Result<I, R>> results = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            results.add(null);
+        }
+        if (total == 0) {
+            return results;
+        }
+
+        String[] groups = new String[total];
+        if (groupOf != null) {
+            for (int i = 0; i < total; i++) {
+                groups[i] = groupOf.apply(items.get(i));
+            }
+        }
+        int groupLimit = Math.max(1, perGroupParallelism);
+        Map<String, Integer> runningPerGroup = new HashMap<>();
+        LinkedList<Integer> pending = new LinkedList<>();
+        for (int i = 0; i < total; i++) {
+            pending.add(i);
+        }
+        ArrayDeque<Result<I, M>> firstDone = new ArrayDeque<>(); // 等待第二阶段的项
+
+        // 两个阶段的任务共用一个完成队列，第一阶段的结果是 Result<I, M>，第二阶段的是 Result<I, R>
+        CompletionService<Object[]> completion = new ExecutorCompletionService<>(pool);
+        int firstLimit = Math.max(1, Math.min(firstParallelism, total));
+        int secondLimit = Math.max(1, Math.min(secondParallelism, total));
+        int firstRunning = 0;
+        int secondRunning = 0;
+        int[] nextDelivered = {0};
+
+        for (int completed = 0; completed < total; ) {
+            if (CancellationToken.isCancelled(token)) {
+                while (!pending.isEmpty()) {
+                    int index = pending.removeFirst();
+                    deliver(results, new Result<>(index, items.get(index), null, null, true),
+                            delivery, onResult, nextDelivered);
+                    completed++;
+                }
+                while (!firstDone.isEmpty()) {
+                    Result<I, M> done = firstDone.removeFirst();
+                    deliver(results, new Result<>(done.index, done.item, null, null, true),
+                            delivery, onResult, nextDelivered);
+                    completed++;
+                }
+            } else {
+                firstRunning += submitEligible(groups, pending, runningPerGroup, firstLimit - firstRunning,
+                        groupLimit, index -> {
+                    I item = items.get(index);
+                    completion.submit(() -> new Object[] {Boolean.TRUE, execute(index, item, token, first)});
+                });
+                while (secondRunning < secondLimit && !firstDone.isEmpty()) {
+                    Result<I, M> done = firstDone.removeFirst();
+                    completion.submit(() -> new Object[] {Boolean.FALSE,
+                            execute(done.index, done.item, token, (item, t) -> second.run(item, done.value, t))});
+                    secondRunning++;
+                }
+            }
+            if (firstRunning + secondRunning == 0) {
+                continue;
+            }
+
+            Object[] staged = take(completion);
+            if ((Boolean) staged[0]) {
+                @SuppressWarnings("unchecked")
+                Result<I, M> done = (Result<I, M>) staged[1];
+                firstRunning--;
+                String group = groups[done.index];
+                if (group != null) {
+                    runningPerGroup.merge(group, -1, Integer::sum);
+                }
+                if (done.isSuccess()) {
+                    firstDone.addLast(done);
+                    continue;
+                }
+                deliver(results, new Result<>(done.index, done.item, null, done.error, done.cancelled),
+                        delivery, onResult, nextDelivered);
+            } else {
+                @SuppressWarnings("unchecked")
+                Result<I, R> result = (Result<I, R>) staged[1];
+                secondRunning--;
+                deliver(results, result, delivery, onResult, nextDelivered);
+            }
+            completed++;
+        }
+        return results;
+    }
+
+    /**
+     * 按输入顺序提交所在分组未满的任务，最多提交 slots 个
+     * @return 提交的任务数
+     */
+    private static int submitEligible(String[] groups, LinkedList<Integer> pending,
+                                      Map<String, Integer> runningPerGroup, int slots, int groupLimit,
+                                      IntConsumer submit) {
+        int submitted = 0;
+        Iterator<Integer> iterator = pending.iterator();
+        while (submitted < slots && iterator.hasNext()) {
+            int index = iterator.next();
+            String group = groups[index];
+            if (group != null && runningPerGroup.getOrDefault(group, 0) >= groupLimit) {
+                continue;
+            }
+            iterator.remove();
+            if (group != null) {
+                runningPerGroup.merge(group, 1, Integer::sum);
+            }
+            submit.accept(index);
+            submitted++;
+        }
+        return submitted;
+    }
+
+    private static <I, R> void deliver(List<Result<I, R>> results, Result<I, R> result, Delivery delivery,
+                                       Consumer<Result<I, R>> onResult, int[] nextDelivered) {
+        results.set(result.index, result);
+        if (onResult == null) {
+            return;
+        }
+        if (delivery == Delivery.COMPLETION_ORDER) {
+            onResult.accept(result);
+        } else {
+            while (nextDelivered[0] < results.size() && results.get(nextDelivered[0]) != null) {
+                onResult.accept(results.get(nextDelivered[0]++));
+            }
+        }
+    }
+
+    private static <I, R> void submit(CompletionService<Result<I, R>> completion, List<I> items, int index,
+                                      CancellationToken token, Task<I, R> task) {
+        I item = items.get(index);
+        completion.submit(() -> execute(index, item, token, task));
+    }
+
+    private static <I, R> Result<I, R> execute(int index, I item, CancellationToken token, Task<I, R> task) {
+        if (CancellationToken.isCancelled(token)) {
+            return new Result<>(index, item, null, null, true);
+        }
+        try {
+            return new Result<>(index, item, task.run(item, token), null, false);
+        } catch (Exception e) {
+            return new Result<>(index, item, null, e, false);
+        }
+    }
+
+    private static <T> T take(CompletionService<T> completion) throws InterruptedException {
+        Future<T> future = completion.take();
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // 任务中的 Error（如内存不足）不在这里处理
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -19,27 +19,27 @@ public class RepoDetailsDialog extends JDialog {
     private static final Color EVEN_ROW_COLOR = new Color(245, 248, 250);
 
     private JTable commitsTable;
-    private DefaultTableModel tableModel;
+    private IndexedTableModel<GitInfoExtractor.GitCommitInfo> tableModel; // 保存所有提交记录，过滤只改变显示的行
     private SimpleDateFormat dateFormat;
     private JTextField remoteLabel; // 改为JTextField以支持复制
     private JLabel branchLabel;
     private JTextArea filesTextArea;
     private File currentRepoDir;
-    private java.util.Map<String, String> shortIdToFullIdMap;
     private JComboBox<Integer> displaySizeComboBox;
     private JTextField messageSearchField;
     private JComboBox<String> authorFilterComboBox;
     private int currentDisplaySize = 20;
-    private List<GitInfoExtractor.GitCommitInfo> allCommits; // 存储所有提交记录
-    private List<GitInfoExtractor.GitCommitInfo> filteredCommits; // 存储过滤后的提交记录
     private String currentCommitUrl; // 当前显示的commit URL
+    private java.util.TreeSet<String> knownAuthors = new java.util.TreeSet<>(); // Author过滤下拉框中已有的作者
+    private CancellationToken loadToken; // 当前提交加载任务的取消标记
+    // 完整提交消息（小写）的缓存：消息在后台线程读取，事件线程上过滤时只查缓存
+    private final java.util.Map<GitInfoExtractor.GitCommitInfo, String> lowerCaseMessages =
+            new java.util.concurrent.ConcurrentHashMap<>();
+    private volatile int filterGeneration; // 每次修改过滤条件加一，丢弃过期的后台过滤结果
 
     public RepoDetailsDialog(Frame parent) {
         super(parent, "Git Repository Details", true);
         this.dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        this.shortIdToFullIdMap = new java.util.HashMap<>();
-        this.allCommits = new java.util.ArrayList<>();
-        this.filteredCommits = new java.util.ArrayList<>();
         initializeUI();
         setLocationRelativeTo(parent);
     }
@@ -189,8 +189,7 @@ public class RepoDetailsDialog extends JDialog {
         tablePanel.add(topPanel, BorderLayout.NORTH);
 
         // 创建表格
-        String[] columnNames = {"Commit Code", "Date", "Author", "Message"};
-        tableModel = new NonEditableTableModel(new Object[][]{}, columnNames);
+        tableModel = new CommitTableModel();
         commitsTable = new JTable(tableModel) {
             @Override
             public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
@@ -202,7 +201,7 @@ public class RepoDetailsDialog extends JDialog {
             }
         };
 
-        commitsTable.setAutoCreateRowSorter(true);
+        tableModel.installSortHeader(commitsTable);
         commitsTable.setRowHeight(28);
         commitsTable.setIntercellSpacing(new Dimension(0, 0));
         commitsTable.setShowGrid(false);
@@ -287,10 +286,7 @@ public class RepoDetailsDialog extends JDialog {
             if (!e.getValueIsAdjusting()) {
                 int selectedRow = commitsTable.getSelectedRow();
                 if (selectedRow >= 0) {
-                    // 获取提交ID（考虑排序后的行索引）
-                    int modelRow = commitsTable.convertRowIndexToModel(selectedRow);
-                    String shortCommitId = (String) tableModel.getValueAt(modelRow, 0);
-                    loadCommitFiles(shortCommitId);
+                    loadCommitFiles(tableModel.getRow(selectedRow).getCommitId());
                 }
             }
         });
@@ -302,31 +298,68 @@ public class RepoDetailsDialog extends JDialog {
 
     /**
      * 应用过滤器
+     * 有消息过滤条件时先在后台线程读取还没有缓存的完整消息，读取完成后再在事件线程上过滤
      */
     private void applyFilters() {
-        if (allCommits.isEmpty()) {
+        if (tableModel.getTotalCount() == 0) {
             return;
         }
         
         String messageFilter = messageSearchField.getText().toLowerCase().trim();
         String authorFilter = (String) authorFilterComboBox.getSelectedItem();
-        
-        filteredCommits.clear();
-        
-        for (GitInfoExtractor.GitCommitInfo commit : allCommits) {
-            boolean matchMessage = messageFilter.isEmpty() || 
-                    commit.getMessage().toLowerCase().contains(messageFilter);
-            
-            boolean matchAuthor = authorFilter == null || 
-                    "All Authors".equals(authorFilter) || 
-                    commit.getAuthor().equals(authorFilter);
-            
-            if (matchMessage && matchAuthor) {
-                filteredCommits.add(commit);
-            }
+        int generation = ++filterGeneration;
+        if (messageFilter.isEmpty()) {
+            // 只重建显示的行号，不重新生成表格行
+            tableModel.setFilter(commit -> matchesFilters(commit, messageFilter, authorFilter));
+            updateCommitsTable();
+            return;
         }
+
+        List<GitInfoExtractor.GitCommitInfo> commits = new java.util.ArrayList<>(tableModel.getAllRows());
+        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                for (GitInfoExtractor.GitCommitInfo commit : commits) {
+                    if (generation != filterGeneration) {
+                        return null;
+                    }
+                    lowerCaseMessages.computeIfAbsent(commit,
+                            c -> c.getMessage() != null ? c.getMessage().toLowerCase() : "");
+                }
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                if (generation != filterGeneration) {
+                    return;
+                }
+                try {
+                    get();
+                } catch (Exception e) {
+                    System.err.println("Error reading commit messages: " + e.getMessage());
+                }
+                tableModel.setFilter(commit -> matchesFilters(commit, messageFilter, authorFilter));
+                updateCommitsTable();
+            }
+        };
+        worker.execute();
+    }
+
+    /**
+     * 判断提交是否符合消息和作者过滤条件
+     * 消息匹配完整的提交消息，只使用已缓存的消息（见 applyFilters），还没有读取的提交暂不显示
+     */
+    private boolean matchesFilters(GitInfoExtractor.GitCommitInfo commit, String messageFilter, String authorFilter) {
+        String message = messageFilter.isEmpty() ? null : lowerCaseMessages.get(commit);
+        boolean matchMessage = messageFilter.isEmpty() || 
+                (message != null && message.contains(messageFilter));
         
-        updateCommitsTable();
+        boolean matchAuthor = authorFilter == null || 
+                "All Authors".equals(authorFilter) || 
+                commit.getAuthor().equals(authorFilter);
+        
+        return matchMessage && matchAuthor;
     }
     
     /**
@@ -335,8 +368,8 @@ public class RepoDetailsDialog extends JDialog {
     private void clearFilters() {
         messageSearchField.setText("");
         authorFilterComboBox.setSelectedItem("All Authors");
-        filteredCommits.clear();
-        filteredCommits.addAll(allCommits);
+        filterGeneration++;
+        tableModel.setFilter(null);
         updateCommitsTable();
     }
     
@@ -344,40 +377,18 @@ public class RepoDetailsDialog extends JDialog {
      * 更新提交表格显示
      */
     private void updateCommitsTable() {
-        tableModel.setRowCount(0);
-        shortIdToFullIdMap.clear();
-        
-        for (GitInfoExtractor.GitCommitInfo commit : filteredCommits) {
-            String fullId = commit.getCommitId();
-            shortIdToFullIdMap.put(fullId, fullId); // 使用完整ID作为key和value
-
-            Object[] row = {
-                fullId,  // 显示完整的commit ID作为commit code
-                dateFormat.format(new Date(commit.getCommitTime())),
-                commit.getAuthor(),
-                truncateMessage(commit.getMessage())
-            };
-            tableModel.addRow(row);
-        }
-        
-        filesTextArea.setText("Showing " + filteredCommits.size() + " commits. Select a commit to see changed files.");
+        filesTextArea.setText("Showing " + tableModel.getRowCount() + " commits. Select a commit to see changed files.");
     }
     
     /**
-     * 更新Author过滤下拉框
+     * 将新出现的作者按字母顺序插入Author过滤下拉框，不影响当前选择
      */
-    private void updateAuthorFilter() {
-        authorFilterComboBox.removeAllItems();
-        authorFilterComboBox.addItem("All Authors");
-        
-        java.util.Set<String> authors = new java.util.TreeSet<>();
-        for (GitInfoExtractor.GitCommitInfo commit : allCommits) {
-            authors.add(commit.getAuthor());
-        }
-        
-        for (String author : authors) {
-            authorFilterComboBox.addItem(author);
+    private void addAuthor(String author) {
+        if (author == null || !knownAuthors.add(author)) {
+            return;
         }
+        int index = knownAuthors.headSet(author).size() + 1; // 第0项是 All Authors
+        authorFilterComboBox.insertItemAt(author, index);
     }
 
     /**
@@ -399,29 +410,22 @@ public class RepoDetailsDialog extends JDialog {
         this.currentRepoDir = repoDir;
         remoteLabel.setText("Loading...");
         branchLabel.setText("Loading...");
-        tableModel.setRowCount(0);
         filesTextArea.setText("Select a commit to see changed files...");
-        shortIdToFullIdMap.clear();
-        allCommits.clear();
-        filteredCommits.clear();
 
-        SwingWorker<RepoData, String> worker = new SwingWorker<RepoData, String>() {
+        SwingWorker<GitInfoExtractor.GitRepositoryInfo, Void> worker = new SwingWorker<GitInfoExtractor.GitRepositoryInfo, Void>() {
             @Override
-            protected RepoData doInBackground() throws Exception {
-                RepoData data = new RepoData();
-                data.repoInfo = GitInfoExtractor.getRepositoryInfo(repoDir);
-                data.commits = GitInfoExtractor.getRecentCommits(repoDir, currentDisplaySize);
-                return data;
+            protected GitInfoExtractor.GitRepositoryInfo doInBackground() throws Exception {
+                return GitInfoExtractor.getRepositoryInfo(repoDir);
             }
 
             @Override
             protected void done() {
                 try {
-                    RepoData data = get();
+                    GitInfoExtractor.GitRepositoryInfo repoInfo = get();
 
-                    if (data.repoInfo != null) {
+                    if (repoInfo != null) {
                         // 显示 Remote Path
-                        List<String> remotes = data.repoInfo.getRemoteUrls();
+                        List<String> remotes = repoInfo.getRemoteUrls();
                         StringBuilder remoteText = new StringBuilder();
                         if (remotes != null && !remotes.isEmpty()) {
                             for (int i = 0; i < remotes.size(); i++) {
@@ -436,7 +440,7 @@ public class RepoDetailsDialog extends JDialog {
                         remoteLabel.setText(remoteText.toString());
 
                         // 显示 Current Branch
-                        String currentBranch = data.repoInfo.getCurrentBranch();
+                        String currentBranch = repoInfo.getCurrentBranch();
                         if (currentBranch != null && !currentBranch.isEmpty()) {
                             branchLabel.setText(currentBranch);
                         } else {
@@ -444,18 +448,6 @@ public class RepoDetailsDialog extends JDialog {
                         }
                     }
 
-                    // 存储所有提交记录
-                    if (data.commits != null) {
-                        allCommits.addAll(data.commits);
-                        filteredCommits.addAll(data.commits);
-                        
-                        // 更新Author过滤器
-                        updateAuthorFilter();
-                        
-                        // 更新表格显示
-                        updateCommitsTable();
-                    }
-
                 } catch (Exception e) {
                     e.printStackTrace();
                     remoteLabel.setText("Error loading repository information");
@@ -465,10 +457,22 @@ public class RepoDetailsDialog extends JDialog {
         };
 
         worker.execute();
+        loadCommits();
 
         setVisible(true);
     }
 
+    /**
+     * 关闭对话框时停止仍在进行的提交遍历
+     */
+    @Override
+    public void dispose() {
+        if (loadToken != null) {
+            loadToken.cancel();
+        }
+        super.dispose();
+    }
+
     /**
      * 加载并显示指定提交的文件变更
      */
@@ -477,12 +481,8 @@ public class RepoDetailsDialog extends JDialog {
             return;
         }
 
-        // 现在直接使用完整的commit ID
-        String fullCommitId = shortIdToFullIdMap.get(commitId);
-        if (fullCommitId == null) {
-            filesTextArea.setText("Error: Cannot find commit code " + commitId);
-            return;
-        }
+        // 表格中显示的就是完整的commit ID
+        String fullCommitId = commitId;
 
         // 显示完整的commit ID
         filesTextArea.setText("Loading files for commit code " + commitId + "...");
@@ -540,31 +540,53 @@ public class RepoDetailsDialog extends JDialog {
             return;
         }
 
-        tableModel.setRowCount(0);
+        clearFilters();
+        loadCommits();
+    }
+
+    /**
+     * 流式加载提交记录，读取到的提交立即显示在表格中
+     * 重新加载或关闭对话框时取消上一次仍在进行的遍历
+     */
+    private void loadCommits() {
+        if (loadToken != null) {
+            loadToken.cancel();
+        }
+        CancellationToken token = new CancellationToken();
+        loadToken = token;
+
+        tableModel.clear();
+        lowerCaseMessages.clear();
+        knownAuthors.clear();
+        authorFilterComboBox.removeAllItems();
+        authorFilterComboBox.addItem("All Authors");
         filesTextArea.setText("Loading commits...");
-        shortIdToFullIdMap.clear();
-        allCommits.clear();
-        filteredCommits.clear();
 
-        SwingWorker<List<GitInfoExtractor.GitCommitInfo>, Void> worker = new SwingWorker<List<GitInfoExtractor.GitCommitInfo>, Void>() {
+        File repoDir = currentRepoDir;
+        int displaySize = currentDisplaySize;
+        SwingWorker<Void, GitInfoExtractor.GitCommitInfo> worker = new SwingWorker<Void, GitInfoExtractor.GitCommitInfo>() {
             @Override
-            protected List<GitInfoExtractor.GitCommitInfo> doInBackground() throws Exception {
-                return GitInfoExtractor.getRecentCommits(currentRepoDir, currentDisplaySize);
+            protected Void doInBackground() throws Exception {
+                GitInfoExtractor.streamRecentCommits(repoDir, displaySize, token, commit -> {
+                    publish(commit);
+                    return true;
+                });
+                return null;
+            }
+
+            @Override
+            protected void process(List<GitInfoExtractor.GitCommitInfo> chunks) {
+                if (!token.isCancelled()) {
+                    appendCommits(chunks);
+                }
             }
 
             @Override
             protected void done() {
                 try {
-                    List<GitInfoExtractor.GitCommitInfo> commits = get();
-                    if (commits != null) {
-                        allCommits.addAll(commits);
-                        filteredCommits.addAll(commits);
-                        
-                        // 更新Author过滤器
-                        updateAuthorFilter();
-                        
-                        // 清除当前过滤器
-                        clearFilters();
+                    get();
+                    if (!token.isCancelled()) {
+                        filesTextArea.setText("Showing " + tableModel.getRowCount() + " commits. Select a commit to see changed files.");
                     }
                 } catch (Exception e) {
                     filesTextArea.setText("Error loading commits: " + e.getMessage());
@@ -576,6 +598,20 @@ public class RepoDetailsDialog extends JDialog {
         worker.execute();
     }
 
+    /**
+     * 追加新读取到的提交，只把符合当前过滤条件的提交加入表格
+     */
+    private void appendCommits(List<GitInfoExtractor.GitCommitInfo> commits) {
+        for (GitInfoExtractor.GitCommitInfo commit : commits) {
+            addAuthor(commit.getAuthor());
+        }
+        tableModel.addRows(commits);
+        if (!messageSearchField.getText().trim().isEmpty()) {
+            // 新提交的消息还没有缓存，在后台读取后重新过滤
+            applyFilters();
+        }
+    }
+
     private String truncateMessage(String message) {
         if (message == null) {
             return "";
@@ -587,14 +623,34 @@ public class RepoDetailsDialog extends JDialog {
         return message;
     }
 
-    private static class NonEditableTableModel extends DefaultTableModel {
-        public NonEditableTableModel(Object[][] data, Object[] columnNames) {
-            super(data, columnNames);
+    /**
+     * 提交表格模型，日期和消息在显示时才格式化
+     */
+    private class CommitTableModel extends IndexedTableModel<GitInfoExtractor.GitCommitInfo> {
+        CommitTableModel() {
+            super("Commit Code", "Date", "Author", "Message");
         }
 
         @Override
-        public boolean isCellEditable(int row, int column) {
-            return false;
+        protected Object getCellValue(GitInfoExtractor.GitCommitInfo commit, int column) {
+            switch (column) {
+                case 0: return commit.getCommitId(); // 显示完整的commit ID作为commit code
+                case 1: return dateFormat.format(new Date(commit.getCommitTime()));
+                case 2: return commit.getAuthor();
+                default: return truncateMessage(commit.getSubject());
+            }
+        }
+
+        @Override
+        protected java.util.Comparator<GitInfoExtractor.GitCommitInfo> getColumnComparator(int column) {
+            if (column == 1) {
+                return java.util.Comparator.comparingLong(GitInfoExtractor.GitCommitInfo::getCommitTime);
+            }
+            if (column == 3) {
+                return java.util.Comparator.comparing(GitInfoExtractor.GitCommitInfo::getSubject,
+                        java.util.Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+            }
+            return super.getColumnComparator(column);
         }
     }
 
@@ -651,25 +707,12 @@ public class RepoDetailsDialog extends JDialog {
             return "Unknown";
         }
         
-        try {
-            org.eclipse.jgit.storage.file.FileRepositoryBuilder builder = new org.eclipse.jgit.storage.file.FileRepositoryBuilder();
-            org.eclipse.jgit.lib.Repository repository = builder
-                    .setGitDir(new java.io.File(currentRepoDir, ".git"))
-                    .readEnvironment()
-                    .findGitDir()
-                    .build();
-            
-            String url = repository.getConfig().getString("remote", "origin", "url");
-            repository.close();
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(currentRepoDir)) {
+            String url = handle.getRepository().getConfig().getString("remote", "origin", "url");
             
             return url != null ? url : "No remote URL configured";
         } catch (Exception e) {
             return "Error reading remote URL: " + e.getMessage();
         }
     }
-
-    private static class RepoData {
-        GitInfoExtractor.GitRepositoryInfo repoInfo;
-        List<GitInfoExtractor.GitCommitInfo> commits;
-    }
 }
@@ -0,0 +1,178 @@
+package com.gitviewer;
+
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 仓库概要信息
+ * 一次打开仓库，读取配置、引用和 HEAD，得到当前分支、remote、本地/远程分支和最后一次提交。
+ * 调用方通过 {@link Field} 只读取需要显示的部分，未请求的字段为空。
+ */
+public class RepositorySummary {
+
+    /**
+     * 可选读取的字段
+     */
+    public enum Field {
+        CURRENT_BRANCH,
+        REMOTES,
+        LOCAL_BRANCHES,
+        REMOTE_BRANCHES,
+        LAST_COMMIT
+    }
+
+    private final String path;
+    private String currentBranch;
+    private final Map<String, String> remotes = new LinkedHashMap<>();
+    private final List<String> localBranches = new ArrayList<>();
+    private final List<String> remoteBranches = new ArrayList<>();
+    private GitInfoExtractor.GitCommitInfo lastCommit;
+
+    private RepositorySummary(String path) {
+        this.path = path;
+    }
+
+    /**
+     * 读取仓库概要信息
+     * @param directory 仓库目录
+     * @param fields 需要读取的字段，不指定时读取全部
+     * @return 概要信息，不是Git仓库或读取失败时返回 null
+     */
+    public static RepositorySummary read(File directory, Field... fields) {
+        if (!GitInfoExtractor.isGitRepository(directory)) {
+            return null;
+        }
+        Set<Field> mask = fields.length == 0 ? EnumSet.allOf(Field.class) : EnumSet.of(fields[0], fields);
+
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory)) {
+            Repository repository = handle.getRepository();
+            RepositorySummary summary = new RepositorySummary(directory.getAbsolutePath());
+
+            if (mask.contains(Field.REMOTES)) {
+                Config config = repository.getConfig();
+                for (String remoteName : config.getSubsections(ConfigConstants.CONFIG_REMOTE_SECTION)) {
+                    String url = config.getString(ConfigConstants.CONFIG_REMOTE_SECTION, remoteName,
+                            ConfigConstants.CONFIG_KEY_URL);
+                    if (url != null && !url.isEmpty()) {
+                        summary.remotes.put(remoteName, url);
+                    }
+                }
+            }
+
+            Ref head = null;
+            if (mask.contains(Field.CURRENT_BRANCH) || mask.contains(Field.LAST_COMMIT)) {
+                head = repository.exactRef(Constants.HEAD);
+            }
+            if (mask.contains(Field.CURRENT_BRANCH)) {
+                summary.currentBranch = branchOf(head);
+            }
+
+            boolean local = mask.contains(Field.LOCAL_BRANCHES);
+            boolean remote = mask.contains(Field.REMOTE_BRANCHES);
+            if (local || remote) {
+                // 本地和远程分支在一次引用扫描中读取
+                List<String> prefixes = new ArrayList<>();
+                if (local) {
+                    prefixes.add(Constants.R_HEADS);
+                }
+                if (remote) {
+                    prefixes.add(Constants.R_REMOTES);
+                }
+                for (Ref ref : repository.getRefDatabase().getRefsByPrefix(prefixes.toArray(new String[0]))) {
+                    String name = ref.getName();
+                    if (name.endsWith(Constants.HEAD)) {
+                        continue;
+                    }
+                    if (name.startsWith(Constants.R_HEADS)) {
+                        summary.localBranches.add(name.substring(Constants.R_HEADS.length()));
+                    } else {
+                        summary.remoteBranches.add(name.substring(Constants.R_REMOTES.length()));
+                    }
+                }
+            }
+
+            if (mask.contains(Field.LAST_COMMIT) && head != null && head.getObjectId() != null) {
+                summary.lastCommit = readCommit(repository, head.getObjectId());
+            }
+
+            return summary;
+        } catch (IOException e) {
+            System.err.println("Error reading git repository: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 与 Repository.getBranch() 相同：指向分支时返回短名称，分离 HEAD 时返回提交ID
+     */
+    private static String branchOf(Ref head) {
+        if (head == null) {
+            return "Unknown";
+        }
+        if (head.isSymbolic()) {
+            return Repository.shortenRefName(head.getTarget().getName());
+        }
+        return head.getObjectId() != null ? head.getObjectId().name() : "Unknown";
+    }
+
+    private static GitInfoExtractor.GitCommitInfo readCommit(Repository repository, ObjectId id) throws IOException {
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            return GitInfoExtractor.toCommitInfo(revWalk.parseCommit(id));
+        }
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getCurrentBranch() {
+        return currentBranch;
+    }
+
+    /**
+     * remote 名称 -> URL，按配置文件中的顺序
+     */
+    public Map<String, String> getRemotes() {
+        return Collections.unmodifiableMap(remotes);
+    }
+
+    /**
+     * 指定 remote 的 URL，未配置时返回 null
+     */
+    public String getRemoteUrl(String remoteName) {
+        return remotes.get(remoteName);
+    }
+
+    /**
+     * 本地分支短名称，如 main
+     */
+    public List<String> getLocalBranches() {
+        return Collections.unmodifiableList(localBranches);
+    }
+
+    /**
+     * 远程分支名称，如 origin/main
+     */
+    public List<String> getRemoteBranches() {
+        return Collections.unmodifiableList(remoteBranches);
+    }
+
+    public GitInfoExtractor.GitCommitInfo getLastCommit() {
+        return lastCommit;
+    }
+}
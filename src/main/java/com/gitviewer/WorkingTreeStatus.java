@@ -0,0 +1,544 @@
+package com.gitviewer;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.ignore.IgnoreNode;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.CoreConfig;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.FS;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * 工作区状态（staged、unstaged、untracked 数量）的快速检查
+ * 与 git.status() 不同，已跟踪文件只比较 index 中记录的修改时间和大小，
+ * 只有大小相同但修改时间不同、或可能"racily clean"（修改时间不早于 index 文件）的条目才读取内容计算哈希。
+ * staged 通过 HEAD 树与 index 的比较得到，index 中 cache-tree 有效的子树直接跳过。
+ *
+ * 表格使用 {@link #get(File)} 的缓存结果：仓库状态戳（见 {@link WorkspaceSnapshot#stamp(File)}）不变时
+ * 最多缓存 {@link #CACHE_MILLIS} 毫秒。切换分支、pull、cherry-pick 都会改写 index，状态戳随之变化；
+ * 在其他程序中编辑文件不会改变状态戳，只能等缓存过期。
+ */
+public class WorkingTreeStatus {
+
+    /**
+     * 缓存结果的最长有效时间（毫秒），可通过 -Dgitviewer.status.cacheMillis=N 设置
+     */
+    public static final long CACHE_MILLIS = Long.getLong("gitviewer.status.cacheMillis", 10_000L);
+
+    // 超过这个数量的 index 条目分块并行 stat
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private static final Map<String, CachedCounts> cache = new ConcurrentHashMap<>();
+
+    // 工作区路径 -> untracked 缓存
+    private static final Map<String, UntrackedCache> untrackedCaches = new ConcurrentHashMap<>();
+
+    /**
+     * 三类改动的数量（冲突的路径计入 unstaged）
+     */
+    public static class Counts {
+        private int staged;
+        private int unstaged;
+        private int untracked;
+
+        public int getStaged() {
+            return staged;
+        }
+
+        public void setStaged(int staged) {
+            this.staged = staged;
+        }
+
+        public int getUnstaged() {
+            return unstaged;
+        }
+
+        public void setUnstaged(int unstaged) {
+            this.unstaged = unstaged;
+        }
+
+        public int getUntracked() {
+            return untracked;
+        }
+
+        public void setUntracked(int untracked) {
+            this.untracked = untracked;
+        }
+
+        /**
+         * 是否有未提交的更改（与 Status.hasUncommittedChanges 一致，不包括 untracked 文件）
+         */
+        public boolean hasUncommittedChanges() {
+            return staged > 0 || unstaged > 0;
+        }
+
+        public boolean isClean() {
+            return staged == 0 && unstaged == 0 && untracked == 0;
+        }
+
+        /**
+         * 表格中显示的文本，如 "2 staged, 1 unstaged"
+         */
+        public String getSummary() {
+            if (isClean()) {
+                return "Clean";
+            }
+            StringBuilder summary = new StringBuilder();
+            appendCount(summary, staged, "staged");
+            appendCount(summary, unstaged, "unstaged");
+            appendCount(summary, untracked, "untracked");
+            return summary.toString();
+        }
+
+        private static void appendCount(StringBuilder summary, int count, String label) {
+            if (count > 0) {
+                if (summary.length() > 0) {
+                    summary.append(", ");
+                }
+                summary.append(count).append(' ').append(label);
+            }
+        }
+    }
+
+    private static class CachedCounts {
+        final long stamp;
+        final long time;
+        final Counts counts;
+
+        CachedCounts(long stamp, long time, Counts counts) {
+            this.stamp = stamp;
+            this.time = time;
+            this.counts = counts;
+        }
+    }
+
+    /**
+     * 获取仓库的工作区状态，优先使用缓存
+     * @return 状态；读取失败时返回 null
+     */
+    public static Counts get(File directory) {
+        String key = directory.getAbsolutePath();
+        long stamp = WorkspaceSnapshot.stamp(directory);
+        CachedCounts cached = cache.get(key);
+        long now = System.currentTimeMillis();
+        if (cached != null && stamp != 0 && cached.stamp == stamp && now - cached.time < CACHE_MILLIS) {
+            return cached.counts;
+        }
+        try {
+            Counts counts = compute(directory);
+            cache.put(key, new CachedCounts(stamp, now, counts));
+            return counts;
+        } catch (IOException e) {
+            System.err.println("Error checking working tree status: " + e.getMessage());
+            cache.remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * 不使用缓存，直接检查仓库的工作区状态
+     */
+    public static Counts compute(File directory) throws IOException {
+        try (GitRepositoryCache.Handle handle = GitRepositoryCache.open(directory)) {
+            Repository repository = handle.getRepository();
+            if (repository.isBare()) {
+                return new Counts();
+            }
+            File workTree = repository.getWorkTree();
+            File indexFile = repository.getIndexFile();
+            DirCache dirCache = DirCache.read(indexFile, FS.DETECTED);
+            Instant indexTime = indexFile.isFile()
+                    ? Files.getLastModifiedTime(indexFile.toPath()).toInstant() : Instant.EPOCH;
+
+            Counts counts = new Counts();
+            counts.staged = countStaged(repository, dirCache);
+            counts.unstaged = countUnstaged(repository, workTree.toPath(), dirCache, indexTime);
+            counts.untracked = countUntracked(repository, workTree, dirCache);
+            return counts;
+        }
+    }
+
+    /**
+     * HEAD 与 index 不同的路径数
+     */
+    private static int countStaged(Repository repository, DirCache dirCache) throws IOException {
+        ObjectId head = repository.resolve(Constants.HEAD + "^{tree}");
+        try (RevWalk revWalk = new RevWalk(repository);
+             TreeWalk treeWalk = new TreeWalk(repository)) {
+            if (head != null) {
+                treeWalk.addTree(revWalk.parseTree(head));
+            } else {
+                treeWalk.addTree(new EmptyTreeIterator());
+            }
+            treeWalk.addTree(new DirCacheIterator(dirCache));
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            treeWalk.setRecursive(true);
+
+            int count = 0;
+            while (treeWalk.next()) {
+                DirCacheIterator index = treeWalk.getTree(1, DirCacheIterator.class);
+                if (index != null && index.getDirCacheEntry() != null
+                        && index.getDirCacheEntry().getStage() != DirCacheEntry.STAGE_0) {
+                    continue; // 冲突计入 unstaged
+                }
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * index 与工作区不同的路径数，先比较 stat 信息，必要时才读取内容
+     */
+    private static int countUnstaged(Repository repository, Path workTree, DirCache dirCache,
+                                     Instant indexTime) {
+        int size = dirCache.getEntryCount();
+        boolean autoCrlf = repository.getConfig().getEnum(ConfigConstants.CONFIG_CORE_SECTION, null,
+                ConfigConstants.CONFIG_KEY_AUTOCRLF, CoreConfig.AutoCRLF.FALSE) != CoreConfig.AutoCRLF.FALSE;
+        AtomicInteger count = new AtomicInteger();
+        IntStream indices = IntStream.range(0, size);
+        if (size > PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> {
+            DirCacheEntry entry = dirCache.getEntry(i);
+            if (entry.getStage() != DirCacheEntry.STAGE_0) {
+                // 同一路径的多个冲突条目只计一次
+                if (i == 0 || !dirCache.getEntry(i - 1).getPathString().equals(entry.getPathString())) {
+                    count.incrementAndGet();
+                }
+                return;
+            }
+            if (isModified(workTree, entry, indexTime, autoCrlf)) {
+                count.incrementAndGet();
+            }
+        });
+        return count.get();
+    }
+
+    private static boolean isModified(Path workTree, DirCacheEntry entry, Instant indexTime, boolean autoCrlf) {
+        if (entry.isAssumeValid() || entry.isSkipWorkTree() || entry.getFileMode() == FileMode.GITLINK) {
+            return false;
+        }
+        Path file = workTree.resolve(entry.getPathString());
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return true; // 已删除
+        }
+        if (attributes.isDirectory() || attributes.isSymbolicLink() != (entry.getFileMode() == FileMode.SYMLINK)) {
+            return true;
+        }
+        if (entry.isSmudged() || (int) attributes.size() != entry.getLength()) {
+            // 大小不同时一定有改动，除非 index 中的大小不可信或者检出时转换过换行符
+            return !(entry.isSmudged() || autoCrlf) || !contentMatches(file, entry, attributes, autoCrlf);
+        }
+        Instant modified = attributes.lastModifiedTime().toInstant();
+        if (sameTime(modified, entry.getLastModifiedInstant()) && !entry.mightBeRacilyClean(indexTime)) {
+            return false;
+        }
+        // 修改时间变了但大小相同，或者写 index 时文件可能还在修改：比较内容
+        return !contentMatches(file, entry, attributes, autoCrlf);
+    }
+
+    /**
+     * index 中没有纳秒时按秒比较（git 的某些构建只记录秒）
+     */
+    private static boolean sameTime(Instant file, Instant index) {
+        if (index.getNano() == 0) {
+            return file.getEpochSecond() == index.getEpochSecond();
+        }
+        return file.equals(index);
+    }
+
+    private static boolean contentMatches(Path file, DirCacheEntry entry, BasicFileAttributes attributes,
+                                          boolean autoCrlf) {
+        try {
+            byte[] content = attributes.isSymbolicLink()
+                    ? Files.readSymbolicLink(file).toString().replace(File.separatorChar, '/').getBytes(
+                            java.nio.charset.StandardCharsets.UTF_8)
+                    : Files.readAllBytes(file);
+            ObjectInserter.Formatter formatter = new ObjectInserter.Formatter();
+            if (formatter.idFor(Constants.OBJ_BLOB, content).equals(entry.getObjectId())) {
+                return true;
+            }
+            return autoCrlf && !attributes.isSymbolicLink()
+                    && formatter.idFor(Constants.OBJ_BLOB, toLf(content)).equals(entry.getObjectId());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static byte[] toLf(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length);
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] != '\r' || i + 1 >= content.length || content[i + 1] != '\n') {
+                out.write(content[i]);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 不在 index 中且未被忽略的文件数
+     * 只列目录不 stat 文件：名称在 index 中的是已跟踪文件，是 index 中某些路径前缀的是已跟踪目录，
+     * 其余的才需要判断是文件还是目录。每个目录的结果按目录修改时间缓存（增删文件都会改变目录的修改时间），
+     * index 或忽略规则文件变化时缓存整体失效。
+     * 忽略规则按 git 的优先级：各层 .gitignore（深层优先）、.git/info/exclude、core.excludesFile。
+     * 被忽略的目录和嵌套仓库不再深入，嵌套仓库本身计为一个 untracked 条目。
+     */
+    private static int countUntracked(Repository repository, File workTree, DirCache dirCache) throws IOException {
+        List<File> globalIgnoreFiles = new ArrayList<>();
+        String excludesFile = repository.getConfig().get(CoreConfig.KEY).getExcludesFile();
+        if (excludesFile != null) {
+            globalIgnoreFiles.add(excludesFile.startsWith("~/")
+                    ? new File(FS.DETECTED.userHome(), excludesFile.substring(2)) : new File(excludesFile));
+        }
+        globalIgnoreFiles.add(new File(repository.getDirectory(), "info/exclude"));
+
+        UntrackedCache untrackedCache = untrackedCaches.computeIfAbsent(workTree.getAbsolutePath(),
+                key -> new UntrackedCache());
+        synchronized (untrackedCache) {
+            File indexFile = repository.getIndexFile();
+            long indexStamp = indexFile.lastModified() * 31 + indexFile.length();
+            long ignoreStamp = ignoreStamp(workTree, globalIgnoreFiles, untrackedCache);
+            if (untrackedCache.indexStamp != indexStamp || untrackedCache.ignoreStamp != ignoreStamp) {
+                untrackedCache.directories.clear();
+            }
+
+            Deque<IgnoreFrame> ignores = new ArrayDeque<>();
+            for (File file : globalIgnoreFiles) {
+                pushIgnoreFile(ignores, "", file);
+            }
+            UntrackedScan scan = new UntrackedScan(workTree, dirCache, ignores, untrackedCache.directories);
+            int count = scan.scan("");
+
+            // 忽略规则文件的集合可能在扫描中变化，按扫描后的缓存重新计算
+            ignoreStamp = ignoreStamp(workTree, globalIgnoreFiles, untrackedCache);
+            untrackedCache.indexStamp = indexStamp;
+            untrackedCache.ignoreStamp = ignoreStamp;
+            return count;
+        }
+    }
+
+    /**
+     * 所有忽略规则文件的修改时间（.gitignore 只统计缓存中记录的目录）
+     */
+    private static long ignoreStamp(File workTree, List<File> globalIgnoreFiles,
+                                    UntrackedCache untrackedCache) {
+        long stamp = 17;
+        for (File file : globalIgnoreFiles) {
+            stamp = stamp * 31 + file.lastModified();
+        }
+        for (Map.Entry<String, DirectoryState> entry : untrackedCache.directories.entrySet()) {
+            if (entry.getValue().hasGitignore) {
+                File gitignore = new File(workTree, entry.getKey().isEmpty() ? Constants.GITIGNORE_FILENAME
+                        : entry.getKey() + "/" + Constants.GITIGNORE_FILENAME);
+                stamp = stamp * 31 + gitignore.lastModified();
+            }
+        }
+        return stamp;
+    }
+
+    /**
+     * 一个工作区的 untracked 缓存
+     */
+    private static class UntrackedCache {
+        long indexStamp;
+        long ignoreStamp;
+        final Map<String, DirectoryState> directories = new HashMap<>();
+    }
+
+    /**
+     * 一个目录上次列出时的结果
+     */
+    private static class DirectoryState {
+        long modified;            // 0 表示下次必须重新列出
+        boolean hasGitignore;
+        int untracked;            // 本目录中直接包含的 untracked 文件和嵌套仓库数
+        String[] subdirectories;  // 需要继续检查的子目录（相对工作区的路径）
+    }
+
+    /**
+     * 一次 untracked 扫描，目录修改时间与缓存相同时直接使用缓存的结果
+     */
+    private static class UntrackedScan {
+        // 修改时间离现在太近的目录不缓存，之后同一毫秒内的改动无法通过修改时间发现
+        private static final long RACY_MILLIS = 2000;
+
+        private final File workTree;
+        private final DirCache dirCache;
+        private final Deque<IgnoreFrame> ignores;
+        private final Map<String, DirectoryState> directories;
+        private final long startTime = System.currentTimeMillis();
+
+        UntrackedScan(File workTree, DirCache dirCache, Deque<IgnoreFrame> ignores,
+                      Map<String, DirectoryState> directories) {
+            this.workTree = workTree;
+            this.dirCache = dirCache;
+            this.ignores = ignores;
+            this.directories = directories;
+        }
+
+        int scan(String directory) throws IOException {
+            File dir = directory.isEmpty() ? workTree : new File(workTree, directory);
+            long modified = dir.lastModified();
+            DirectoryState state = directories.get(directory);
+            boolean cached = state != null && state.modified != 0 && state.modified == modified;
+            String[] names = null;
+            boolean hasGitignore;
+            if (cached) {
+                hasGitignore = state.hasGitignore;
+            } else {
+                names = dir.list();
+                if (names == null) {
+                    directories.remove(directory);
+                    return 0;
+                }
+                hasGitignore = Arrays.asList(names).contains(Constants.GITIGNORE_FILENAME);
+                if (state != null && state.hasGitignore != hasGitignore) {
+                    // 本目录的忽略规则增加或删除了，下层目录的缓存都不再可信
+                    String prefix = directory.isEmpty() ? "" : directory + "/";
+                    directories.keySet().removeIf(key -> key.startsWith(prefix) && !key.equals(directory));
+                }
+            }
+
+            boolean pushed = hasGitignore
+                    && pushIgnoreFile(ignores, directory, new File(dir, Constants.GITIGNORE_FILENAME));
+            if (!cached) {
+                state = list(directory, names, hasGitignore, modified);
+                directories.put(directory, state);
+            }
+            int count = state.untracked;
+            for (String subdirectory : state.subdirectories) {
+                count += scan(subdirectory);
+            }
+            if (pushed) {
+                ignores.pop();
+            }
+            return count;
+        }
+
+        /**
+         * 对一个目录的列表分类：untracked 文件计数，已跟踪目录和未忽略的 untracked 目录留待继续检查
+         */
+        private DirectoryState list(String directory, String[] names, boolean hasGitignore, long modified) {
+            String prefix = directory.isEmpty() ? "" : directory + "/";
+            DirectoryState state = new DirectoryState();
+            state.modified = startTime - modified > RACY_MILLIS ? modified : 0;
+            state.hasGitignore = hasGitignore;
+            List<String> subdirectories = new ArrayList<>();
+            for (String name : names) {
+                if (name.equals(Constants.DOT_GIT)) {
+                    continue;
+                }
+                String path = prefix + name;
+                if (dirCache.findEntry(path) >= 0) {
+                    continue; // 已跟踪的文件或子模块
+                }
+                File file = new File(workTree, path);
+                boolean trackedDirectory = isTrackedDirectory(dirCache, path);
+                if (!trackedDirectory && !Files.isDirectory(file.toPath(), LinkOption.NOFOLLOW_LINKS)) {
+                    if (!isIgnored(ignores, path, false)) {
+                        state.untracked++;
+                    }
+                    continue;
+                }
+                if (trackedDirectory) {
+                    subdirectories.add(path);
+                    continue;
+                }
+                if (isIgnored(ignores, path, true)) {
+                    continue;
+                }
+                if (new File(file, Constants.DOT_GIT).exists()) {
+                    state.untracked++; // 未跟踪的嵌套仓库
+                    continue;
+                }
+                subdirectories.add(path);
+            }
+            state.subdirectories = subdirectories.toArray(new String[0]);
+            return state;
+        }
+    }
+
+    /**
+     * index 中是否有 path/ 之下的条目（二分查找 path/ 的插入位置）
+     */
+    private static boolean isTrackedDirectory(DirCache dirCache, String path) {
+        String prefix = path + "/";
+        int position = -(dirCache.findEntry(prefix) + 1);
+        return position >= 0 && position < dirCache.getEntryCount()
+                && dirCache.getEntry(position).getPathString().startsWith(prefix);
+    }
+
+    /**
+     * 一个忽略规则文件及其所在目录（相对工作区，根目录为空串）
+     */
+    private static class IgnoreFrame {
+        final String base;
+        final IgnoreNode node;
+
+        IgnoreFrame(String base, IgnoreNode node) {
+            this.base = base;
+            this.node = node;
+        }
+    }
+
+    private static boolean pushIgnoreFile(Deque<IgnoreFrame> ignores, String base, File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            IgnoreNode node = new IgnoreNode();
+            node.parse(in);
+            if (!node.getRules().isEmpty()) {
+                ignores.push(new IgnoreFrame(base, node));
+                return true;
+            }
+        } catch (FileNotFoundException e) {
+            // 没有忽略规则
+        }
+        return false;
+    }
+
+    private static boolean isIgnored(Deque<IgnoreFrame> ignores, String path, boolean directory) {
+        for (IgnoreFrame frame : ignores) {
+            String relative = frame.base.isEmpty() ? path : path.substring(frame.base.length() + 1);
+            Boolean ignored = frame.node.checkIgnored(relative, directory);
+            if (ignored != null) {
+                return ignored;
+            }
+        }
+        return false;
+    }
+}
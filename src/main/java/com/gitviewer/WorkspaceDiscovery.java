@@ -0,0 +1,203 @@
+package com.gitviewer;
+
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.eclipse.jgit.lib.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * 工作区仓库发现
+ * 并行遍历目录树查找嵌套的 Git 仓库：遇到仓库后不再深入其工作目录，只继续查找 .gitmodules 中声明的子模块。
+ * .git 既可以是目录也可以是文件（子模块）。链接工作树（git worktree add）JGit 无法读取，跳过且不再深入。
+ * 隐藏目录、符号链接和匹配排除规则的目录不会遍历。
+ */
+public class WorkspaceDiscovery {
+
+    /**
+     * 默认排除的目录，可通过 -Dgitviewer.discovery.excludes=a,b/** 覆盖（glob，匹配目录名或相对路径）
+     */
+    public static final List<String> DEFAULT_EXCLUDES = Collections.unmodifiableList(Arrays.asList(
+            System.getProperty("gitviewer.discovery.excludes", "node_modules,target,build").split("\\s*,\\s*")));
+
+    // 最多向下查找的层数
+    private static final int MAX_DEPTH = 8;
+
+    private static final ForkJoinPool pool = new ForkJoinPool(
+            Math.max(4, Runtime.getRuntime().availableProcessors()), p -> {
+        java.util.concurrent.ForkJoinWorkerThread thread =
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+        thread.setName("workspace-discovery-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    }, null, false);
+
+    private final Path root;
+    private final List<PathMatcher> excludes = new ArrayList<>();
+    private final CancellationToken token;
+    private final Consumer<File> onRepository;
+
+    private WorkspaceDiscovery(Path root, List<String> excludeGlobs, CancellationToken token,
+                               Consumer<File> onRepository) {
+        this.root = root;
+        for (String glob : excludeGlobs) {
+            if (!glob.isEmpty()) {
+                excludes.add(FileSystems.getDefault().getPathMatcher("glob:" + glob));
+            }
+        }
+        this.token = token;
+        this.onRepository = onRepository;
+    }
+
+    /**
+     * 使用默认排除规则查找 root 之下的所有仓库
+     */
+    public static void discover(File root, CancellationToken token, Consumer<File> onRepository) {
+        discover(root, DEFAULT_EXCLUDES, token, onRepository);
+    }
+
+    /**
+     * 查找 root 之下的所有仓库，找到一个就回调一次，全部遍历完成后返回
+     * root 本身是仓库时只查找它的子模块。回调可能在多个线程上同时执行。
+     * @param excludeGlobs 排除的目录（glob，匹配目录名或相对 root 的路径）
+     * @param token 取消标记（可以为null）
+     */
+    public static void discover(File root, List<String> excludeGlobs, CancellationToken token,
+                                Consumer<File> onRepository) {
+        Path start = root.getAbsoluteFile().toPath().normalize();
+        WorkspaceDiscovery discovery = new WorkspaceDiscovery(start, excludeGlobs, token, onRepository);
+        if (GitRepositoryCache.isLinkedWorktree(root)) {
+            return;
+        }
+        if (GitInfoExtractor.isGitRepository(root)) {
+            discovery.reportSubmodules(start);
+            return;
+        }
+        pool.invoke(discovery.new DirectoryTask(start, 0));
+    }
+
+    /**
+     * 列出一个目录，是仓库时报告并停止，否则为每个子目录派生任务
+     */
+    private class DirectoryTask extends RecursiveAction {
+        private final Path directory;
+        private final int depth;
+
+        DirectoryTask(Path directory, int depth) {
+            this.directory = directory;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (CancellationToken.isCancelled(token)) {
+                return;
+            }
+            List<Path> subdirectories = new ArrayList<>();
+            boolean[] repository = {false};
+            try {
+                // 只读一层，目录项的属性随遍历一起返回，不需要再单独 stat
+                Files.walkFileTree(directory, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        String name = file.getFileName().toString();
+                        if (name.equals(".git") && (attrs.isDirectory() || attrs.isRegularFile())) {
+                            repository[0] = true;
+                            return FileVisitResult.TERMINATE;
+                        }
+                        if (attrs.isDirectory() && !name.startsWith(".") && !isExcluded(file)) {
+                            subdirectories.add(file);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                System.err.println("Error scanning directory: " + e.getMessage());
+                return;
+            }
+
+            if (repository[0] && depth > 0) {
+                if (!GitRepositoryCache.isLinkedWorktree(directory.toFile())) {
+                    report(directory);
+                    reportSubmodules(directory);
+                }
+                return;
+            }
+            if (depth >= MAX_DEPTH) {
+                return;
+            }
+            List<DirectoryTask> tasks = new ArrayList<>(subdirectories.size());
+            for (Path subdirectory : subdirectories) {
+                tasks.add(new DirectoryTask(subdirectory, depth + 1));
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    private boolean isExcluded(Path directory) {
+        Path name = directory.getFileName();
+        Path relative = root.relativize(directory);
+        for (PathMatcher matcher : excludes) {
+            if (matcher.matches(name) || matcher.matches(relative)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void report(Path repository) {
+        if (!CancellationToken.isCancelled(token)) {
+            onRepository.accept(repository.toFile());
+        }
+    }
+
+    /**
+     * 报告 .gitmodules 中声明且已经检出的子模块（递归）
+     */
+    private void reportSubmodules(Path repository) {
+        Path gitmodules = repository.resolve(".gitmodules");
+        if (!Files.isRegularFile(gitmodules)) {
+            return;
+        }
+        Config config = new Config();
+        try {
+            config.fromText(new String(Files.readAllBytes(gitmodules), StandardCharsets.UTF_8));
+        } catch (IOException | ConfigInvalidException e) {
+            System.err.println("Error reading .gitmodules: " + e.getMessage());
+            return;
+        }
+        for (String name : config.getSubsections("submodule")) {
+            String path = config.getString("submodule", name, "path");
+            if (path == null || path.isEmpty()) {
+                continue;
+            }
+            Path submodule = repository.resolve(path).normalize();
+            if (submodule.startsWith(repository) && Files.exists(submodule.resolve(".git"))) {
+                report(submodule);
+                reportSubmodules(submodule);
+            }
+        }
+    }
+}
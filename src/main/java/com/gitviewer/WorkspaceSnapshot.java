@@ -0,0 +1,258 @@
+package com.gitviewer;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 子目录表格的持久化快照
+ * 保存在 ~/.git-viewer/snapshots 下，每个目录一个文件，记录上次读取到的仓库列表、分支、remote 和最后提交，
+ * 打开目录时先显示快照，后台只重新读取 HEAD、refs 或 index 发生变化的仓库（见 {@link #stamp(File)}）。
+ *
+ * 文件格式: MAGIC, VERSION, 目录路径, 仓库数量, 每个仓库一条记录
+ */
+public class WorkspaceSnapshot {
+
+    private static final int MAGIC = 0x47565753; // "GVWS"
+    private static final int VERSION = 1;
+
+    private static final File SNAPSHOT_DIR = new File(System.getProperty("user.home"),
+            ".git-viewer" + File.separator + "snapshots");
+
+    /**
+     * 一个仓库的快照，名称为相对所在目录的路径（嵌套仓库用 / 分隔）
+     */
+    public static class Entry {
+        private String name;
+        private long stamp;
+        private String currentBranch = "-";
+        private List<String> branches = new ArrayList<>();
+        private String remote = "-";
+        private long lastCommitTime; // 毫秒，0 表示没有提交
+        private String author = "-";
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public long getStamp() {
+            return stamp;
+        }
+
+        public void setStamp(long stamp) {
+            this.stamp = stamp;
+        }
+
+        public String getCurrentBranch() {
+            return currentBranch;
+        }
+
+        public void setCurrentBranch(String currentBranch) {
+            this.currentBranch = currentBranch;
+        }
+
+        public List<String> getBranches() {
+            return branches;
+        }
+
+        public void setBranches(List<String> branches) {
+            this.branches = branches;
+        }
+
+        public String getRemote() {
+            return remote;
+        }
+
+        public void setRemote(String remote) {
+            this.remote = remote;
+        }
+
+        public long getLastCommitTime() {
+            return lastCommitTime;
+        }
+
+        public void setLastCommitTime(long lastCommitTime) {
+            this.lastCommitTime = lastCommitTime;
+        }
+
+        public String getAuthor() {
+            return author;
+        }
+
+        public void setAuthor(String author) {
+            this.author = author;
+        }
+    }
+
+    /**
+     * 读取目录的快照
+     * @return 名称 -> 快照，按保存时的顺序；没有快照或文件损坏时返回空表
+     */
+    public static Map<String, Entry> load(File directory) {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        File file = snapshotFileFor(directory);
+        if (!file.isFile()) {
+            return entries;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || !readString(in).equals(keyOf(directory))) {
+                return entries;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Entry entry = new Entry();
+                entry.name = readString(in);
+                entry.stamp = in.readLong();
+                entry.currentBranch = readString(in);
+                int branchCount = in.readInt();
+                List<String> branches = new ArrayList<>(branchCount);
+                for (int j = 0; j < branchCount; j++) {
+                    branches.add(readString(in));
+                }
+                entry.branches = branches;
+                entry.remote = readString(in);
+                entry.lastCommitTime = in.readLong();
+                entry.author = readString(in);
+                entries.put(entry.name, entry);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading workspace snapshot: " + e.getMessage());
+            entries.clear();
+        }
+        return entries;
+    }
+
+    /**
+     * 保存目录的快照（先写临时文件再替换，读取方不会看到写了一半的文件）
+     */
+    public static void save(File directory, Collection<Entry> entries) {
+        File file = snapshotFileFor(directory);
+        File temp = new File(SNAPSHOT_DIR, file.getName() + ".tmp");
+        try {
+            if (!SNAPSHOT_DIR.isDirectory() && !SNAPSHOT_DIR.mkdirs()) {
+                throw new IOException("Cannot create snapshot directory: " + SNAPSHOT_DIR);
+            }
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, keyOf(directory));
+                out.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    writeString(out, entry.name);
+                    out.writeLong(entry.stamp);
+                    writeString(out, entry.currentBranch);
+                    out.writeInt(entry.branches.size());
+                    for (String branch : entry.branches) {
+                        writeString(out, branch);
+                    }
+                    writeString(out, entry.remote);
+                    out.writeLong(entry.lastCommitTime);
+                    writeString(out, entry.author);
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error writing workspace snapshot: " + e.getMessage());
+            temp.delete();
+        }
+    }
+
+    /**
+     * 仓库状态戳：HEAD、index、packed-refs、config 的修改时间和大小，以及 refs/heads、refs/remotes 下各目录的修改时间
+     * （更新松散引用时 git 和 JGit 都会在目录中重命名锁文件，目录的修改时间随之变化）。
+     * 只需要若干次 stat，不打开仓库。读取失败时返回 0，0 与任何快照都不匹配。
+     */
+    public static long stamp(File repoDirectory) {
+        try {
+            File gitDir = GitRepositoryCache.resolveGitDir(repoDirectory);
+            long[] hash = {1125899906842597L};
+            for (String name : new String[] {"HEAD", "index", "packed-refs", "config"}) {
+                File file = new File(gitDir, name);
+                hash[0] = mix(mix(hash[0], file.lastModified()), file.length());
+            }
+            for (String refs : new String[] {"refs/heads", "refs/remotes"}) {
+                Path refsDir = new File(gitDir, refs).toPath();
+                if (!Files.isDirectory(refsDir)) {
+                    continue;
+                }
+                Files.walkFileTree(refsDir, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        hash[0] = mix(hash[0], attrs.lastModifiedTime().toMillis());
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+            return hash[0] != 0 ? hash[0] : 1;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long mix(long hash, long value) {
+        return hash * 31 + (value ^ (value >>> 32));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String keyOf(File directory) {
+        return directory.getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    /**
+     * 快照文件名：目录名加上完整路径的哈希
+     */
+    private static File snapshotFileFor(File directory) {
+        String path = keyOf(directory);
+        String hash = ObjectId.zeroId().getName();
+        try {
+            java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-1");
+            hash = ObjectId.fromRaw(digest.digest(path.getBytes(StandardCharsets.UTF_8))).getName();
+        } catch (java.security.NoSuchAlgorithmException e) {
+            // SHA-1 在所有 JRE 中都可用
+        }
+        String name = directory.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+        return new File(SNAPSHOT_DIR, name + "-" + hash.substring(0, 16) + ".snap");
+    }
+}